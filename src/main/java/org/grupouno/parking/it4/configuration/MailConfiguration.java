@@ -0,0 +1,47 @@
+package org.grupouno.parking.it4.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.grupouno.parking.it4.service.PooledJavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Properties;
+
+/**
+ * Replaces the auto-configured mail sender with {@link PooledJavaMailSender}, configured from the same
+ * {@code spring.mail.*} properties.
+ */
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfiguration {
+
+    @Bean
+    PooledJavaMailSender mailSender(MailProperties properties,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${mail.pool.max-connections:4}") int maxConnections,
+                                    @Value("${mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                                    @Value("${mail.pool.idle-timeout-ms:60000}") long idleTimeoutMs,
+                                    @Value("${mail.pool.borrow-timeout-ms:10000}") long borrowTimeoutMs) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(maxConnections, maxMessagesPerConnection,
+                idleTimeoutMs, borrowTimeoutMs, meterRegistry);
+        sender.setHost(properties.getHost());
+        if (properties.getPort() != null) {
+            sender.setPort(properties.getPort());
+        }
+        sender.setUsername(properties.getUsername());
+        sender.setPassword(properties.getPassword());
+        sender.setProtocol(properties.getProtocol());
+        if (properties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(properties.getDefaultEncoding().name());
+        }
+        if (!properties.getProperties().isEmpty()) {
+            Properties javaMailProperties = new Properties();
+            javaMailProperties.putAll(properties.getProperties());
+            sender.setJavaMailProperties(javaMailProperties);
+        }
+        return sender;
+    }
+}
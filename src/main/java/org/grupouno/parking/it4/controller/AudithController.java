@@ -3,16 +3,29 @@ package org.grupouno.parking.it4.controller;
 import jakarta.annotation.security.RolesAllowed;
 import jakarta.validation.Valid;
 import org.grupouno.parking.it4.dto.AudithDTO;
+import org.grupouno.parking.it4.dto.AudithFilterDto;
 import org.grupouno.parking.it4.model.Audith;
+import org.grupouno.parking.it4.service.AudithExportService;
 import org.grupouno.parking.it4.service.AudithService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -20,18 +33,56 @@ import java.util.Optional;
 public class AudithController {
 
     AudithService audithService;
+    AudithExportService audithExportService;
+    private final long exportTimeoutMs;
 
     @Autowired
-    public AudithController(AudithService audithService) {
+    public AudithController(AudithService audithService, AudithExportService audithExportService,
+                            @Value("${audit.export.timeout-ms:600000}") long exportTimeoutMs) {
         this.audithService = audithService;
+        this.audithExportService = audithExportService;
+        this.exportTimeoutMs = exportTimeoutMs;
     }
 
     @RolesAllowed("AUDITH")
     @GetMapping("")
-    public ResponseEntity<List<AudithDTO>> getAllAudits() {
-        List<Audith> audits = audithService.getAllAudits();
-        List<AudithDTO> auditDTOs = audits.stream().map(this::convertToDto).toList();
-        return ResponseEntity.ok(auditDTOs);
+    public ResponseEntity<Map<String, Object>> getAllAudits(
+            @RequestParam(required = false) String entity,
+            @RequestParam(required = false) String operation,
+            @RequestParam(required = false) String result,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int size) {
+        AudithFilterDto filter = new AudithFilterDto(entity, operation, result, from, to);
+        return ResponseEntity.ok(toResponse(audithService.searchAudits(filter, afterId, size)));
+    }
+
+    @RolesAllowed("AUDITH")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAudits(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String entity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            WebRequest request) {
+        AudithExportService.Format exportFormat;
+        try {
+            exportFormat = AudithExportService.Format.from(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        AudithFilterDto filter = new AudithFilterDto(entity, null, null, from, to);
+        StreamingResponseBody body = out -> audithExportService.export(filter, exportFormat, out);
+        // Only this handler streams for minutes, the other async requests keep the default timeout
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncWebRequest != null) {
+            asyncWebRequest.setTimeout(exportTimeoutMs);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"audith." + exportFormat.getExtension() + "\"")
+                .body(body);
     }
 
     @RolesAllowed("AUDITH")
@@ -45,10 +96,11 @@ public class AudithController {
 
     @RolesAllowed("AUDITH")
     @GetMapping("/entity/{entity}")
-    public ResponseEntity<List<AudithDTO>> getAuditsByEntity(@PathVariable("entity") String entity) {
-        List<Audith> audits = audithService.getAuditsByEntity(entity);
-        List<AudithDTO> auditDTOs = audits.stream().map(this::convertToDto).toList();
-        return ResponseEntity.ok(auditDTOs);
+    public ResponseEntity<Map<String, Object>> getAuditsByEntity(
+            @PathVariable("entity") String entity,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(toResponse(audithService.getAuditsByEntity(entity, afterId, size)));
     }
 
     @RolesAllowed("AUDITH")
@@ -69,6 +121,15 @@ public class AudithController {
         }
     }
 
+    private Map<String, Object> toResponse(Slice<Audith> audits) {
+        List<AudithDTO> auditDTOs = audits.getContent().stream().map(this::convertToDto).toList();
+        Map<String, Object> response = new HashMap<>();
+        response.put("audits", auditDTOs);
+        response.put("hasNext", audits.hasNext());
+        response.put("nextAfterId", audits.hasNext() ? auditDTOs.get(auditDTOs.size() - 1).getAuditId() : null);
+        return response;
+    }
+
     private OffsetDateTime convertToOffsetDateTime(LocalDateTime localDateTime) {
         if (localDateTime == null) {
             return null;
@@ -5,10 +5,11 @@ import org.grupouno.parking.it4.dto.LoginResponse;
 import org.grupouno.parking.it4.dto.LoginUserDto;
 import org.grupouno.parking.it4.dto.RegisterUserDto;
 import org.grupouno.parking.it4.dto.ResetPasswordDto;
+import org.grupouno.parking.it4.exceptions.PasswordHashingRejectedException;
 import org.grupouno.parking.it4.model.User;
 import org.grupouno.parking.it4.security.AuthenticationService;
 import org.grupouno.parking.it4.security.JwtService;
-import org.grupouno.parking.it4.service.MailService;
+import org.grupouno.parking.it4.service.MailOutboxService;
 import org.grupouno.parking.it4.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,13 +31,13 @@ public class AuthController {
     private final JwtService jwtService;
     private Validations validate = new Validations();
     private final AuthenticationService authenticationService;
-    private final MailService emailService;
+    private final MailOutboxService mailOutboxService;
     private final UserService userService;
 
-    public AuthController(JwtService jwtService, AuthenticationService authenticationService, MailService emailService, UserService userService) {
+    public AuthController(JwtService jwtService, AuthenticationService authenticationService, MailOutboxService mailOutboxService, UserService userService) {
         this.jwtService = jwtService;
         this.authenticationService = authenticationService;
-        this.emailService = emailService;
+        this.mailOutboxService = mailOutboxService;
         this.userService = userService;
 
     }
@@ -52,9 +53,9 @@ public class AuthController {
         }
         String verificationCode = validate.generateVerificationCode();
         userService.saveVerificationCode(user.get(), verificationCode);
-        emailService.sendVerificationCode(email, verificationCode);
+        mailOutboxService.enqueueVerificationCode(email, verificationCode);
         response.put(MESSAGE, "Email has been send");
-        logger.info("Emial send to {}", email);
+        logger.info("Email queued to {}", email);
         return ResponseEntity.ok(response);
     }
 
@@ -91,6 +92,8 @@ public class AuthController {
             response.put(MESSAGE, e.getMessage());
             logger.error("All data is required or data email or dpi is dupliced");
             return ResponseEntity.badRequest().body(response);
+        } catch (PasswordHashingRejectedException e) {
+            throw e;
         } catch (Exception e) {
             response.put(MESSAGE, "Error");
             response.put("err", "An error occurred while adding the user " + e.getMessage());
@@ -1,6 +1,8 @@
 package org.grupouno.parking.it4.controller;
 
 import jakarta.annotation.security.RolesAllowed;
+import org.grupouno.parking.it4.dto.DetailRoleProfileSummary;
+import org.grupouno.parking.it4.dto.ProfileSummary;
 import org.grupouno.parking.it4.model.DetailDTO;
 import org.grupouno.parking.it4.model.DetailRoleProfile;
 import org.grupouno.parking.it4.model.Profile;
@@ -59,7 +61,7 @@ public class DetailRoleProfileController {
 
     @RolesAllowed("DETAILROLEPROFILE")
     @GetMapping("")
-    public List<DetailRoleProfile> getAllDetailRoleProfiles() {
+    public List<DetailRoleProfileSummary> getAllDetailRoleProfiles() {
         return detailRoleProfileService.getAllDetailRoleProfiles();
     }
 
@@ -72,8 +74,8 @@ public class DetailRoleProfileController {
 
     @RolesAllowed("DETAILROLEPROFILE")
     @GetMapping("/role/{roleId}/profiles")
-    public ResponseEntity<List<Profile>> getProfilesByRoleId(@PathVariable long roleId) {
-        List<Profile> profiles = detailRoleProfileService.getProfilesByRoleId(roleId);
+    public ResponseEntity<List<ProfileSummary>> getProfilesByRoleId(@PathVariable long roleId) {
+        List<ProfileSummary> profiles = detailRoleProfileService.getProfilesByRoleId(roleId);
         return ResponseEntity.ok(profiles);
     }
 
@@ -4,6 +4,7 @@ import jakarta.annotation.security.RolesAllowed;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.grupouno.parking.it4.dto.ProfileDto;
+import org.grupouno.parking.it4.dto.ProfileSummary;
 import org.grupouno.parking.it4.exceptions.UserDeletionException;
 import org.grupouno.parking.it4.model.Profile;
 import org.grupouno.parking.it4.model.Rol;
@@ -11,6 +12,7 @@ import org.grupouno.parking.it4.service.ProfileService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -39,7 +41,7 @@ public class ProfileController {
                                                             @RequestParam(required = false) String description) {
         Map<String, Object> response = new HashMap<>();
         try {
-            Page<Profile> profilePage = profileService.getAllProfiles(page, size, description);
+            Page<ProfileSummary> profilePage = profileService.getAllProfiles(page, size, description);
 
             response.put("profiles", profilePage.getContent());
             response.put("totalPages", profilePage.getTotalPages());
@@ -54,6 +56,29 @@ public class ProfileController {
             return ResponseEntity.internalServerError().body(Map.of(MESSAGE, "Error fetching profiles"));
         }
     }
+    @RolesAllowed("PROFILE")
+    @GetMapping("/cursor")
+    public ResponseEntity<Map<String, Object>> listProfilesAfter(@RequestParam(required = false) String cursor,
+                                                                 @RequestParam(defaultValue = "10") int size,
+                                                                 @RequestParam(defaultValue = "false") boolean withTotal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Slice<ProfileSummary> profiles = profileService.getProfilesAfter(cursor, size);
+            List<ProfileSummary> content = profiles.getContent();
+            response.put("profiles", content);
+            response.put("hasNext", profiles.hasNext());
+            response.put("nextCursor", profiles.hasNext() ? ProfileService.cursorOf(content.get(content.size() - 1)) : null);
+            if (withTotal) {
+                response.put("approximateTotal", profileService.estimateProfileCount());
+            }
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(MESSAGE, e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of(MESSAGE, "Error fetching profiles"));
+        }
+    }
+
     @RolesAllowed("PROFILE")
     @PostMapping("/addProfileRoles")
     public ResponseEntity<Map<String, Object>> saveProfileWithRoles(
@@ -1,23 +1,31 @@
 package org.grupouno.parking.it4.controller;
 
 import jakarta.annotation.security.RolesAllowed;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 
 import org.grupouno.parking.it4.dto.ChangePasswordDto;
 import org.grupouno.parking.it4.dto.UserDto;
+import org.grupouno.parking.it4.dto.ProfileSummary;
+import org.grupouno.parking.it4.dto.UserImportReport;
+import org.grupouno.parking.it4.dto.UserSummary;
 import org.grupouno.parking.it4.model.Profile;
 import org.grupouno.parking.it4.model.User;
 import org.grupouno.parking.it4.service.ProfileService;
+import org.grupouno.parking.it4.service.UserImportService;
 import org.grupouno.parking.it4.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +40,7 @@ public class UserController {
     private static final String MESSAGE = "message";
     private static final String ERROR = "Error";
     private final ProfileService profileService;
+    private final UserImportService userImportService;
 
     @RolesAllowed("USER")
     @PostMapping("/password")
@@ -163,7 +172,7 @@ public class UserController {
             @RequestParam(required = false) String email) {
         Map<String, Object> response = new HashMap<>();
         try {
-            Page<User> userPage = userService.getAllUsers(page, size, email);
+            Page<UserSummary> userPage = userService.getAllUsers(page, size, email);
             response.put(MESSAGE, "Users retrieved successfully");
 
             response.put("users", userPage.getContent());
@@ -181,6 +190,62 @@ public class UserController {
         }
     }
 
+    @RolesAllowed("USER")
+    @GetMapping("/cursor")
+    public ResponseEntity<Map<String, Object>> getUsersAfter(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Slice<UserSummary> users = userService.getUsersAfter(cursor, size);
+            List<UserSummary> content = users.getContent();
+            response.put(MESSAGE, "Users retrieved successfully");
+            response.put("users", content);
+            response.put("hasNext", users.hasNext());
+            response.put("nextCursor", users.hasNext() ? UserService.cursorOf(content.get(content.size() - 1)) : null);
+            if (withTotal) {
+                response.put("approximateTotal", userService.estimateUserCount());
+            }
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put(MESSAGE, e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put(MESSAGE, ERROR);
+            response.put("err", "An error get users " + e.getMessage());
+            logger.error("Fail get users after cursor");
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
+    @RolesAllowed("USER")
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchUsers(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Page<UserSummary> userPage = userService.searchUsers(q, page, size);
+            response.put(MESSAGE, "Users retrieved successfully");
+            response.put("users", userPage.getContent());
+            response.put("totalPages", userPage.getTotalPages());
+            response.put("currentPage", userPage.getNumber());
+            response.put("totalElements", userPage.getTotalElements());
+            logger.info("Search users, page: {}, elements: {}", page, userPage.getTotalElements());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put(MESSAGE, e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put(MESSAGE, ERROR);
+            response.put("err", "An error search users " + e.getMessage());
+            logger.error("Fail search users");
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
     @RolesAllowed("USER")
     @DeleteMapping("/{idUser}")
     public ResponseEntity<Map<String, String>> deleteUserId(@PathVariable Long idUser) {
@@ -248,6 +313,22 @@ public class UserController {
         }
     }
 
+    @RolesAllowed("USER")
+    @PostMapping(value = "/import", consumes = {UserImportService.CSV, UserImportService.NDJSON})
+    public ResponseEntity<Object> importUsers(HttpServletRequest request) {
+        try {
+            UserImportReport report = userImportService.importUsers(request.getInputStream(),
+                    request.getHeader(HttpHeaders.CONTENT_TYPE));
+            logger.info("Import users, created: {}, rejected: {}", report.getCreated(), report.getRejected().size());
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException | IOException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put(MESSAGE, e.getMessage());
+            logger.error("Fail import users, {}", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @RolesAllowed("USER")
     @GetMapping("/find/{email}")
     public ResponseEntity<Map<String, Object>> findByEmail(@PathVariable String email){
@@ -257,7 +338,7 @@ public class UserController {
                 response.put(MESSAGE, "Email is required");
                 return ResponseEntity.badRequest().body(response);
             }
-            Optional<User> user = userService.findByEmail(email);
+            Optional<UserSummary> user = userService.findSummaryByEmail(email);
             if (user.isPresent()) {
                 response.put(MESSAGE, "User found");
                 response.put("user", user.get());
@@ -276,7 +357,7 @@ public class UserController {
     @GetMapping("/profiles")
     public ResponseEntity<Map<String, Object>> getAllProfiles() {
         Map<String, Object> response = new HashMap<>();
-        List<Profile> profiles = profileService.getAllProfilesForUser();
+        List<ProfileSummary> profiles = profileService.getAllProfilesForUser();
         response.put(MESSAGE, profiles);
         return ResponseEntity.ok(response);
     }
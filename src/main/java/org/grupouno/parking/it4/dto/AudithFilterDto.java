@@ -9,9 +9,12 @@ import java.time.LocalDateTime;
 
 @Getter
 @Setter
-@AllArgsConstructor
 @NoArgsConstructor
-public class VerificationCodeDto {
-    private String code;
-    private LocalDateTime expiry;
-}
\ No newline at end of file
+@AllArgsConstructor
+public class AudithFilterDto {
+    private String entity;
+    private String operation;
+    private String result;
+    private LocalDateTime from;
+    private LocalDateTime to;
+}
@@ -0,0 +1,16 @@
+package org.grupouno.parking.it4.dto;
+
+import org.grupouno.parking.it4.model.DetailDTO;
+
+/**
+ * Read-only view of a profile to role assignment, read with one join instead of loading both sides of every row.
+ * Serializes like {@code DetailRoleProfile}.
+ */
+public record DetailRoleProfileSummary(DetailDTO id, ProfileSummary profile, RoleSummary role) {
+
+    public DetailRoleProfileSummary(long profileId, String profileDescription, boolean profileStatus,
+                                    long roleId, String role, String roleDescription) {
+        this(new DetailDTO(profileId, roleId), new ProfileSummary(profileId, profileDescription, profileStatus),
+                new RoleSummary(roleId, role, roleDescription));
+    }
+}
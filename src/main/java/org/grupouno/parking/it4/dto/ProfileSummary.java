@@ -0,0 +1,16 @@
+package org.grupouno.parking.it4.dto;
+
+import org.grupouno.parking.it4.model.Profile;
+
+/**
+ * Read-only view of a profile, built by the queries in {@code ProfileRepository}. Serializes like {@code Profile}.
+ */
+public record ProfileSummary(long profileId, String description, boolean status) {
+
+    /**
+     * Snapshot of an entity, safe to hand to another thread.
+     */
+    public static ProfileSummary of(Profile profile) {
+        return new ProfileSummary(profile.getProfileId(), profile.getDescription(), profile.isStatus());
+    }
+}
@@ -0,0 +1,16 @@
+package org.grupouno.parking.it4.dto;
+
+import org.grupouno.parking.it4.model.Rol;
+
+/**
+ * Read-only view of a role. Serializes like {@code Rol}.
+ */
+public record RoleSummary(long id, String role, String description) {
+
+    /**
+     * Snapshot of an entity, safe to hand to another thread.
+     */
+    public static RoleSummary of(Rol role) {
+        return new RoleSummary(role.getId(), role.getRole(), role.getDescription());
+    }
+}
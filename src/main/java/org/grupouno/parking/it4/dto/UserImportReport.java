@@ -0,0 +1,33 @@
+package org.grupouno.parking.it4.dto;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of {@code POST /users/import}: how many rows were read and created, and every row that was not
+ * created with the reason.
+ */
+@Getter
+public class UserImportReport {
+
+    public record Rejection(int line, String email, String message) {
+    }
+
+    private int total;
+    private int created;
+    private final List<Rejection> rejected = new ArrayList<>();
+
+    public void rowRead() {
+        total++;
+    }
+
+    public void created(int count) {
+        created += count;
+    }
+
+    public void reject(int line, String email, String message) {
+        rejected.add(new Rejection(line, email, message));
+    }
+}
@@ -0,0 +1,30 @@
+package org.grupouno.parking.it4.dto;
+
+import org.grupouno.parking.it4.model.User;
+
+/**
+ * Read-only view of a user for list and lookup endpoints, selected column by column by the queries in
+ * {@code UserRepository}: no password hash, no managed entity. Serializes with the same field names as
+ * {@code User}.
+ */
+public record UserSummary(long userId, String name, String surname, long age, String dpi, String email,
+                          boolean status, ProfileSummary idProfile) {
+
+    /**
+     * Flat form for JPQL constructor expressions, which cannot nest. The profile columns are {@code null} for
+     * users without profile.
+     */
+    public UserSummary(long userId, String name, String surname, long age, String dpi, String email, boolean status,
+                       Long profileId, String profileDescription, Boolean profileStatus) {
+        this(userId, name, surname, age, dpi, email, status, profileId == null ? null
+                : new ProfileSummary(profileId, profileDescription, Boolean.TRUE.equals(profileStatus)));
+    }
+
+    /**
+     * Snapshot of an entity, safe to hand to another thread. Reads the profile, so call it inside the session.
+     */
+    public static UserSummary of(User user) {
+        return new UserSummary(user.getUserId(), user.getName(), user.getSurname(), user.getAge(), user.getDpi(),
+                user.getEmail(), user.isStatus(), user.getIdProfile() == null ? null : ProfileSummary.of(user.getIdProfile()));
+    }
+}
@@ -0,0 +1,41 @@
+package org.grupouno.parking.it4.exceptions;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A user with the same email, ignoring case, or the same DPI already exists. Raised from the unique indexes on
+ * {@code "user"}, so it also covers signups racing each other.
+ */
+public class DuplicateUserException extends IllegalArgumentException {
+
+    public static final String MESSAGE = "You have already a account with this DPI or Email";
+    private static final Set<String> UNIQUE_INDEXES = Set.of("ux_user_email_lower", "ux_user_dpi");
+
+    public DuplicateUserException(Throwable cause) {
+        super(MESSAGE, cause);
+    }
+
+    /**
+     * Returns a {@link DuplicateUserException} when {@code e} comes from the email or DPI index, otherwise {@code e}.
+     */
+    public static RuntimeException translate(DataIntegrityViolationException e) {
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null
+                    && UNIQUE_INDEXES.contains(indexName(violation.getConstraintName()))) {
+                return new DuplicateUserException(e);
+            }
+            cause = cause.getCause();
+        }
+        return e;
+    }
+
+    // Some drivers report the index qualified with its schema
+    private static String indexName(String constraintName) {
+        return constraintName.substring(constraintName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+}
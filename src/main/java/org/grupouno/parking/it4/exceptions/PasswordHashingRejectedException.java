@@ -0,0 +1,7 @@
+package org.grupouno.parking.it4.exceptions;
+
+public class PasswordHashingRejectedException extends RuntimeException {
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
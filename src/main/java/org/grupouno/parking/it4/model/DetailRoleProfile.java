@@ -11,12 +11,12 @@ public class DetailRoleProfile {
     @EmbeddedId
     private DetailDTO id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @MapsId("idProfile")
     @JoinColumn(name = "profile_id", referencedColumnName = "profile_id")
     private Profile profile;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @MapsId("idRole")
     @JoinColumn(name = "role_id", referencedColumnName = "role_id")
     private Rol role;
@@ -0,0 +1,39 @@
+package org.grupouno.parking.it4.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Table(name = "mail_outbox")
+public class MailOutbox {
+
+    public enum Type {
+        PASSWORD_AND_USER,
+        VERIFICATION_CODE
+    }
+
+    public enum Status {
+        PENDING,
+        DEAD
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "mail_id")
+    private long mailId;
+
+    @Enumerated(EnumType.STRING)
+    private Type mailType;
+    private String recipient;
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+    private LocalDateTime createdAt;
+}
@@ -1,4 +1,5 @@
 package org.grupouno.parking.it4.model;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -40,9 +41,13 @@ public class User implements UserDetails {
     private String email;
     private String password;
     private boolean status;
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Loaded by the repository methods that need it, see UserRepository
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "profile_id", referencedColumnName = "profile_id")
     private  Profile idProfile;
+    @JsonIgnore
+    @Column(name = "token_version")
+    private long tokenVersion;
 
     @Transient
     private Collection<? extends GrantedAuthority> authorities;
@@ -0,0 +1,15 @@
+package org.grupouno.parking.it4.repository;
+
+import org.grupouno.parking.it4.model.Audith;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+public interface AudithExportRepository {
+
+    /**
+     * Audits matching the {@link AudithSpecifications} filters, oldest first, read through a server-side cursor.
+     * Must be consumed inside a read-only transaction.
+     */
+    Stream<Audith> streamForExport(Specification<Audith> specification);
+}
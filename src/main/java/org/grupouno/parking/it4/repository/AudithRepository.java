@@ -2,6 +2,7 @@ package org.grupouno.parking.it4.repository;
 
 import org.grupouno.parking.it4.model.Audith;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -9,7 +10,8 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AudithRepository extends JpaRepository<Audith, Long> {
+public interface AudithRepository extends JpaRepository<Audith, Long>, JpaSpecificationExecutor<Audith>,
+        AudithExportRepository {
 
     List<Audith> findByEntity(String entity);
 
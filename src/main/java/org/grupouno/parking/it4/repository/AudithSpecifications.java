@@ -0,0 +1,47 @@
+package org.grupouno.parking.it4.repository;
+
+import org.grupouno.parking.it4.model.Audith;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Filters for audit searches. Each one only adds its predicate when the value is present, so the generated
+ * SQL matches the indexes on {@code audith} instead of carrying {@code :param IS NULL OR ...} branches.
+ */
+public final class AudithSpecifications {
+
+    private AudithSpecifications() {
+    }
+
+    public static Specification<Audith> entityIs(String entity) {
+        return (root, query, cb) -> entity == null || entity.isBlank() ? null
+                : cb.equal(cb.lower(root.get("entity")), entity.trim().toLowerCase(Locale.ROOT));
+    }
+
+    public static Specification<Audith> operationIs(String operation) {
+        return (root, query, cb) -> operation == null || operation.isBlank() ? null
+                : cb.equal(root.get("operation"), operation.trim());
+    }
+
+    public static Specification<Audith> resultIs(String result) {
+        return (root, query, cb) -> result == null || result.isBlank() ? null
+                : cb.equal(root.get("result"), result.trim());
+    }
+
+    public static Specification<Audith> startedFrom(LocalDateTime from) {
+        return (root, query, cb) -> from == null ? null
+                : cb.greaterThanOrEqualTo(root.get("startDate"), from);
+    }
+
+    public static Specification<Audith> startedBefore(LocalDateTime to) {
+        return (root, query, cb) -> to == null ? null
+                : cb.lessThan(root.get("startDate"), to);
+    }
+
+    public static Specification<Audith> idBefore(Long auditId) {
+        return (root, query, cb) -> auditId == null ? null
+                : cb.lessThan(root.get("auditId"), auditId);
+    }
+}
@@ -1,9 +1,12 @@
 package org.grupouno.parking.it4.repository;
 
+import org.grupouno.parking.it4.dto.DetailRoleProfileSummary;
+import org.grupouno.parking.it4.dto.ProfileSummary;
 import org.grupouno.parking.it4.model.DetailRoleProfile;
 import org.grupouno.parking.it4.model.DetailDTO;
 import org.grupouno.parking.it4.model.Profile;
 import org.grupouno.parking.it4.model.Rol;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,6 +17,10 @@ import java.util.Optional;
 
 @Repository
 public interface DetailRoleProfileRepository extends JpaRepository<DetailRoleProfile, DetailDTO> {
+    @Override
+    @EntityGraph(attributePaths = {"profile", "role"})
+    Optional<DetailRoleProfile> findById(DetailDTO id);
+
     List<DetailRoleProfile> findByProfile_ProfileId(long profileId);
     List<DetailRoleProfile> findByRole_Id(long roleId);
     Optional<DetailRoleProfile> findByIdIdProfileAndIdIdRole(Long profileId, Long roleId);
@@ -23,4 +30,15 @@ public interface DetailRoleProfileRepository extends JpaRepository<DetailRolePro
 
     @Query("SELECT d.role FROM DetailRoleProfile d WHERE d.profile.profileId = :profileId")
     List<Rol> findRolesByProfileId(@Param("profileId") Long profileId);
+
+    @Query("SELECT new org.grupouno.parking.it4.dto.DetailRoleProfileSummary(p.profileId, p.description, p.status, "
+            + "r.id, r.role, r.description) FROM DetailRoleProfile d JOIN d.profile p JOIN d.role r")
+    List<DetailRoleProfileSummary> findAllSummaries();
+
+    @Query("SELECT new org.grupouno.parking.it4.dto.ProfileSummary(p.profileId, p.description, p.status) "
+            + "FROM DetailRoleProfile d JOIN d.profile p WHERE d.role.id = :roleId")
+    List<ProfileSummary> findProfileSummariesByRoleId(@Param("roleId") long roleId);
+
+    @Query("SELECT d FROM DetailRoleProfile d JOIN FETCH d.role JOIN FETCH d.profile")
+    List<DetailRoleProfile> findAllWithRoles();
 }
@@ -0,0 +1,42 @@
+package org.grupouno.parking.it4.repository;
+
+import org.grupouno.parking.it4.model.MailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    /**
+     * Locks the next due mails, skipping the rows another instance has already locked. Must run in a transaction.
+     */
+    @Query(value = "SELECT * FROM mail_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<MailOutbox> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.nextAttemptAt = :leaseUntil WHERE m.mailId IN :ids")
+    int lease(@Param("ids") List<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.attempts = :attempts, m.nextAttemptAt = :nextAttemptAt, m.lastError = :error "
+            + "WHERE m.mailId = :mailId")
+    int reschedule(@Param("mailId") Long mailId, @Param("attempts") int attempts,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE MailOutbox m SET m.status = org.grupouno.parking.it4.model.MailOutbox.Status.DEAD, "
+            + "m.attempts = :attempts, m.lastError = :error, m.payload = null WHERE m.mailId = :mailId")
+    int markDead(@Param("mailId") Long mailId, @Param("attempts") int attempts, @Param("error") String error);
+
+    long countByStatus(MailOutbox.Status status);
+}
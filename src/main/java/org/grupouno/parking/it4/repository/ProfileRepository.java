@@ -1,16 +1,54 @@
 package org.grupouno.parking.it4.repository;
 
+import org.grupouno.parking.it4.dto.ProfileSummary;
 import org.grupouno.parking.it4.model.Profile;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProfileRepository extends JpaRepository<Profile, Long> {
     Optional<Profile> findById(Long profileId);
     Optional<Profile> findByDescription(String description);
-    Page<Profile> findByDescriptionContainingIgnoreCase(String description, Pageable pageable);
-}
\ No newline at end of file
+
+    String SUMMARY = "SELECT new org.grupouno.parking.it4.dto.ProfileSummary(p.profileId, p.description, p.status) "
+            + "FROM Profile p ";
+
+    @Query(value = SUMMARY, countQuery = "SELECT count(p) FROM Profile p")
+    Page<ProfileSummary> findSummaries(Pageable pageable);
+
+    @Query(SUMMARY)
+    List<ProfileSummary> findAllSummaries();
+
+    /**
+     * Profiles whose description contains {@code description}, ignoring case. Compares {@code lower(description)}
+     * so it can use the trigram index.
+     */
+    @Query(value = SUMMARY + "WHERE lower(p.description) LIKE lower(concat('%', :#{escape(#description)}, '%')) "
+            + "ESCAPE :#{escapeCharacter()}",
+            countQuery = "SELECT count(p) FROM Profile p "
+                    + "WHERE lower(p.description) LIKE lower(concat('%', :#{escape(#description)}, '%')) ESCAPE :#{escapeCharacter()}")
+    Page<ProfileSummary> findSummariesByDescriptionContaining(@Param("description") String description,
+                                                                 Pageable pageable);
+
+    /**
+     * Profiles after {@code profileId} in id order, the page size comes from {@code pageable}. Ids start at 1, so 0
+     * starts from the first profile.
+     */
+    @Query(SUMMARY + "WHERE p.profileId > :profileId ORDER BY p.profileId")
+    List<ProfileSummary> findSummariesAfter(@Param("profileId") long profileId, Pageable pageable);
+
+    /**
+     * Row count as of the last {@code ANALYZE}, read from the catalog instead of counting. Negative when the table
+     * was never analyzed.
+     */
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('profile' AS regclass)",
+            nativeQuery = true)
+    long estimateCount();
+}
@@ -1,20 +1,126 @@
 package org.grupouno.parking.it4.repository;
 
+import org.grupouno.parking.it4.dto.UserSummary;
 import org.grupouno.parking.it4.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    /**
+     * Login and token checks read the profile, so it comes in the same select.
+     */
+    @EntityGraph(attributePaths = "idProfile")
     Optional<User> findByEmail(String email);
+
+    @Override
+    @EntityGraph(attributePaths = "idProfile")
+    Optional<User> findById(Long id);
+
     @Query("SELECT u FROM User u WHERE u.dpi = :dpi")
     Optional<User> findByDPI(@Param("dpi") String dpi);
 
-    Page<User> findByEmailContainingIgnoreCase(String email, Pageable pageable);
+    String SUMMARY = "SELECT new org.grupouno.parking.it4.dto.UserSummary(u.userId, u.name, u.surname, u.age, u.dpi, "
+            + "u.email, u.status, p.profileId, p.description, p.status) FROM User u LEFT JOIN u.idProfile p ";
+
+    @Query(value = SUMMARY, countQuery = "SELECT count(u) FROM User u")
+    Page<UserSummary> findSummaries(Pageable pageable);
+
+    /**
+     * Users whose email contains {@code email}, ignoring case. Compares {@code lower(email)} so it can use the
+     * trigram index.
+     */
+    @Query(value = SUMMARY + "WHERE lower(u.email) LIKE lower(concat('%', :#{escape(#email)}, '%')) ESCAPE :#{escapeCharacter()}",
+            countQuery = "SELECT count(u) FROM User u "
+                    + "WHERE lower(u.email) LIKE lower(concat('%', :#{escape(#email)}, '%')) ESCAPE :#{escapeCharacter()}")
+    Page<UserSummary> findSummariesByEmailContaining(@Param("email") String email, Pageable pageable);
+
+    @Query(SUMMARY + "WHERE u.email = :email")
+    Optional<UserSummary> findSummaryByEmail(@Param("email") String email);
+
+    /**
+     * Users after {@code (email, userId)} in email order, the page size comes from {@code pageable}. The redundant
+     * {@code email >= :email} gives the planner a range on {@code idx_user_email_user_id}, the {@code OR} alone
+     * would not. {@code ("", 0)} starts from the first user.
+     */
+    @Query(SUMMARY + "WHERE u.email >= :email AND (u.email > :email OR u.userId > :userId) ORDER BY u.email, u.userId")
+    List<UserSummary> findSummariesAfter(@Param("email") String email, @Param("userId") long userId, Pageable pageable);
+
+    /**
+     * Same expression as {@code idx_user_full_name_trgm}. Either part may be null, which must not hide the other.
+     */
+    String FULL_NAME = "lower(coalesce(u.name, '') || ' ' || coalesce(u.surname, ''))";
+
+    String SEARCH_FILTER = "WHERE lower(u.email) LIKE :pattern ESCAPE '\\' "
+            + "OR " + FULL_NAME + " LIKE :pattern ESCAPE '\\' "
+            + "OR u.dpi LIKE :prefix ESCAPE '\\' ";
+
+    /**
+     * Users whose email or full name contains the pattern, or whose DPI starts with the prefix. Every branch is
+     * answered by an index, so the cost follows the matches and not the size of the table. DPI prefix matches come
+     * first, then the closest word similarity to {@code term}.
+     *
+     * @param term    lower case search text
+     * @param pattern {@code term} escaped and wrapped in {@code %}
+     * @param prefix  {@code term} escaped and followed by {@code %}
+     */
+    @Query(value = SUMMARY + SEARCH_FILTER
+            + "ORDER BY CASE WHEN u.dpi LIKE :prefix ESCAPE '\\' THEN 1 ELSE 0 END DESC, "
+            + "greatest(function('word_similarity', :term, lower(u.email)), "
+            + "function('word_similarity', :term, " + FULL_NAME + ")) DESC, u.userId",
+            countQuery = "SELECT count(u) FROM User u " + SEARCH_FILTER)
+    Page<UserSummary> search(@Param("term") String term, @Param("pattern") String pattern, @Param("prefix") String prefix,
+                             Pageable pageable);
+
+    interface TokenVersionView {
+        Long getUserId();
+        Long getTokenVersion();
+    }
+
+    @Query("SELECT u.userId AS userId, u.tokenVersion AS tokenVersion FROM User u WHERE u.tokenVersion > 0")
+    List<TokenVersionView> findTokenVersions();
+
+    @Query("SELECT u.userId AS userId, u.tokenVersion AS tokenVersion FROM User u WHERE u.idProfile.profileId = :profileId")
+    List<TokenVersionView> findTokenVersionsByProfileId(@Param("profileId") Long profileId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.idProfile.profileId = :profileId")
+    int incrementTokenVersionByProfileId(@Param("profileId") Long profileId);
+
+    String USERS_WITH_ROLE = "u.idProfile.profileId IN "
+            + "(SELECT d.id.idProfile FROM DetailRoleProfile d WHERE d.id.idRole = :roleId)";
+
+    @Query("SELECT u.userId AS userId, u.tokenVersion AS tokenVersion FROM User u WHERE " + USERS_WITH_ROLE)
+    List<TokenVersionView> findTokenVersionsByRoleId(@Param("roleId") Long roleId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE " + USERS_WITH_ROLE)
+    int incrementTokenVersionByRoleId(@Param("roleId") Long roleId);
+
+    /**
+     * Replaces the password hash only if it is still the one that was verified, so a concurrent password change wins.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.userId = :userId AND u.password = :oldHash")
+    int replacePasswordHash(@Param("userId") Long userId, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 
-}
\ No newline at end of file
+    /**
+     * Row count as of the last {@code ANALYZE}, read from the catalog instead of counting. Negative when the table
+     * was never analyzed.
+     */
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('\"user\"' AS regclass)",
+            nativeQuery = true)
+    long estimateCount();
+}
@@ -1,6 +1,8 @@
 package org.grupouno.parking.it4.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.grupouno.parking.it4.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,7 +11,7 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class ApplicationConfiguration {
@@ -24,8 +26,18 @@ public class ApplicationConfiguration {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
     @Bean
-    BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                    @Value("${security.password.pool-size:0}") int poolSize,
+                                    @Value("${security.password.queue-capacity:64}") int queueCapacity,
+                                    @Value("${security.password.bcrypt.strength:10}") int strength,
+                                    @Value("${security.password.bcrypt.target-ms:250}") long targetMillis,
+                                    @Value("${security.password.bcrypt.min-strength:10}") int minStrength,
+                                    @Value("${security.password.bcrypt.max-strength:14}") int maxStrength) {
+        // By default hashing may use at most half of the cores, leaving the rest to the other endpoints
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        CalibratedBCryptPasswordEncoder bcrypt = CalibratedBCryptPasswordEncoder.create(
+                strength, targetMillis, minStrength, maxStrength, meterRegistry);
+        return new BoundedPasswordEncoder(bcrypt, threads, queueCapacity, meterRegistry);
     }
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
@@ -33,11 +45,11 @@ public class ApplicationConfiguration {
     }
 
     @Bean
-    AuthenticationProvider authenticationProvider() {
+    AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
 
         return authProvider;
     }
@@ -0,0 +1,310 @@
+package org.grupouno.parking.it4.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles login, forgot-password and reset-password before any user lookup or BCrypt verification
+ * happens, with one token bucket per client IP, one per target email and one shared by every client.
+ * Rejected requests get 429 with {@code Retry-After}. The client IP is {@link HttpServletRequest#getRemoteAddr()},
+ * so behind a proxy {@code server.forward-headers-strategy} has to be set for it to be the real client.
+ */
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthRateLimitFilter.class);
+    private static final String LOGIN = "/auth/login";
+    private static final String RESET_PASSWORD = "/auth/reset-password";
+    private static final String FORGOT_PASSWORD = "/auth/forgot-password/";
+    private static final String GLOBAL_KEY = "*";
+    private static final String OVERFLOW_KEY = "~overflow";
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private final class Limit {
+        private final String scope;
+        private final int capacity;
+        private final long intervalNanos;
+        private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+        private final Counter rejectedCounter;
+
+        private Limit(String scope, int capacity, int perMinute, MeterRegistry meterRegistry) {
+            if (capacity <= 0 || perMinute <= 0) {
+                throw new IllegalArgumentException("Rate limit capacity and rate for " + scope + " must be positive");
+            }
+            this.scope = scope;
+            this.capacity = capacity;
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            this.rejectedCounter = Counter.builder("security.ratelimit.rejected")
+                    .tag("scope", scope)
+                    .description("Auth requests rejected by the rate limiter")
+                    .register(meterRegistry);
+        }
+
+        private long tryAcquire(String key, long now) {
+            long wait = bucketFor(key, now).tryAcquire(now);
+            if (wait > 0) {
+                rejectedCounter.increment();
+                logger.debug("Rate limit {} exceeded for {}", scope, key);
+            }
+            return wait;
+        }
+
+        /**
+         * Once the map is full, keys without a bucket share a single one until idle buckets are evicted,
+         * so a flood of distinct addresses or emails cannot grow the map without limit.
+         */
+        private TokenBucket bucketFor(String key, long now) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket != null) {
+                return bucket;
+            }
+            if (buckets.size() >= maxBuckets && evictIdle(now) == 0 && buckets.size() >= maxBuckets) {
+                key = OVERFLOW_KEY;
+            }
+            return buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, intervalNanos, now));
+        }
+
+        private int evictIdle(long now) {
+            int before = buckets.size();
+            buckets.values().removeIf(bucket -> bucket.isIdle(now));
+            int evicted = Math.max(0, before - buckets.size());
+            evictedCounter.increment(evicted);
+            return evicted;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxBuckets;
+    private final Counter allowedCounter;
+    private final Counter evictedCounter;
+    private final Limit ipLimit;
+    private final Limit emailLimit;
+    private final Limit globalLimit;
+
+    public AuthRateLimitFilter(ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${security.rate-limit.enabled:true}") boolean enabled,
+                               @Value("${security.rate-limit.max-buckets:100000}") int maxBuckets,
+                               @Value("${security.rate-limit.ip.capacity:20}") int ipCapacity,
+                               @Value("${security.rate-limit.ip.per-minute:10}") int ipPerMinute,
+                               @Value("${security.rate-limit.email.capacity:5}") int emailCapacity,
+                               @Value("${security.rate-limit.email.per-minute:5}") int emailPerMinute,
+                               @Value("${security.rate-limit.global.capacity:200}") int globalCapacity,
+                               @Value("${security.rate-limit.global.per-minute:3000}") int globalPerMinute) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxBuckets = maxBuckets;
+        this.allowedCounter = Counter.builder("security.ratelimit.allowed")
+                .description("Auth requests let through by the rate limiter")
+                .register(meterRegistry);
+        this.evictedCounter = Counter.builder("security.ratelimit.evicted")
+                .description("Idle rate limit buckets dropped")
+                .register(meterRegistry);
+        this.ipLimit = new Limit("ip", ipCapacity, ipPerMinute, meterRegistry);
+        this.emailLimit = new Limit("email", emailCapacity, emailPerMinute, meterRegistry);
+        this.globalLimit = new Limit("global", globalCapacity, globalPerMinute, meterRegistry);
+        Gauge.builder("security.ratelimit.buckets", this, AuthRateLimitFilter::bucketCount)
+                .description("Rate limit buckets currently tracked")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!enabled || !"POST".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        String path = pathOf(request);
+        return !(LOGIN.equals(path) || RESET_PASSWORD.equals(path) || path.startsWith(FORGOT_PASSWORD));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        long now = System.nanoTime();
+        // The IP and global buckets go first so the body is only read, and email buckets only created, for
+        // requests inside the global ceiling
+        long wait = ipLimit.tryAcquire(String.valueOf(request.getRemoteAddr()), now);
+        if (wait == 0) {
+            wait = globalLimit.tryAcquire(GLOBAL_KEY, now);
+        }
+        HttpServletRequest target = request;
+        if (wait == 0) {
+            String path = pathOf(request);
+            String email;
+            if (path.startsWith(FORGOT_PASSWORD)) {
+                email = URLDecoder.decode(path.substring(FORGOT_PASSWORD.length()), StandardCharsets.UTF_8);
+            } else {
+                BufferedBodyRequest buffered = new BufferedBodyRequest(request);
+                target = buffered;
+                email = emailOf(buffered);
+            }
+            if (email != null && !email.isBlank()) {
+                wait = emailLimit.tryAcquire(email.trim().toLowerCase(Locale.ROOT), now);
+            }
+        }
+        if (wait > 0) {
+            reject(response, wait);
+            return;
+        }
+        allowedCounter.increment();
+        filterChain.doFilter(target, response);
+    }
+
+    @Scheduled(fixedDelayString = "${security.rate-limit.evict-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        evictIdleBuckets(System.nanoTime());
+    }
+
+    int evictIdleBuckets(long now) {
+        return ipLimit.evictIdle(now) + emailLimit.evictIdle(now) + globalLimit.evictIdle(now);
+    }
+
+    int bucketCount() {
+        return ipLimit.buckets.size() + emailLimit.buckets.size();
+    }
+
+    private String emailOf(BufferedBodyRequest request) {
+        if (!request.complete || request.prefix.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(request.prefix).get("email");
+            return email != null && email.isTextual() ? email.asText() : null;
+        } catch (IOException e) {
+            // The controller answers the malformed body, the IP and global buckets still apply
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        ProblemDetail errorDetail = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, "Too many requests");
+        errorDetail.setProperty("property", "Too many attempts, try again later");
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorDetail);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        return contextPath != null && !contextPath.isEmpty() && uri.startsWith(contextPath)
+                ? uri.substring(contextPath.length())
+                : uri;
+    }
+
+    /**
+     * Reads up to {@link #MAX_BODY_BYTES} of the body so the email can be found, and replays them followed by
+     * the rest of the original stream to the controller.
+     */
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] prefix;
+        private final boolean complete;
+        private ServletInputStream stream;
+
+        private BufferedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            byte[] read = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+            this.complete = read.length <= MAX_BODY_BYTES;
+            this.prefix = read;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (stream == null) {
+                InputStream replay = complete
+                        ? new ByteArrayInputStream(prefix)
+                        : new SequenceInputStream(new ByteArrayInputStream(prefix), super.getInputStream());
+                stream = new ReplayInputStream(replay);
+            }
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+
+    private static final class ReplayInputStream extends ServletInputStream {
+
+        private final InputStream delegate;
+        private boolean finished;
+
+        private ReplayInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = delegate.read();
+            finished = value < 0;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = delegate.read(buffer, offset, length);
+            finished = count < 0;
+            return count;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Asynchronous reads are not supported");
+        }
+    }
+}
@@ -2,13 +2,17 @@ package org.grupouno.parking.it4.security;
 
 import org.grupouno.parking.it4.dto.LoginUserDto;
 import org.grupouno.parking.it4.dto.RegisterUserDto;
+import org.grupouno.parking.it4.exceptions.DuplicateUserException;
 import org.grupouno.parking.it4.model.Profile;
 import org.grupouno.parking.it4.model.User;
 import org.grupouno.parking.it4.repository.ProfileRepository;
 import org.grupouno.parking.it4.repository.UserRepository;
-import org.grupouno.parking.it4.service.MailService;
+import org.grupouno.parking.it4.service.MailOutboxService;
 import org.grupouno.parking.it4.service.RoleService;
 import org.grupouno.parking.it4.utils.Validations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
@@ -16,6 +20,8 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.security.core.Authentication;
 
 import java.util.Collections;
@@ -23,13 +29,15 @@ import java.util.List;
 
 @Service
 public class AuthenticationService {
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final RoleService roleService;
     private final AuthenticationManager authenticationManager;
     private final ProfileRepository profileRepository;
     private Validations validations = new Validations();
-    private final MailService mailService;
+    private final MailOutboxService mailOutboxService;
+    private final TransactionTemplate transactionTemplate;
 
 
     public AuthenticationService(
@@ -38,18 +46,20 @@ public class AuthenticationService {
             PasswordEncoder passwordEncoder,
             RoleService roleService,
             ProfileRepository profileRepository,
-            MailService mailService
+            MailOutboxService mailOutboxService,
+            PlatformTransactionManager transactionManager
     ) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.roleService = roleService;
         this.profileRepository = profileRepository;
-        this.mailService = mailService;
+        this.mailOutboxService = mailOutboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public User signup(RegisterUserDto input) {
-        if (input.getEmail() == null || !input.getEmail().contains("@")) {
+        if (!Validations.isValidEmail(input.getEmail())) {
             throw new IllegalArgumentException("Email is not valid");
         }
         if (input.getDpi() == null || input.getDpi().length() > 13) {
@@ -63,11 +73,6 @@ public class AuthenticationService {
         if (Boolean.FALSE.equals(isValid)) {
             throw new IllegalArgumentException("The password is invalid");
         }
-        Boolean isNotRepeatData = userRepository.findByEmail(input.getEmail()).isPresent();
-        Boolean isNotRepeatDPI = userRepository.findByDPI(input.getDpi()).isPresent();
-        if (Boolean.TRUE.equals(isNotRepeatData) || Boolean.TRUE.equals(isNotRepeatDPI)) {
-            throw new IllegalArgumentException("You have already a account with this DPI or Email");
-        }
         User user = new User();
         user.setName(input.getName());
         user.setSurname(input.getSurname());
@@ -79,8 +84,17 @@ public class AuthenticationService {
         Profile profile = profileRepository.findById(2L)
                 .orElseThrow(() -> new IllegalArgumentException("Profile not found"));
         user.setIdProfile(profile);
-        mailService.sendPasswordAndUser(input.getEmail(), passwordUser);
-        return userRepository.save(user);
+        // The welcome mail is queued with the user, the password was hashed before the transaction started.
+        // Duplicates are caught by the unique indexes on email and DPI, the identity insert runs on save.
+        try {
+            return transactionTemplate.execute(status -> {
+                User saved = userRepository.save(user);
+                mailOutboxService.enqueuePasswordAndUser(input.getEmail(), passwordUser);
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw DuplicateUserException.translate(e);
+        }
 
     }
 
@@ -92,6 +106,7 @@ public class AuthenticationService {
                 )
         );
         User user = (User) authentication.getPrincipal();
+        rehashIfNeeded(user, input.getPassword());
         Profile profile = user.getIdProfile();
 
         List<GrantedAuthority> authorities;
@@ -112,4 +127,23 @@ public class AuthenticationService {
         return user;
     }
 
+    /**
+     * Moves the stored hash to the current BCrypt cost while the raw password is at hand. A failure here
+     * must not fail the login, the hash is simply rehashed on a later one.
+     */
+    private void rehashIfNeeded(User user, String rawPassword) {
+        String storedHash = user.getPassword();
+        if (rawPassword == null || !passwordEncoder.upgradeEncoding(storedHash)) {
+            return;
+        }
+        try {
+            String newHash = passwordEncoder.encode(rawPassword);
+            if (userRepository.replacePasswordHash(user.getUserId(), storedHash, newHash) == 1) {
+                user.setPassword(newHash);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Error rehashing password of user {}: {}", user.getUserId(), e.getMessage());
+        }
+    }
+
 }
\ No newline at end of file
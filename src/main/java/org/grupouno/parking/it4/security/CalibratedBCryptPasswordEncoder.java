@@ -0,0 +1,119 @@
+package org.grupouno.parking.it4.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+/**
+ * BCrypt encoder whose strength is either fixed or measured at startup to land closest to a target time per hash
+ * on the current machine. Any stored hash with a different cost, higher or lower, reports
+ * {@link #upgradeEncoding} so it can be rehashed on the next successful login. The application ships a fixed
+ * strength; calibration is opt-in and only suits a single instance, since replicas sharing the users table would
+ * each rehash to their own cost.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+    private static final int MIN_STRENGTH = 4;
+    private static final int MAX_STRENGTH = 31;
+    private static final int SAMPLES = 3;
+
+    record Calibration(int strength, long hashNanos) {
+    }
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength, long hashNanos, MeterRegistry meterRegistry) {
+        super(strength);
+        this.strength = strength;
+        Gauge.builder("security.password.bcrypt.cost", () -> this.strength)
+                .description("BCrypt cost used for new hashes")
+                .register(meterRegistry);
+        Gauge.builder("security.password.bcrypt.hash.time", () -> (double) hashNanos / TimeUnit.MILLISECONDS.toNanos(1))
+                .description("Time one hash took at the chosen cost when it was measured")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Measures the cost from {@code minStrength} up and builds an encoder with the one closest to the target.
+     * A {@code fixedStrength} above zero skips the search and only measures that cost.
+     */
+    public static CalibratedBCryptPasswordEncoder create(int fixedStrength, long targetMillis, int minStrength,
+                                                         int maxStrength, MeterRegistry meterRegistry) {
+        Calibration calibration;
+        if (fixedStrength > 0) {
+            calibration = new Calibration(fixedStrength, measure(fixedStrength));
+        } else {
+            // Warms up the JIT so the first measured cost is not inflated
+            measure(minStrength);
+            calibration = calibrate(TimeUnit.MILLISECONDS.toNanos(targetMillis), minStrength, maxStrength,
+                    CalibratedBCryptPasswordEncoder::measure);
+        }
+        logger.info("BCrypt cost {} {}, {} ms per hash", calibration.strength(),
+                fixedStrength > 0 ? "(fixed)" : "(calibrated for " + targetMillis + " ms)",
+                TimeUnit.NANOSECONDS.toMillis(calibration.hashNanos()));
+        return new CalibratedBCryptPasswordEncoder(calibration.strength(), calibration.hashNanos(), meterRegistry);
+    }
+
+    /**
+     * Every extra round doubles the work, so the cost goes up while the next one would land closer to the target,
+     * by ratio, than the current one. The search never goes below {@code minStrength}, even on slow machines.
+     */
+    static Calibration calibrate(long targetNanos, int minStrength, int maxStrength, IntToLongFunction hashNanos) {
+        if (minStrength < MIN_STRENGTH || maxStrength > MAX_STRENGTH || minStrength > maxStrength || targetNanos <= 0) {
+            throw new IllegalArgumentException("BCrypt strength must be between 4 and 31 and the target positive");
+        }
+        int strength = minStrength;
+        long nanos = hashNanos.applyAsLong(strength);
+        // nanos * 2 is closer than nanos when 2 * nanos^2 < target^2
+        while (strength < maxStrength && nanos < targetNanos / Math.sqrt(2)) {
+            strength++;
+            nanos = hashNanos.applyAsLong(strength);
+        }
+        return new Calibration(strength, nanos);
+    }
+
+    /**
+     * Returns the cost stored in a BCrypt hash such as {@code $2a$10$...}, or -1 when it is not one.
+     */
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(4);
+        char units = encodedPassword.charAt(5);
+        if (tens < '0' || tens > '9' || units < '0' || units > '9') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = costOf(encodedPassword);
+        return cost > 0 && cost != strength;
+    }
+
+    private static long measure(int strength) {
+        String salt = BCrypt.gensalt(strength);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration-password", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -1,11 +1,13 @@
 package org.grupouno.parking.it4.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import org.grupouno.parking.it4.service.UserDetailsServiceImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -24,16 +26,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
 
     private final UserDetailsServiceImpl userDetailsService;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final boolean statelessAuthorities;
 
 
     public JwtAuthenticationFilter(
             JwtService jwtService,
             HandlerExceptionResolver handlerExceptionResolver,
-            UserDetailsServiceImpl userDetailsService
+            UserDetailsServiceImpl userDetailsService,
+            PrincipalCache principalCache,
+            TokenVersionRegistry tokenVersionRegistry,
+            @Value("${security.jwt.stateless-authorities:false}") boolean statelessAuthorities
     ) {
         this.jwtService = jwtService;
         this.handlerExceptionResolver = handlerExceptionResolver;
         this.userDetailsService = userDetailsService;
+        this.principalCache = principalCache;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.statelessAuthorities = statelessAuthorities;
     }
 
     @Override
@@ -47,14 +58,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             try {
                 final String jwt = authHeader.substring(7);
-                final String userEmail = jwtService.extractUsername(jwt);
+                final Claims claims = jwtService.extractAllClaims(jwt);
+                final String userEmail = claims.getSubject();
 
                 Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
                 if (userEmail != null && authentication == null) {
-                    UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+                    UserDetails userDetails = resolvePrincipal(claims, userEmail);
 
-                    if (jwtService.isTokenValid(jwt, userDetails)) {
+                    if (jwtService.isTokenValid(claims, userDetails)) {
                         UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                                 userDetails,
                                 null,
@@ -72,4 +84,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * In stateless mode the principal comes from the token claims, unless the token version shows that
+     * the user, its profile or its roles changed after the token was issued.
+     */
+    private UserDetails resolvePrincipal(Claims claims, String userEmail) {
+        if (statelessAuthorities) {
+            Long userId = claims.get(JwtService.USER_ID_CLAIM, Long.class);
+            Long tokenVersion = claims.get(JwtService.TOKEN_VERSION_CLAIM, Long.class);
+            if (userId != null && tokenVersion != null && tokenVersionRegistry.isCurrent(userId, tokenVersion)) {
+                return jwtService.toPrincipal(claims);
+            }
+        }
+        return principalCache.getOrLoad(userEmail, userDetailsService::loadUserByUsername);
+    }
 }
\ No newline at end of file
@@ -1,16 +1,22 @@
 package org.grupouno.parking.it4.security;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import java.security.Key;
 import java.util.Date;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
+import org.grupouno.parking.it4.model.Profile;
+import org.grupouno.parking.it4.model.User;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 
 import org.springframework.beans.factory.annotation.Value;
@@ -18,11 +24,24 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 @Service
 public class JwtService {
-    @Value("${security.jwt.secret-key}")
-    private String secretKey;
+    public static final String ROLES_CLAIM = "roles";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String PROFILE_ID_CLAIM = "pid";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
+    private final long jwtExpiration;
+    private final Key signInKey;
+    private final JwtParser jwtParser;
+
+    public JwtService(@Value("${security.jwt.secret-key}") String secretKey,
+                      @Value("${security.jwt.expiration-time}") long jwtExpiration) {
+        this.jwtExpiration = jwtExpiration;
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+    }
 
-    @Value("${security.jwt.expiration-time}")
-    private long jwtExpiration;
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -34,9 +53,16 @@ public class JwtService {
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", userDetails.getAuthorities().stream()
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .toList());
+        if (userDetails instanceof User user) {
+            claims.put(USER_ID_CLAIM, user.getUserId());
+            claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+            if (user.getIdProfile() != null) {
+                claims.put(PROFILE_ID_CLAIM, user.getIdProfile().getProfileId());
+            }
+        }
         return generateToken(claims, userDetails);
     }
 
@@ -55,34 +81,60 @@ public class JwtService {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(extractAllClaims(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Same check as {@link #isTokenValid(String, UserDetails)} over claims that were already parsed and verified.
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        return username != null && username.equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private boolean isTokenExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Builds the principal straight from verified claims, without touching the database.
+     * Only the fields carried by the token (id, email, profile id and roles) are set.
+     */
+    public User toPrincipal(Claims claims) {
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        Long tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Long.class);
+        User user = new User();
+        user.setUserId(userId != null ? userId : 0L);
+        user.setEmail(claims.getSubject());
+        user.setStatus(true);
+        user.setTokenVersion(tokenVersion != null ? tokenVersion : 0L);
+        Long profileId = claims.get(PROFILE_ID_CLAIM, Long.class);
+        if (profileId != null) {
+            Profile profile = new Profile();
+            profile.setProfileId(profileId);
+            user.setIdProfile(profile);
+        }
+        Collection<?> roles = claims.get(ROLES_CLAIM, Collection.class);
+        List<GrantedAuthority> authorities = roles == null ? List.of() : roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(role)))
+                .toList();
+        user.setAuthorities(authorities);
+        return user;
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Parses the token and verifies its signature and expiration. Callers should parse once per request
+     * and pass the claims around instead of calling the single claim helpers repeatedly.
+     */
+    public Claims extractAllClaims(String token) {
+        return jwtParser
+                .parseClaimsJws(token)
+                .getBody();
     }
 }
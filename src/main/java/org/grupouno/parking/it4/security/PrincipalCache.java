@@ -0,0 +1,138 @@
+package org.grupouno.parking.it4.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.grupouno.parking.it4.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, TTL based cache of the principals resolved by {@link JwtAuthenticationFilter}, keyed by email.
+ * Services that change a user, a profile or its roles must invalidate the affected entries.
+ */
+@Component
+public class PrincipalCache {
+
+    private record Entry(UserDetails principal, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.enabled:true}") boolean enabled,
+                          @Value("${security.principal-cache.max-size:10000}") int maxSize,
+                          @Value("${security.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.enabled = enabled && maxSize > 0 && ttlSeconds > 0;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+
+        Gauge.builder("security.principal.cache.size", entries, Map::size)
+                .description("Principals currently cached")
+                .register(meterRegistry);
+        this.hitCounter = Counter.builder("security.principal.cache.hits").register(meterRegistry);
+        this.missCounter = Counter.builder("security.principal.cache.misses").register(meterRegistry);
+        this.evictionCounter = Counter.builder("security.principal.cache.evictions").register(meterRegistry);
+    }
+
+    public UserDetails getOrLoad(String email, Function<String, UserDetails> loader) {
+        if (!enabled) {
+            return loader.apply(email);
+        }
+        long now = System.nanoTime();
+        Entry entry = entries.get(email);
+        if (entry != null && !entry.isExpired(now)) {
+            hitCounter.increment();
+            return entry.principal();
+        }
+        if (entry != null && entries.remove(email, entry)) {
+            evictionCounter.increment();
+        }
+        missCounter.increment();
+
+        long loadGeneration = generation.get();
+        UserDetails principal = loader.apply(email);
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        // An invalidation that raced with the load means the principal may already be stale
+        if (generation.get() == loadGeneration) {
+            entries.put(email, new Entry(principal, now + ttlNanos));
+        }
+        return principal;
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            invalidateMatching(entry -> email.equals(entry.principal().getUsername()));
+        }
+    }
+
+    public void invalidateUser(long userId) {
+        invalidateMatching(entry -> entry.principal() instanceof User user && user.getUserId() == userId);
+    }
+
+    public void invalidateProfile(long profileId) {
+        invalidateMatching(entry -> entry.principal() instanceof User user
+                && user.getIdProfile() != null
+                && user.getIdProfile().getProfileId() == profileId);
+    }
+
+    public void invalidateAll() {
+        invalidateMatching(entry -> true);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void invalidateMatching(Predicate<Entry> predicate) {
+        removeMatching(predicate);
+        // Inside a transaction, a concurrent request may still reload the old data before commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeMatching(predicate);
+                }
+            });
+        }
+    }
+
+    private void removeMatching(Predicate<Entry> predicate) {
+        generation.incrementAndGet();
+        entries.values().removeIf(predicate);
+    }
+
+    private void evict(long now) {
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        if (entries.size() >= maxSize) {
+            entries.entrySet().stream()
+                    .min((a, b) -> Long.compare(a.getValue().expiresAt() - now, b.getValue().expiresAt() - now))
+                    .ifPresent(oldest -> entries.remove(oldest.getKey(), oldest.getValue()));
+        }
+        evictionCounter.increment(Math.max(0, before - entries.size()));
+    }
+}
@@ -0,0 +1,51 @@
+package org.grupouno.parking.it4.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Instead of a token count and a refill time, which cannot be updated together
+ * with a single compare-and-set, it keeps the instant at which the bucket will be full again: taking a
+ * token pushes that instant one refill interval forward, and the take is refused when the instant would
+ * end up more than {@code capacity} intervals ahead of now.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(int capacity, long intervalNanos, long now) {
+        if (capacity <= 0 || intervalNanos <= 0) {
+            throw new IllegalArgumentException("Bucket capacity and refill interval must be positive");
+        }
+        this.intervalNanos = intervalNanos;
+        this.burstNanos = capacity * intervalNanos;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @return 0 when the token was taken, otherwise the nanoseconds until the next one is available
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - now > 0 ? current : now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * A full bucket behaves exactly like a new one, so it can be dropped.
+     */
+    boolean isIdle(long now) {
+        return fullAt.get() - now <= 0;
+    }
+}
@@ -0,0 +1,100 @@
+package org.grupouno.parking.it4.security;
+
+import jakarta.annotation.PostConstruct;
+import org.grupouno.parking.it4.model.User;
+import org.grupouno.parking.it4.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the current token version of every user whose version is above zero, so the JWT filter can tell
+ * whether the claims of a token are still current without going to the database.
+ * Every change to a user, its profile roles or the roles themselves must go through this registry. Versions are
+ * incremented in the caller's transaction and only published here once it commits, so a rollback leaves the map
+ * in step with the database.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionRegistry.class);
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final UserRepository userRepository;
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+
+    public TokenVersionRegistry(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        try {
+            record(userRepository.findTokenVersions());
+            logger.info("Loaded token versions for {} users", versions.size());
+        } catch (DataAccessException e) {
+            logger.error("Error loading token versions: {}", e.getMessage());
+        }
+    }
+
+    public boolean isCurrent(long userId, long tokenVersion) {
+        return versions.getOrDefault(userId, 0L) <= tokenVersion;
+    }
+
+    public long currentVersion(long userId) {
+        return versions.getOrDefault(userId, 0L);
+    }
+
+    /**
+     * Records the version of a user that was just saved with an incremented {@code tokenVersion}.
+     */
+    public void userChanged(User user) {
+        long userId = user.getUserId();
+        long tokenVersion = user.getTokenVersion();
+        afterCommit(() -> versions.merge(userId, tokenVersion, Math::max));
+    }
+
+    public void userDeleted(long userId) {
+        afterCommit(() -> versions.put(userId, DELETED));
+    }
+
+    public void profileChanged(long profileId) {
+        userRepository.incrementTokenVersionByProfileId(profileId);
+        List<UserRepository.TokenVersionView> tokenVersions = userRepository.findTokenVersionsByProfileId(profileId);
+        afterCommit(() -> record(tokenVersions));
+    }
+
+    /**
+     * Invalidates the tokens of the users whose profile holds the role. Call it before the role is unlinked from
+     * its profiles, otherwise nobody is found.
+     */
+    public void roleChanged(long roleId) {
+        userRepository.incrementTokenVersionByRoleId(roleId);
+        List<UserRepository.TokenVersionView> tokenVersions = userRepository.findTokenVersionsByRoleId(roleId);
+        afterCommit(() -> record(tokenVersions));
+    }
+
+    private void record(List<UserRepository.TokenVersionView> tokenVersions) {
+        tokenVersions.forEach(view -> versions.merge(view.getUserId(), view.getTokenVersion(), Math::max));
+    }
+
+    private static void afterCommit(Runnable publish) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.grupouno.parking.it4.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which audit records are written. {@code audit.policy.rules} is a comma separated list of
+ * {@code Entity:Operation=mode} entries, where entity or operation may be {@code *} and mode is one of
+ * {@code always}, {@code off}, {@code failure-only} or {@code sample:N}. Sampling writes every failure and one
+ * in N successful records. The most specific rule wins, then {@code audit.policy.default}.
+ * <p>
+ * No rules are configured by default, so every record is written; dropping records is something operators opt into.
+ */
+@Component
+public class AuditPolicy {
+
+    private static final String ANY = "*";
+    private static final String SUCCESS = "Success";
+
+    public enum Mode { ALWAYS, OFF, FAILURE_ONLY, SAMPLE }
+
+    public record Rule(Mode mode, int sampleRate) {
+        static Rule parse(String value) {
+            String normalized = value.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+            if (normalized.startsWith("SAMPLE")) {
+                int separator = normalized.indexOf(':');
+                int rate = separator < 0 ? 0 : Integer.parseInt(normalized.substring(separator + 1).trim());
+                if (rate < 1) {
+                    throw new IllegalArgumentException("Audit sample rate must be at least 1: " + value);
+                }
+                return new Rule(Mode.SAMPLE, rate);
+            }
+            return new Rule(Mode.valueOf(normalized), 1);
+        }
+    }
+
+    private record Decision(Rule rule, AtomicLong calls) {
+    }
+
+    private final Rule defaultRule;
+    private final Map<String, Rule> rules = new HashMap<>();
+    // entity -> operation -> decision, looked up with the exact strings so the hot path does not allocate
+    private final Map<String, Map<String, Decision>> decisions = new ConcurrentHashMap<>();
+    private final Counter skippedCounter;
+
+    public AuditPolicy(MeterRegistry meterRegistry,
+                       @Value("${audit.policy.default:always}") String defaultMode,
+                       @Value("${audit.policy.rules:}") String rules) {
+        this.defaultRule = Rule.parse(defaultMode);
+        for (String entry : rules.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int equals = entry.indexOf('=');
+            int colon = entry.indexOf(':');
+            if (equals < 0 || colon < 0 || colon > equals) {
+                throw new IllegalArgumentException("Invalid audit policy rule, expected Entity:Operation=mode: " + entry);
+            }
+            this.rules.put(key(entry.substring(0, colon), entry.substring(colon + 1, equals)),
+                    Rule.parse(entry.substring(equals + 1)));
+        }
+        this.skippedCounter = Counter.builder("audit.policy.skipped")
+                .description("Audit records not written because of the audit policy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the record with this entity, operation and result should be written. Cheap enough to be called
+     * before any request or response payload is built.
+     */
+    public boolean shouldRecord(String entity, String operation, String result) {
+        Decision decision = decisionFor(entity, operation);
+        boolean failure = result != null && !SUCCESS.equalsIgnoreCase(result);
+        boolean record = switch (decision.rule().mode()) {
+            case ALWAYS -> true;
+            case OFF -> false;
+            case FAILURE_ONLY -> failure;
+            case SAMPLE -> failure || decision.calls().getAndIncrement() % decision.rule().sampleRate() == 0;
+        };
+        if (!record) {
+            skippedCounter.increment();
+        }
+        return record;
+    }
+
+    private Decision decisionFor(String entity, String operation) {
+        String entityKey = entity == null ? ANY : entity;
+        String operationKey = operation == null ? ANY : operation;
+        Map<String, Decision> byOperation = decisions.get(entityKey);
+        if (byOperation == null) {
+            byOperation = decisions.computeIfAbsent(entityKey, key -> new ConcurrentHashMap<>());
+        }
+        Decision decision = byOperation.get(operationKey);
+        return decision != null ? decision : byOperation.computeIfAbsent(operationKey, key -> {
+            Rule rule = rules.get(key(entityKey, operationKey));
+            if (rule == null) {
+                rule = rules.get(key(entityKey, ANY));
+            }
+            if (rule == null) {
+                rule = rules.get(key(ANY, operationKey));
+            }
+            return new Decision(rule != null ? rule : defaultRule, new AtomicLong());
+        });
+    }
+
+    private static String key(String entity, String operation) {
+        return entity.trim().toLowerCase(Locale.ROOT) + ':' + operation.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,264 @@
+package org.grupouno.parking.it4.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.grupouno.parking.it4.model.Audith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes audit records in the background: {@link AudithService#createAudit} only puts the record on a
+ * bounded queue and this writer flushes it to the {@code audith} table in JDBC batches.
+ * Payloads given to {@link AudithService#recordAudit} are built on the caller's thread and only serialized here.
+ * Disabled unless {@code audit.async.enabled=true}.
+ */
+@Component
+public class AudithBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AudithBatchWriter.class);
+    private static final String INSERT_AUDIT = "INSERT INTO audith (entity, start_date, description, operation, result, request, response) "
+            + "VALUES (?, ?, ?, ?, ?, CAST(? AS jsonb), CAST(? AS jsonb))";
+
+    /**
+     * An audit waiting to be written. When a payload is present it replaces the matching map of the audit.
+     * Payloads must be immutable snapshots, they are serialized later on the writer thread.
+     */
+    record PendingAudit(Audith audit, Object request, Object response) {
+    }
+
+    private record Row(Audith audit, String request, String response) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<PendingAudit> queue;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final boolean blockWhenFull;
+    private final long blockTimeoutMs;
+
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public AudithBatchWriter(JdbcTemplate jdbcTemplate,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${audit.async.enabled:false}") boolean enabled,
+                             @Value("${audit.async.queue-capacity:10000}") int queueCapacity,
+                             @Value("${audit.async.batch-size:200}") int batchSize,
+                             @Value("${audit.async.flush-interval-ms:500}") long flushIntervalMs,
+                             @Value("${audit.async.overflow:drop}") String overflow,
+                             @Value("${audit.async.block-timeout-ms:50}") long blockTimeoutMs) {
+        if (queueCapacity <= 0 || batchSize <= 0 || flushIntervalMs <= 0) {
+            throw new IllegalArgumentException("Audit queue capacity, batch size and flush interval must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.blockWhenFull = "block".equalsIgnoreCase(overflow);
+        this.blockTimeoutMs = blockTimeoutMs;
+
+        Gauge.builder("audit.writer.queue.depth", queue, BlockingQueue::size)
+                .description("Audit records waiting to be written")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("audit.writer.dropped")
+                .description("Audit records discarded because the queue was full")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("audit.writer.written")
+                .description("Audit records written to the database")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("audit.writer.failed")
+                .description("Audit records lost because their batch failed")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("audit.writer.flush")
+                .description("Time spent writing one batch of audit records")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "audit-writer");
+        worker.setDaemon(true);
+        worker.start();
+        logger.info("Asynchronous audit writer started, batch size {}, flush interval {} ms", batchSize, flushIntervalMs);
+    }
+
+    /**
+     * Queues the record for the next batch. When the queue is full the record is dropped, or with
+     * {@code audit.async.overflow=block} the caller waits up to {@code audit.async.block-timeout-ms} first.
+     *
+     * @return {@code false} if the record was dropped
+     */
+    public boolean enqueue(Audith audit) {
+        return enqueue(audit, null, null);
+    }
+
+    /**
+     * Same as {@link #enqueue(Audith)}, with the request and response payloads serialized on the writer thread.
+     */
+    public boolean enqueue(Audith audit, Object request, Object response) {
+        PendingAudit pending = new PendingAudit(audit, request, response);
+        boolean accepted;
+        if (blockWhenFull) {
+            try {
+                accepted = queue.offer(pending, blockTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } else {
+            accepted = queue.offer(pending);
+        }
+        if (!accepted) {
+            droppedCounter.increment();
+            logger.warn("Audit queue full, dropping record {} {}", audit.getEntity(), audit.getOperation());
+        }
+        return accepted;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getDroppedCount() {
+        return (long) droppedCounter.count();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            try {
+                worker.join(flushIntervalMs * 4);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<PendingAudit> remaining = new ArrayList<>(batchSize);
+        while (queue.drainTo(remaining, batchSize) > 0) {
+            flush(remaining);
+            remaining.clear();
+        }
+    }
+
+    private void run() {
+        List<PendingAudit> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingAudit first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainingNanos <= 0) {
+                        break;
+                    }
+                    PendingAudit next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void flush(List<PendingAudit> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            List<Row> rows = new ArrayList<>(batch.size());
+            for (PendingAudit pending : batch) {
+                rows.add(toRow(pending));
+            }
+            jdbcTemplate.batchUpdate(INSERT_AUDIT, rows, rows.size(), (ps, row) -> {
+                Audith audit = row.audit();
+                ps.setString(1, audit.getEntity());
+                ps.setTimestamp(2, audit.getStartDate() != null ? Timestamp.valueOf(audit.getStartDate()) : null);
+                ps.setString(3, audit.getDescription());
+                ps.setString(4, audit.getOperation());
+                ps.setString(5, audit.getResult());
+                ps.setString(6, row.request());
+                ps.setString(7, row.response());
+            });
+            writtenCounter.increment(batch.size());
+        } catch (DataAccessException e) {
+            failedCounter.increment(batch.size());
+            logger.error("Error writing batch of {} audit records: {}", batch.size(), e.getMessage(), e);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Row toRow(PendingAudit pending) {
+        Audith audit = pending.audit();
+        return new Row(audit,
+                toJson(audit, pending.request() != null ? pending.request() : audit.getRequest()),
+                toJson(audit, pending.response() != null ? pending.response() : audit.getResponse()));
+    }
+
+    /**
+     * Serializes the payload straight to JSON, without an intermediate map. A payload that cannot be serialized
+     * is stored as null so the rest of the record, and of the batch, is still written.
+     */
+    private String toJson(Audith audit, Object value) {
+        try {
+            if (value == null || (value instanceof Map<?, ?> map && map.isEmpty())) {
+                return null;
+            }
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Error serializing audit payload for {} {}: {}", audit.getEntity(), audit.getOperation(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.grupouno.parking.it4.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.grupouno.parking.it4.dto.AudithFilterDto;
+import org.grupouno.parking.it4.model.Audith;
+import org.grupouno.parking.it4.repository.AudithRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.grupouno.parking.it4.repository.AudithSpecifications.*;
+
+/**
+ * Writes the audith table to an output stream as NDJSON or CSV, one row at a time. Rows are read through a
+ * database cursor and detached once written, so memory use does not depend on how many rows are exported.
+ */
+@Service
+public class AudithExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AudithExportService.class);
+    private static final int FLUSH_EVERY = 500;
+    private static final String CSV_HEADER = "audit_id,entity,start_date,description,operation,result,request,response";
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format from(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private final AudithRepository audithRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public AudithExportService(AudithRepository audithRepository, EntityManager entityManager,
+                               PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.audithRepository = audithRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the number of rows written
+     */
+    public long export(AudithFilterDto filter, Format format, OutputStream out) {
+        Specification<Audith> specification = Specification.where(entityIs(filter.getEntity()))
+                .and(startedFrom(filter.getFrom()))
+                .and(startedBefore(filter.getTo()));
+        Long written = transactionTemplate.execute(status -> {
+            try (Stream<Audith> audits = audithRepository.streamForExport(specification)) {
+                return format == Format.CSV ? writeCsv(audits.iterator(), out) : writeNdjson(audits.iterator(), out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        logger.info("Exported {} audit records as {}", written, format);
+        return written == null ? 0 : written;
+    }
+
+    private long writeNdjson(Iterator<Audith> audits, OutputStream out) throws IOException {
+        long count = 0;
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        while (audits.hasNext()) {
+            Audith audit = audits.next();
+            generator.writeStartObject();
+            generator.writeNumberField("auditId", audit.getAuditId());
+            generator.writeStringField("entity", audit.getEntity());
+            generator.writeStringField("startDate", formatDate(audit.getStartDate()));
+            generator.writeStringField("description", audit.getDescription());
+            generator.writeStringField("operation", audit.getOperation());
+            generator.writeStringField("result", audit.getResult());
+            generator.writeObjectField("request", audit.getRequest());
+            generator.writeObjectField("response", audit.getResponse());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            entityManager.detach(audit);
+            if (++count % FLUSH_EVERY == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<Audith> audits, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (audits.hasNext()) {
+            Audith audit = audits.next();
+            writer.write(Long.toString(audit.getAuditId()));
+            writer.write(',');
+            writer.write(csv(audit.getEntity()));
+            writer.write(',');
+            writer.write(csv(formatDate(audit.getStartDate())));
+            writer.write(',');
+            writer.write(csv(audit.getDescription()));
+            writer.write(',');
+            writer.write(csv(audit.getOperation()));
+            writer.write(',');
+            writer.write(csv(audit.getResult()));
+            writer.write(',');
+            writer.write(csv(json(audit.getRequest())));
+            writer.write(',');
+            writer.write(csv(json(audit.getResponse())));
+            writer.write('\n');
+            entityManager.detach(audit);
+            if (++count % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private String json(Map<String, Object> value) throws IOException {
+        return value == null || value.isEmpty() ? null : objectMapper.writeValueAsString(value);
+    }
+
+    private static String formatDate(LocalDateTime date) {
+        return date == null ? null : date.toString();
+    }
+
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
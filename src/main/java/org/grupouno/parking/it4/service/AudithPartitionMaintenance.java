@@ -0,0 +1,254 @@
+package org.grupouno.parking.it4.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the monthly partitions of {@code audith} in shape: creates the partitions for the coming months ahead
+ * of time and moves partitions older than the retention window to gzip CSV files in the archive directory,
+ * then detaches and drops them.
+ * <p>
+ * Every replica schedules the job, so a run first takes a Postgres advisory lock and is skipped when another
+ * instance holds it. Future partitions are always created, otherwise new rows land in {@code audith_default} and
+ * that month can no longer get its own partition. Archiving is opt-in with {@code audit.partition.enabled}, and
+ * since whichever replica wins writes the archive, partitions are only dropped when
+ * {@code audit.partition.archive-dir} points to shared or durable storage; without it expired partitions are kept.
+ */
+@Component
+public class AudithPartitionMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(AudithPartitionMaintenance.class);
+    private static final long MAINTENANCE_LOCK = 0x61756469745F70L; // "audit_p"
+    private static final Pattern PARTITION_NAME = Pattern.compile("audith_p(\\d{6})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final int FETCH_SIZE = 1000;
+    private static final String[] TEXT_COLUMNS = {"entity", "start_date", "description", "operation", "result", "request", "response"};
+    private static final String CSV_HEADER = "audit_id," + String.join(",", TEXT_COLUMNS);
+    private static final String LIST_PARTITIONS = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = 'audith'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean archiveEnabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final Path archiveDir;
+
+    private final Counter createdCounter;
+    private final Counter archivedCounter;
+
+    public AudithPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${audit.partition.enabled:false}") boolean archiveEnabled,
+                                      @Value("${audit.partition.months-ahead:3}") int monthsAhead,
+                                      @Value("${audit.partition.retention-months:12}") int retentionMonths,
+                                      @Value("${audit.partition.archive-dir:}") String archiveDir) {
+        if (monthsAhead < 0 || retentionMonths < 1) {
+            throw new IllegalArgumentException("Audit partition months ahead must be >= 0 and retention >= 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archiveEnabled = archiveEnabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveDir = archiveDir == null || archiveDir.isBlank() ? null : Paths.get(archiveDir);
+
+        this.createdCounter = Counter.builder("audit.partition.created")
+                .description("Audit partitions created ahead of time")
+                .register(meterRegistry);
+        this.archivedCounter = Counter.builder("audit.partition.archived")
+                .description("Audit partitions exported and dropped")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain(YearMonth.now());
+    }
+
+    @Scheduled(cron = "${audit.partition.cron:0 15 2 * * *}")
+    public void scheduledMaintenance() {
+        maintain(YearMonth.now());
+    }
+
+    void maintain(YearMonth current) {
+        Boolean ran;
+        try {
+            ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+                if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+                    return false;
+                }
+                try {
+                    maintainLocked(current);
+                } finally {
+                    advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+                }
+                return true;
+            });
+        } catch (DataAccessException e) {
+            logger.error("Error taking the audit partition maintenance lock: {}", e.getMessage());
+            return;
+        }
+        if (!Boolean.TRUE.equals(ran)) {
+            logger.info("Audit partition maintenance is running on another instance, skipping");
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, MAINTENANCE_LOCK);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private void maintainLocked(YearMonth current) {
+        List<String> partitions;
+        try {
+            partitions = jdbcTemplate.queryForList(LIST_PARTITIONS, String.class);
+        } catch (DataAccessException e) {
+            logger.error("Error listing audit partitions: {}", e.getMessage());
+            return;
+        }
+        createPartitions(current, partitions);
+        if (!archiveEnabled) {
+            return;
+        }
+        List<String> expired = expiredPartitions(partitions, current);
+        if (!expired.isEmpty() && archiveDir == null) {
+            logger.warn("Keeping {} audit partitions past retention: set audit.partition.archive-dir to shared "
+                    + "or durable storage to archive and drop them", expired.size());
+            return;
+        }
+        for (String partition : expired) {
+            try {
+                archive(partition);
+            } catch (DataAccessException | IOException | UncheckedIOException e) {
+                logger.error("Error archiving audit partition {}: {}", partition, e.getMessage(), e);
+            }
+        }
+    }
+
+    void createPartitions(YearMonth current, List<String> existing) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            if (existing.contains(partitionName(month))) {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute("CREATE TABLE " + partitionName(month) + " PARTITION OF audith "
+                        + "FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+                createdCounter.increment();
+            } catch (DataAccessException e) {
+                // Usually rows for that month already sit in audith_default
+                logger.error("Error creating audit partition for {}: {}", month, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Partitions whose month ended before the retention window, which covers the current month and the
+     * {@code retentionMonths} before it. The default partition is never returned.
+     */
+    List<String> expiredPartitions(List<String> partitions, YearMonth current) {
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        return partitions.stream()
+                .filter(name -> {
+                    Matcher matcher = PARTITION_NAME.matcher(name);
+                    return matcher.matches() && YearMonth.parse(matcher.group(1), SUFFIX).isBefore(oldestKept);
+                })
+                .sorted()
+                .toList();
+    }
+
+    void archive(String partition) throws IOException {
+        if (!PARTITION_NAME.matcher(partition).matches()) {
+            throw new IllegalArgumentException("Not an audit partition: " + partition);
+        }
+        if (archiveDir == null) {
+            throw new IllegalStateException("No archive directory configured for audit partitions");
+        }
+        Files.createDirectories(archiveDir);
+        Path target = archiveDir.resolve(partition + ".csv.gz");
+        Path tmp = archiveDir.resolve(partition + ".csv.gz.tmp");
+        // Export first and drop only once the file is complete, all in one transaction
+        transactionTemplate.executeWithoutResult(status -> {
+            try {
+                long rows = export(partition, tmp);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                jdbcTemplate.execute("ALTER TABLE audith DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                logger.info("Archived {} audit records from {} to {}", rows, partition, target);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        archivedCounter.increment();
+    }
+
+    private long export(String partition, Path file) throws IOException {
+        long[] rows = {0};
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT audit_id, " + String.join(", ", TEXT_COLUMNS) + " FROM " + partition + " ORDER BY audit_id");
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, resultSet -> {
+                try {
+                    writer.write(Long.toString(resultSet.getLong("audit_id")));
+                    for (String column : TEXT_COLUMNS) {
+                        writer.write(',');
+                        writer.write(AudithExportService.csv(resultSet.getString(column)));
+                    }
+                    writer.write('\n');
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return rows[0];
+    }
+
+    static String partitionName(YearMonth month) {
+        return "audith_p" + month.format(SUFFIX);
+    }
+}
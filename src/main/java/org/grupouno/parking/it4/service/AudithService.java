@@ -1,9 +1,16 @@
 package org.grupouno.parking.it4.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.grupouno.parking.it4.dto.AudithDTO;
+import org.grupouno.parking.it4.dto.AudithFilterDto;
 import org.grupouno.parking.it4.model.Audith;
 import org.grupouno.parking.it4.repository.AudithRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -11,17 +18,60 @@ import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.grupouno.parking.it4.repository.AudithSpecifications.*;
 
 @Service
 public class AudithService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "auditId");
+
     private final AudithRepository audithRepository;
+    private final AudithBatchWriter audithBatchWriter;
+    private final AuditPolicy auditPolicy;
+    private final ObjectMapper objectMapper;
     @Autowired
-    public AudithService(AudithRepository audithRepository) {
+    public AudithService(AudithRepository audithRepository, AudithBatchWriter audithBatchWriter, AuditPolicy auditPolicy,
+                         ObjectMapper objectMapper) {
         this.audithRepository = audithRepository;
+        this.audithBatchWriter = audithBatchWriter;
+        this.auditPolicy = auditPolicy;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes the audit only if the {@link AuditPolicy} asks for it. The payload suppliers are not called for
+     * records the policy skips. Otherwise they are called here, on the caller's thread, and must return a map or an
+     * immutable snapshot such as a summary record, never a managed entity: with the asynchronous writer only the
+     * Jackson step is deferred to the writer thread.
+     */
+    public void recordAudit(String entity, String description, String operation,
+                            Supplier<?> request, Supplier<?> response, String result) {
+        if (!auditPolicy.shouldRecord(entity, operation, result)) {
+            return;
+        }
+        Object requestPayload = request != null ? request.get() : null;
+        Object responsePayload = response != null ? response.get() : null;
+        if (audithBatchWriter.isEnabled()) {
+            audithBatchWriter.enqueue(newAudit(entity, description, operation, null, null, result),
+                    requestPayload, responsePayload);
+            return;
+        }
+        audithRepository.save(newAudit(entity, description, operation, toMap(requestPayload), toMap(responsePayload), result));
     }
 
     public Audith createAudit(String entity, String description, String operation, Map<String, Object> request, Map<String, Object> response, String result) {
+        Audith audit = newAudit(entity, description, operation, request, response, result);
+        if (audithBatchWriter.isEnabled()) {
+            audithBatchWriter.enqueue(audit);
+            return audit;
+        }
+        return audithRepository.save(audit);
+    }
+
+    private Audith newAudit(String entity, String description, String operation, Map<String, Object> request, Map<String, Object> response, String result) {
         Audith audit = new Audith();
         audit.setEntity(entity);
         audit.setStartDate(LocalDateTime.now());
@@ -30,21 +80,43 @@ public class AudithService {
         audit.setRequest(request);
         audit.setResponse(response);
         audit.setResult(result);
-        return audithRepository.save(audit);
+        return audit;
     }
 
-    public List<Audith> getAllAudits() {
-        return audithRepository.findAll();
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toMap(Object value) {
+        if (value == null || value instanceof Map<?, ?>) {
+            return (Map<String, Object>) value;
+        }
+        return objectMapper.convertValue(value, Map.class);
     }
 
     public Optional<Audith> getAuditById(long id) {
         return audithRepository.findById(id);
     }
 
-    public List<Audith> getAuditsByEntity(String entity) {
-        return audithRepository.findAll().stream()
-                .filter(audit -> audit.getEntity().equalsIgnoreCase(entity))
-                .toList();
+    /**
+     * Newest audits first, one keyset page at a time: pass the last {@code auditId} of the previous page as
+     * {@code afterId}. Unlike offset paging the cost of a page does not grow with how deep the client has read.
+     */
+    public Slice<Audith> searchAudits(AudithFilterDto filter, Long afterId, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Specification<Audith> specification = Specification.where(idBefore(afterId))
+                .and(entityIs(filter.getEntity()))
+                .and(operationIs(filter.getOperation()))
+                .and(resultIs(filter.getResult()))
+                .and(startedFrom(filter.getFrom()))
+                .and(startedBefore(filter.getTo()));
+        // One extra row tells whether there is a next page without a count query
+        List<Audith> audits = audithRepository.findBy(specification,
+                query -> query.sortBy(NEWEST_FIRST).limit(pageSize + 1).all());
+        boolean hasNext = audits.size() > pageSize;
+        return new SliceImpl<>(hasNext ? audits.subList(0, pageSize) : audits,
+                PageRequest.of(0, pageSize, NEWEST_FIRST), hasNext);
+    }
+
+    public Slice<Audith> getAuditsByEntity(String entity, Long afterId, int size) {
+        return searchAudits(new AudithFilterDto(entity, null, null, null, null), afterId, size);
     }
 
     public AudithDTO convertToDTO(Audith audit) {
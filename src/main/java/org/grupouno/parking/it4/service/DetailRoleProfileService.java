@@ -1,5 +1,7 @@
 package org.grupouno.parking.it4.service;
 
+import org.grupouno.parking.it4.dto.DetailRoleProfileSummary;
+import org.grupouno.parking.it4.dto.ProfileSummary;
 import org.grupouno.parking.it4.exceptions.CustomDataAccessException;
 import org.grupouno.parking.it4.exceptions.CustomIllegalArgumentException;
 import org.grupouno.parking.it4.model.DetailRoleProfile;
@@ -7,6 +9,8 @@ import org.grupouno.parking.it4.model.DetailDTO;
 import org.grupouno.parking.it4.model.Profile;
 import org.grupouno.parking.it4.model.Rol;
 import org.grupouno.parking.it4.repository.DetailRoleProfileRepository;
+import org.grupouno.parking.it4.security.PrincipalCache;
+import org.grupouno.parking.it4.security.TokenVersionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
@@ -22,18 +26,32 @@ public class DetailRoleProfileService implements IDetailRoleProfileService {
 
     private final DetailRoleProfileRepository repository;
     private final AudithService audithService;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final ProfileRoleSnapshot profileRoleSnapshot;
 
     @Autowired
-    public DetailRoleProfileService(DetailRoleProfileRepository repository, AudithService audithService) {
+    public DetailRoleProfileService(DetailRoleProfileRepository repository, AudithService audithService,
+                                    PrincipalCache principalCache, TokenVersionRegistry tokenVersionRegistry,
+                                    ProfileRoleSnapshot profileRoleSnapshot) {
         this.repository = repository;
         this.audithService = audithService;
+        this.principalCache = principalCache;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.profileRoleSnapshot = profileRoleSnapshot;
     }
 
     @Override
     @Transactional
     public DetailRoleProfile saveDetailRoleProfile(DetailRoleProfile detailRoleProfile) {
         try {
-            return repository.save(detailRoleProfile);
+            DetailRoleProfile saved = repository.save(detailRoleProfile);
+            if (saved.getId() != null && saved.getId().getIdProfile() != null) {
+                principalCache.invalidateProfile(saved.getId().getIdProfile());
+                tokenVersionRegistry.profileChanged(saved.getId().getIdProfile());
+            }
+            profileRoleSnapshot.refreshAfterCommit();
+            return saved;
         } catch (DataAccessException e) { // Captura una excepción específica
             throw new CustomDataAccessException("Error al guardar el detalle del rol y perfil", e);
         } catch (IllegalArgumentException e) {
@@ -52,8 +70,8 @@ public class DetailRoleProfileService implements IDetailRoleProfileService {
     }
 
     @Override
-    public List<DetailRoleProfile> getAllDetailRoleProfiles() {
-        return repository.findAll();
+    public List<DetailRoleProfileSummary> getAllDetailRoleProfiles() {
+        return repository.findAllSummaries();
 
     }
 
@@ -65,21 +83,20 @@ public class DetailRoleProfileService implements IDetailRoleProfileService {
         id.setIdRole(role.getId());
 
         repository.deleteById(id);
+        principalCache.invalidateProfile(profile.getProfileId());
+        tokenVersionRegistry.profileChanged(profile.getProfileId());
+        profileRoleSnapshot.refreshAfterCommit();
         logAudit("DELETE", profile, role, Optional.empty());
     }
 
     @Override
     public List<Rol> getRolesByProfileId(long profileId) {
-        return repository.findByProfile_ProfileId(profileId).stream()
-                .map(DetailRoleProfile::getRole)
-                .toList();
+        return profileRoleSnapshot.getRoles(profileId);
     }
 
     @Override
-    public List<Profile> getProfilesByRoleId(long roleId) {
-        return repository.findByRole_Id(roleId).stream()
-                .map(DetailRoleProfile::getProfile)
-                .toList();
+    public List<ProfileSummary> getProfilesByRoleId(long roleId) {
+        return repository.findProfileSummariesByRoleId(roleId);
     }
 
     @Override
@@ -88,17 +105,20 @@ public class DetailRoleProfileService implements IDetailRoleProfileService {
         List<DetailRoleProfile> details = repository.findByProfile_ProfileId(profileId);
         if (!details.isEmpty()) {
             details.forEach(repository::delete);
+            principalCache.invalidateProfile(profileId);
+            tokenVersionRegistry.profileChanged(profileId);
+            profileRoleSnapshot.refreshAfterCommit();
         }
     }
 
     private void logAudit(String action, Profile profile, Rol role, Optional<DetailRoleProfile> detail) {
-        audithService.createAudit(
+        audithService.recordAudit(
                 "DetailRoleProfile",
                 "Consulta de detalle de rol-perfil por ID",
                 action,
-                Map.of("profileId", profile != null ? profile.getProfileId() : null,
+                () -> Map.of("profileId", profile != null ? profile.getProfileId() : null,
                         "roleId", role != null ? role.getId() : null),
-                Map.of("foundDetail", detail.orElse(null)),
+                () -> Map.of("foundDetail", detail.orElse(null)),
                 detail.isPresent() ? "SUCCESS" : "NOT_FOUND"
         );
     }
@@ -1,5 +1,7 @@
 package org.grupouno.parking.it4.service;
 
+import org.grupouno.parking.it4.dto.DetailRoleProfileSummary;
+import org.grupouno.parking.it4.dto.ProfileSummary;
 import org.grupouno.parking.it4.model.DetailRoleProfile;
 import org.grupouno.parking.it4.model.Profile;
 import org.grupouno.parking.it4.model.Rol;
@@ -12,11 +14,11 @@ public interface IDetailRoleProfileService {
 
     Optional<DetailRoleProfile> getDetailRoleProfileById(Profile profile, Rol role);
 
-    List<DetailRoleProfile> getAllDetailRoleProfiles();
+    List<DetailRoleProfileSummary> getAllDetailRoleProfiles();
 
     void deleteDetailRoleProfile(Profile profile, Rol role);
 
     List<Rol> getRolesByProfileId(long profileId); // Agregado
-    List<Profile> getProfilesByRoleId(long roleId); // Agregado
+    List<ProfileSummary> getProfilesByRoleId(long roleId); // Agregado
     void deleteRolesFromProfile(long profileId); // Agregado
 }
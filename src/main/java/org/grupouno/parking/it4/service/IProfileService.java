@@ -1,15 +1,21 @@
 package org.grupouno.parking.it4.service;
 
 import org.grupouno.parking.it4.dto.ProfileDto;
+import org.grupouno.parking.it4.dto.ProfileSummary;
 import org.grupouno.parking.it4.model.Profile;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.Optional;
 
 public interface IProfileService {
 
 
-    Page<Profile> getAllProfiles(int page, int size, String description);
+    Page<ProfileSummary> getAllProfiles(int page, int size, String description);
+
+    Slice<ProfileSummary> getProfilesAfter(String cursor, int size);
+
+    long estimateProfileCount();
 
     Optional<Profile> findById(Long id);
 
@@ -1,20 +1,30 @@
 package org.grupouno.parking.it4.service;
 import org.grupouno.parking.it4.dto.UserDto;
+import org.grupouno.parking.it4.dto.UserSummary;
 import org.grupouno.parking.it4.model.User;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.Optional;
 
 public interface IUserService {
     Optional<User> findByEmail(String email);
 
+    Optional<UserSummary> findSummaryByEmail(String email);
+
     Optional<User> findById(Long id);
 
     User save(User user);
 
     void delete(Long id);
 
-    Page<User> getAllUsers(int page, int size, String email);
+    Page<UserSummary> getAllUsers(int page, int size, String email);
+
+    Page<UserSummary> searchUsers(String query, int page, int size);
+
+    Slice<UserSummary> getUsersAfter(String cursor, int size);
+
+    long estimateUserCount();
 
     void updateUser(UserDto userDto, Long idUser);
 
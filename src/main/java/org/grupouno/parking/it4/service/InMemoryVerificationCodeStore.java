@@ -0,0 +1,127 @@
+package org.grupouno.parking.it4.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Node-local store. Codes are lost on restart and only valid on the instance that issued them, so it only fits
+ * a single replica or tests.
+ * <p>
+ * Every saved code is also queued in a {@link DelayQueue} ordered by its deadline on the monotonic clock, and the
+ * {@code verification-code-expiry} thread removes each one as soon as it is due, instead of scanning the whole map.
+ * A code replaced before its deadline stays queued but is skipped, since only the exact entry that was queued is
+ * removed.
+ */
+@Component
+@ConditionalOnProperty(name = "verification.code.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+
+    private record Entry(byte[] hash, Instant expiresAt) {
+    }
+
+    private record Expiry(String email, Entry entry, long deadline) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            // Deadlines come from the same clock, comparing them avoids two nanoTime reads per sift step
+            if (other instanceof Expiry expiry) {
+                return Long.compare(deadline - expiry.deadline, 0);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private final Map<String, Entry> codes = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+    // Expired since the last removeExpired call
+    private final AtomicInteger expired = new AtomicInteger();
+    private volatile boolean running;
+    private Thread reaper;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        reaper = new Thread(this::run, "verification-code-expiry");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (reaper != null) {
+            reaper.interrupt();
+        }
+    }
+
+    @Override
+    public void save(String email, String code, Instant expiresAt) {
+        Entry entry = new Entry(VerificationCodeStore.hash(email, code), expiresAt);
+        long ttlNanos = Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+        codes.put(email, entry);
+        expiries.put(new Expiry(email, entry, System.nanoTime() + ttlNanos));
+    }
+
+    @Override
+    public Result check(String email, String code, Instant now) {
+        Entry entry = codes.get(email);
+        if (entry == null) {
+            return Result.NOT_FOUND;
+        }
+        return VerificationCodeStore.compare(entry.hash(), entry.expiresAt(), email, code, now);
+    }
+
+    /**
+     * Removes whatever is already due and returns it together with what the expiry thread removed since the
+     * previous call.
+     */
+    @Override
+    public int removeExpired(Instant now) {
+        Expiry expiry;
+        while ((expiry = expiries.poll()) != null) {
+            expire(expiry);
+        }
+        return expired.getAndSet(0);
+    }
+
+    @Override
+    public long countLive(Instant now) {
+        return codes.size();
+    }
+
+    int size() {
+        return codes.size();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                expire(expiries.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void expire(Expiry expiry) {
+        if (codes.remove(expiry.email(), expiry.entry())) {
+            expired.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.grupouno.parking.it4.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the codes in the unlogged {@code verification_code} table, so a code issued by one replica can be checked
+ * by any other. With {@code verification.code.near-cache-ttl-ms} above zero, the codes this node saved or read
+ * are also kept locally for that long. A cached code that matches is answered locally, anything else goes to the
+ * table, so a code reissued on another node is always seen, and an older code can only keep working on this node
+ * for up to the TTL.
+ */
+@Component
+@ConditionalOnProperty(name = "verification.code.store", havingValue = "jdbc")
+public class JdbcVerificationCodeStore implements VerificationCodeStore {
+
+    private static final String UPSERT = "INSERT INTO verification_code (email, code_hash, expires_at) VALUES (?, ?, ?) "
+            + "ON CONFLICT (email) DO UPDATE SET code_hash = EXCLUDED.code_hash, expires_at = EXCLUDED.expires_at";
+    private static final String SELECT = "SELECT code_hash, expires_at FROM verification_code WHERE email = ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM verification_code WHERE expires_at < ?";
+    private static final String COUNT_LIVE = "SELECT count(*) FROM verification_code WHERE expires_at >= ?";
+
+    private record Entry(byte[] hash, Instant expiresAt) {
+    }
+
+    private record Cached(Entry entry, long cachedUntil) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long nearCacheTtlNanos;
+    private final int nearCacheMaxSize;
+    private final Map<String, Cached> nearCache = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public JdbcVerificationCodeStore(JdbcTemplate jdbcTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${verification.code.near-cache-ttl-ms:0}") long nearCacheTtlMs,
+                                     @Value("${verification.code.near-cache-max-size:10000}") int nearCacheMaxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nearCacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, nearCacheTtlMs));
+        this.nearCacheMaxSize = nearCacheMaxSize;
+        this.hitCounter = Counter.builder("verification.code.near-cache.hits").register(meterRegistry);
+        this.missCounter = Counter.builder("verification.code.near-cache.misses").register(meterRegistry);
+    }
+
+    @Override
+    public void save(String email, String code, Instant expiresAt) {
+        Entry entry = new Entry(VerificationCodeStore.hash(email, code), expiresAt);
+        jdbcTemplate.update(UPSERT, email, entry.hash(), Timestamp.from(expiresAt));
+        cache(email, entry);
+    }
+
+    @Override
+    public Result check(String email, String code, Instant now) {
+        Cached cached = nearCache.get(email);
+        if (cached != null && System.nanoTime() - cached.cachedUntil() < 0) {
+            Result result = VerificationCodeStore.compare(cached.entry().hash(), cached.entry().expiresAt(), email, code, now);
+            if (result != Result.INCORRECT) {
+                hitCounter.increment();
+                return result;
+            }
+        }
+        if (nearCacheTtlNanos > 0) {
+            missCounter.increment();
+        }
+        List<Entry> rows = jdbcTemplate.query(SELECT,
+                (rs, rowNum) -> new Entry(rs.getBytes("code_hash"), rs.getTimestamp("expires_at").toInstant()), email);
+        if (rows.isEmpty()) {
+            nearCache.remove(email);
+            return Result.NOT_FOUND;
+        }
+        Entry entry = rows.get(0);
+        cache(email, entry);
+        return VerificationCodeStore.compare(entry.hash(), entry.expiresAt(), email, code, now);
+    }
+
+    @Override
+    public int removeExpired(Instant now) {
+        long nanos = System.nanoTime();
+        nearCache.values().removeIf(cached -> cached.entry().expiresAt().isBefore(now) || nanos - cached.cachedUntil() >= 0);
+        return jdbcTemplate.update(DELETE_EXPIRED, Timestamp.from(now));
+    }
+
+    @Override
+    public long countLive(Instant now) {
+        Long count = jdbcTemplate.queryForObject(COUNT_LIVE, Long.class, Timestamp.from(now));
+        return count != null ? count : 0;
+    }
+
+    private void cache(String email, Entry entry) {
+        if (nearCacheTtlNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (nearCache.size() >= nearCacheMaxSize) {
+            nearCache.values().removeIf(cached -> now - cached.cachedUntil() >= 0);
+            if (nearCache.size() >= nearCacheMaxSize) {
+                return;
+            }
+        }
+        nearCache.put(email, new Cached(entry, now + nearCacheTtlNanos));
+    }
+}
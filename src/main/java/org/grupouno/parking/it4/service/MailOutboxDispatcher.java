@@ -0,0 +1,299 @@
+package org.grupouno.parking.it4.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.grupouno.parking.it4.model.MailOutbox;
+import org.grupouno.parking.it4.repository.MailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers the mails queued by {@link MailOutboxService}. Due rows are claimed with {@code FOR UPDATE SKIP LOCKED}
+ * and leased for {@code mail.outbox.lease-ms}, so several instances can drain the table without sending a mail
+ * twice and without holding a lock during the SMTP round trip. Mails are sent on {@code mail.outbox.workers}
+ * platform threads: the SMTP transport blocks inside synchronized methods, which would pin the carrier of a
+ * virtual thread for the whole exchange. A failed mail is retried with exponential backoff and marked dead,
+ * without its payload, after {@code mail.outbox.max-attempts}, or once it is older than {@code mail.outbox.max-age-ms}
+ * so the encrypted secrets do not linger in the table. Delivery is at least once: a crash between the send and the
+ * delete sends the mail again when the lease expires.
+ */
+@Component
+public class MailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutboxDispatcher.class);
+    private static final TypeReference<Map<String, String>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final MailService mailService;
+    private final ObjectMapper objectMapper;
+    private final MailPayloadCipher mailPayloadCipher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final int maxAttempts;
+    private final long backoffInitialMs;
+    private final long backoffMaxMs;
+    private final long leaseMs;
+    private final long maxAgeMs;
+    private final int workers;
+    private final Semaphore signal = new Semaphore(0);
+
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter deadCounter;
+    private final Timer deliveryTimer;
+
+    private volatile boolean running;
+    private ExecutorService executor;
+    private Thread poller;
+
+    public MailOutboxDispatcher(MailOutboxRepository mailOutboxRepository,
+                                MailService mailService,
+                                ObjectMapper objectMapper,
+                                MailPayloadCipher mailPayloadCipher,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${mail.outbox.enabled:true}") boolean enabled,
+                                @Value("${mail.outbox.workers:4}") int workers,
+                                @Value("${mail.outbox.batch-size:20}") int batchSize,
+                                @Value("${mail.outbox.poll-interval-ms:1000}") long pollIntervalMs,
+                                @Value("${mail.outbox.max-attempts:8}") int maxAttempts,
+                                @Value("${mail.outbox.backoff-initial-ms:5000}") long backoffInitialMs,
+                                @Value("${mail.outbox.backoff-max-ms:3600000}") long backoffMaxMs,
+                                @Value("${mail.outbox.lease-ms:300000}") long leaseMs,
+                                @Value("${mail.outbox.max-age-ms:1800000}") long maxAgeMs) {
+        if (workers <= 0 || batchSize <= 0 || pollIntervalMs <= 0 || maxAttempts <= 0 || maxAgeMs <= 0) {
+            throw new IllegalArgumentException("Mail outbox workers, batch size, poll interval, attempts and max age must be positive");
+        }
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.mailService = mailService;
+        this.objectMapper = objectMapper;
+        this.mailPayloadCipher = mailPayloadCipher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.backoffInitialMs = backoffInitialMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.leaseMs = leaseMs;
+        this.maxAgeMs = maxAgeMs;
+
+        this.sentCounter = Counter.builder("mail.outbox.sent")
+                .description("Mails delivered")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("mail.outbox.retried")
+                .description("Mail deliveries that failed and were rescheduled")
+                .register(meterRegistry);
+        this.deadCounter = Counter.builder("mail.outbox.dead")
+                .description("Mails given up after the last attempt or the maximum age")
+                .register(meterRegistry);
+        this.deliveryTimer = Timer.builder("mail.outbox.delivery")
+                .description("Time spent delivering one mail")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "mail-outbox-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        poller = new Thread(this::run, "mail-outbox");
+        poller.setDaemon(true);
+        poller.start();
+        logger.info("Mail outbox dispatcher started, {} workers, batch size {}", workers, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        signal.release();
+        if (poller != null) {
+            try {
+                poller.join(pollIntervalMs * 4);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Makes the dispatcher look for due mails now instead of at the next poll.
+     */
+    public void wakeUp() {
+        signal.release();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                signal.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                signal.drainPermits();
+                // A full batch means there may be more due mails waiting
+                while (running && dispatchOnce() == batchSize) {
+                    logger.debug("Mail outbox batch full, claiming the next one");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException e) {
+                logger.error("Error reading the mail outbox: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Claims one batch of due mails and delivers it.
+     *
+     * @return the number of mails claimed
+     */
+    int dispatchOnce() throws InterruptedException {
+        List<MailOutbox> claimed = claim();
+        List<Future<?>> deliveries = new ArrayList<>(claimed.size());
+        for (MailOutbox mail : claimed) {
+            deliveries.add(executor.submit(() -> deliver(mail)));
+        }
+        for (Future<?> delivery : deliveries) {
+            try {
+                delivery.get();
+            } catch (ExecutionException e) {
+                logger.error("Unexpected error delivering mail: {}", e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return claimed.size();
+    }
+
+    private List<MailOutbox> claim() {
+        List<MailOutbox> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<MailOutbox> due = mailOutboxRepository.lockDue(now, batchSize);
+            if (!due.isEmpty()) {
+                mailOutboxRepository.lease(due.stream().map(MailOutbox::getMailId).toList(),
+                        now.plus(leaseMs, ChronoUnit.MILLIS));
+            }
+            return due;
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    void deliver(MailOutbox mail) {
+        long start = System.nanoTime();
+        if (expired(mail, LocalDateTime.now())) {
+            giveUp(mail, mail.getAttempts(), "Expired before delivery");
+            return;
+        }
+        try {
+            send(mail);
+            mailOutboxRepository.deleteById(mail.getMailId());
+            sentCounter.increment();
+        } catch (RuntimeException e) {
+            fail(mail, e);
+        } finally {
+            deliveryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void send(MailOutbox mail) {
+        Map<String, String> payload = payloadOf(mail);
+        boolean sent = switch (mail.getMailType()) {
+            case PASSWORD_AND_USER -> mailService.sendPasswordAndUser(mail.getRecipient(), payload.get("password"));
+            case VERIFICATION_CODE -> mailService.sendVerificationCode(mail.getRecipient(), payload.get("code"));
+        };
+        // MailService logs and swallows MessagingException, the row must still be retried
+        if (!sent) {
+            throw new IllegalStateException("Mail could not be built");
+        }
+    }
+
+    private Map<String, String> payloadOf(MailOutbox mail) {
+        try {
+            return mail.getPayload() != null
+                    ? objectMapper.readValue(mailPayloadCipher.decrypt(mail.getPayload()), PAYLOAD_TYPE) : Map.of();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Mail payload is not valid JSON", e);
+        }
+    }
+
+    private void fail(MailOutbox mail, RuntimeException e) {
+        int attempts = mail.getAttempts() + 1;
+        String error = truncate(e.getClass().getSimpleName() + ": " + e.getMessage());
+        LocalDateTime next = LocalDateTime.now().plus(backoff(attempts), ChronoUnit.MILLIS);
+        if (attempts >= maxAttempts || expired(mail, next)) {
+            giveUp(mail, attempts, error);
+        } else {
+            mailOutboxRepository.reschedule(mail.getMailId(), attempts, next, error);
+            retriedCounter.increment();
+            logger.warn("Error sending {} mail {}, attempt {} of {}, retrying at {}: {}",
+                    mail.getMailType(), mail.getMailId(), attempts, maxAttempts, next, error);
+        }
+    }
+
+    /**
+     * Marks the mail dead, which also clears its payload.
+     */
+    private void giveUp(MailOutbox mail, int attempts, String error) {
+        mailOutboxRepository.markDead(mail.getMailId(), attempts, error);
+        deadCounter.increment();
+        logger.error("Giving up {} mail {} to {} after {} attempts: {}",
+                mail.getMailType(), mail.getMailId(), mail.getRecipient(), attempts, error);
+    }
+
+    private boolean expired(MailOutbox mail, LocalDateTime at) {
+        return mail.getCreatedAt() != null && at.isAfter(mail.getCreatedAt().plus(maxAgeMs, ChronoUnit.MILLIS));
+    }
+
+    /**
+     * Doubles with every attempt up to {@code mail.outbox.backoff-max-ms}, with up to 20% jitter so mails
+     * that failed together do not retry together.
+     */
+    long backoff(int attempts) {
+        long delay = backoffInitialMs << Math.min(attempts - 1, 30);
+        if (delay <= 0 || delay > backoffMaxMs) {
+            delay = backoffMaxMs;
+        }
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,106 @@
+package org.grupouno.parking.it4.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.grupouno.parking.it4.model.MailOutbox;
+import org.grupouno.parking.it4.repository.MailOutboxRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queues mails in the {@code mail_outbox} table instead of sending them. Called inside the transaction of the
+ * change that triggers the mail, the row commits or rolls back with it; {@link MailOutboxDispatcher} sends it.
+ * The payload carries the generated password or code, so it is stored encrypted by {@link MailPayloadCipher}.
+ */
+@Service
+public class MailOutboxService {
+
+    private static final String INSERT_MAIL = "INSERT INTO mail_outbox "
+            + "(mail_type, recipient, payload, status, attempts, next_attempt_at, created_at) VALUES (?, ?, ?, ?, 0, ?, ?)";
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final MailOutboxDispatcher mailOutboxDispatcher;
+    private final ObjectMapper objectMapper;
+    private final MailPayloadCipher mailPayloadCipher;
+    private final JdbcTemplate jdbcTemplate;
+
+    public MailOutboxService(MailOutboxRepository mailOutboxRepository,
+                             MailOutboxDispatcher mailOutboxDispatcher,
+                             ObjectMapper objectMapper,
+                             MailPayloadCipher mailPayloadCipher,
+                             JdbcTemplate jdbcTemplate) {
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.mailOutboxDispatcher = mailOutboxDispatcher;
+        this.objectMapper = objectMapper;
+        this.mailPayloadCipher = mailPayloadCipher;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public MailOutbox enqueuePasswordAndUser(String email, String password) {
+        return enqueue(MailOutbox.Type.PASSWORD_AND_USER, email, Map.of("password", password));
+    }
+
+    /**
+     * Queues one credentials mail per entry of {@code passwordsByEmail} with a single JDBC batch, for bulk imports.
+     */
+    public void enqueuePasswordAndUsers(Map<String, String> passwordsByEmail) {
+        if (passwordsByEmail.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(passwordsByEmail.size());
+        passwordsByEmail.forEach((email, password) -> rows.add(new Object[]{
+                MailOutbox.Type.PASSWORD_AND_USER.name(), email, toJson(Map.of("password", password)),
+                MailOutbox.Status.PENDING.name(), now, now}));
+        jdbcTemplate.batchUpdate(INSERT_MAIL, rows);
+        wakeDispatcherAfterCommit();
+    }
+
+    public MailOutbox enqueueVerificationCode(String email, String code) {
+        return enqueue(MailOutbox.Type.VERIFICATION_CODE, email, Map.of("code", code));
+    }
+
+    private MailOutbox enqueue(MailOutbox.Type type, String recipient, Map<String, String> payload) {
+        LocalDateTime now = LocalDateTime.now();
+        MailOutbox mail = new MailOutbox();
+        mail.setMailType(type);
+        mail.setRecipient(recipient);
+        mail.setPayload(toJson(payload));
+        mail.setStatus(MailOutbox.Status.PENDING);
+        mail.setAttempts(0);
+        mail.setNextAttemptAt(now);
+        mail.setCreatedAt(now);
+        MailOutbox saved = mailOutboxRepository.save(mail);
+        wakeDispatcherAfterCommit();
+        return saved;
+    }
+
+    private String toJson(Map<String, String> payload) {
+        try {
+            return mailPayloadCipher.encrypt(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize mail payload", e);
+        }
+    }
+
+    private void wakeDispatcherAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mailOutboxDispatcher.wakeUp();
+                }
+            });
+        } else {
+            mailOutboxDispatcher.wakeUp();
+        }
+    }
+}
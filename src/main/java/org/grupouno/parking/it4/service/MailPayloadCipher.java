@@ -0,0 +1,96 @@
+package org.grupouno.parking.it4.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Encrypts the payload of {@code mail_outbox} rows, which holds generated passwords and verification codes, with
+ * AES-GCM so the secrets are not readable at rest. Every instance sharing the table needs the same key: either
+ * {@code mail.outbox.payload-key}, 16, 24 or 32 bytes in Base64, or when it is empty a key derived from
+ * {@code security.jwt.secret-key}, which replicas already share. Rotating the secret the key comes from makes the
+ * mails still queued unreadable.
+ */
+@Component
+public class MailPayloadCipher {
+
+    private static final String PREFIX = "v1:";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String DERIVATION = "HmacSHA256";
+    private static final byte[] DERIVATION_LABEL = "mail-outbox-payload".getBytes(StandardCharsets.UTF_8);
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKey key;
+
+    public MailPayloadCipher(@Value("${mail.outbox.payload-key:}") String key,
+                             @Value("${security.jwt.secret-key:}") String sharedSecret) {
+        byte[] bytes;
+        if (key != null && !key.isBlank()) {
+            bytes = Base64.getDecoder().decode(key.trim());
+            if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32) {
+                throw new IllegalArgumentException("mail.outbox.payload-key must be 16, 24 or 32 bytes in Base64");
+            }
+        } else if (sharedSecret != null && !sharedSecret.isBlank()) {
+            bytes = derive(sharedSecret);
+        } else {
+            throw new IllegalStateException("Set mail.outbox.payload-key or security.jwt.secret-key to encrypt queued mails");
+        }
+        this.key = new SecretKeySpec(bytes, "AES");
+    }
+
+    private static byte[] derive(String sharedSecret) {
+        try {
+            Mac mac = Mac.getInstance(DERIVATION);
+            mac.init(new SecretKeySpec(sharedSecret.getBytes(StandardCharsets.UTF_8), DERIVATION));
+            return mac.doFinal(DERIVATION_LABEL);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not derive the mail payload key", e);
+        }
+    }
+
+    public String encrypt(String plaintext) {
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            byte[] encrypted = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+            return PREFIX + Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(IV_LENGTH + encrypted.length).put(iv).put(encrypted).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt mail payload", e);
+        }
+    }
+
+    /**
+     * Payloads without the version prefix were queued before encryption and are returned as they are.
+     */
+    public String decrypt(String stored) {
+        if (!stored.startsWith(PREFIX)) {
+            return stored;
+        }
+        byte[] bytes = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+        if (bytes.length <= IV_LENGTH) {
+            throw new IllegalStateException("Mail payload is truncated");
+        }
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+            return new String(cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not decrypt mail payload, is mail.outbox.payload-key the same on every instance?", e);
+        }
+    }
+}
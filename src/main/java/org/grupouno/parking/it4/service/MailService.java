@@ -9,207 +9,65 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
 @Service
 
 public class MailService {
     private static final Logger logger = LoggerFactory.getLogger(MailService.class);
+    private static final String VERIFICATION_CODE = "verification-code";
+    private static final String PASSWORD_AND_USER = "password-and-user";
     private JavaMailSender mailSender;
+    private final MailTemplateRegistry mailTemplateRegistry;
 
-    public MailService(JavaMailSender mailSender) {
+    public MailService(JavaMailSender mailSender, MailTemplateRegistry mailTemplateRegistry) {
         this.mailSender = mailSender;
+        this.mailTemplateRegistry = mailTemplateRegistry;
     }
 
-    public void sendVerificationCode(String email, String code) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setTo(email);
-            helper.setSubject("Recuperación de Contraseña - ParkingIT4");
-
-            String htmlContent = """
-        <!DOCTYPE html>
-        <html lang="es">
-        <head>
-            <meta charset="UTF-8">
-            <meta name="viewport" content="width=device-width, initial-scale=1.0">
-            <style>
-                body {
-                    font-family: Arial, sans-serif;
-                    background-color: #F5F5F5;
-                    color: #31363F;
-                    margin: 0;
-                    padding: 0;
-                }
-                .email-container {
-                    max-width: 600px;
-                    margin: 0 auto;
-                    background-color: #FFFFFF;
-                    border: 1px solid #DADADA;
-                    border-radius: 8px;
-                    overflow: hidden;
-                }
-                .header {
-                    background-color: #76ABAE;
-                    color: #FFFFFF;
-                    padding: 20px;
-                    text-align: center;
-                    font-size: 24px;
-                }
-                .content {
-                    padding: 20px;
-                    line-height: 1.6;
-                }
-                .footer {
-                    background-color: #F5F5F5;
-                    color: #999999;
-                    text-align: center;
-                    padding: 10px;
-                    font-size: 12px;
-                }
-                .button {
-                    display: inline-block;
-                    background-color: #76ABAE;
-                    color: #FFFFFF;
-                    padding: 10px 20px;
-                    text-decoration: none;
-                    border-radius: 5px;
-                    margin-top: 20px;
-                }
-                .info {
-                    background-color: #DADADA;
-                    padding: 15px;
-                    border-radius: 5px;
-                    margin-top: 10px;
-                }
-            </style>
-        </head>
-        <body>
-            <div class="email-container">
-                <div class="header">
-                    Recuperación de Contraseña
-                </div>
-                <div class="content">
-                    <p>Hola,</p>
-                    <p>Hemos recibido una solicitud para restablecer la contraseña de tu cuenta en ParkingIT4 Team. Para continuar, utiliza el siguiente código de verificación:</p>
-                    <div class="info">
-                        <p><strong>Código de Verificación:</strong> %s</p>
-                    </div>
-                    <p>Ingresa este código en la página de recuperación de contraseña para establecer una nueva contraseña.</p>
-                    <p>Si no solicitaste este cambio, por favor ignora este correo.</p>
-                </div>
-                <div class="footer">
-                    © 2024 ParkingIT4 Team. Todos los derechos reservados.
-                </div>
-            </div>
-        </body>
-        </html>
-        """;
-
-            String formattedHtmlContent = String.format(htmlContent, code);
-            helper.setText(formattedHtmlContent, true);
-            mailSender.send(message);  // Send email
+    /**
+     * @return {@code false} if the message could not be built, see {@link #send}
+     */
+    public boolean sendVerificationCode(String email, String code) {
+        boolean sent = send(VERIFICATION_CODE, email, Map.of("code", code));
+        if (sent) {
             logger.info("HTML email sent to {}, with verification code {}", email, code);
+        }
+        return sent;
+    }
 
-        } catch (MessagingException e) {
-            logger.error("Error while sending verification code email", e);
+    /**
+     * @return {@code false} if the message could not be built, see {@link #send}
+     */
+    public boolean sendPasswordAndUser(String email, String password) {
+        boolean sent = send(PASSWORD_AND_USER, email, Map.of("email", email, "password", password));
+        if (sent) {
+            logger.info("HTML email sent to {}, with their credentials", email);
         }
+        return sent;
     }
 
-    public void sendPasswordAndUser(String email, String password) {
+    /**
+     * Sends the classpath template {@code mail-templates/<template>.html} rendered with the given values.
+     *
+     * @return {@code false} if the message could not be built
+     */
+    public boolean send(String template, String to, Map<String, String> values) {
+        MailTemplate mailTemplate = mailTemplateRegistry.get(template);
         try {
             MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-
-            helper.setTo(email);
-            helper.setSubject("Tus Credenciales de Cuenta - ParkingIT4");
+            MimeMessageHelper helper = new MimeMessageHelper(message, false, StandardCharsets.UTF_8.name());
 
-            String htmlContent = """
-            <!DOCTYPE html>
-            <html lang="es">
-            <head>
-                <meta charset="UTF-8">
-                <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                <style>
-                    body {
-                        font-family: Arial, sans-serif;
-                        background-color: #F5F5F5;
-                        color: #31363F;
-                        margin: 0;
-                        padding: 0;
-                    }
-                    .email-container {
-                        max-width: 600px;
-                        margin: 0 auto;
-                        background-color: #FFFFFF;
-                        border: 1px solid #DADADA;
-                        border-radius: 8px;
-                        overflow: hidden;
-                    }
-                    .header {
-                        background-color: #76ABAE;
-                        color: #FFFFFF;
-                        padding: 20px;
-                        text-align: center;
-                        font-size: 24px;
-                    }
-                    .content {
-                        padding: 20px;
-                        line-height: 1.6;
-                    }
-                    .footer {
-                        background-color: #F5F5F5;
-                        color: #999999;
-                        text-align: center;
-                        padding: 10px;
-                        font-size: 12px;
-                    }
-                    .button {
-                        display: inline-block;
-                        background-color: #76ABAE;
-                        color: #FFFFFF;
-                        padding: 10px 20px;
-                        text-decoration: none;
-                        border-radius: 5px;
-                        margin-top: 20px;
-                    }
-                    .info {
-                        background-color: #DADADA;
-                        padding: 15px;
-                        border-radius: 5px;
-                        margin-top: 10px;
-                    }
-                </style>
-            </head>
-            <body>
-                <div class="email-container">
-                    <div class="header">
-                        ParkingIT4 Team
-                    </div>
-                    <div class="content">
-                        <p>Hola,</p>
-                        <p>Te damos la bienvenida a ParkingIT4 Team. A continuación, encontrarás la información de inicio de sesión:</p>
-                        <div class="info">
-                            <p><strong>Correo:</strong> %s</p>
-                            <p><strong>Contraseña:</strong> %s</p>
-                        </div>
-                        <p>Puedes iniciar sesión haciendo clic en el siguiente botón:</p>
-                        <a href="http://portal-parqueo.s3-website.us-east-2.amazonaws.com/#/auth/login" class="button">Iniciar Sesión</a>
-                    </div>
-                    <div class="footer">
-                        © 2024 ParkingIT4 Team. Todos los derechos reservados.
-                    </div>
-                </div>
-            </body>
-            </html>
-        """;
-            String formattedHtmlContent = String.format(htmlContent, email, password);
-            helper.setText(formattedHtmlContent, true);
+            helper.setTo(to);
+            helper.setSubject(mailTemplate.getSubject());
+            helper.setText(mailTemplate.render(values), true);
             mailSender.send(message);
-            logger.info("HTML email sent to {}, with their credentials", email);
+            return true;
         } catch (MessagingException e) {
-            logger.error("Error while sending email", e);
+            logger.error("Error while sending {} email", template, e);
+            return false;
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package org.grupouno.parking.it4.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A mail template parsed once into its static text and its {@code {{name}}} placeholders. Rendering copies
+ * the segments and the HTML escaped values into a single buffer sized for the template.
+ */
+public final class MailTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    // Room for the values, so a typical render never grows the buffer
+    private static final int VALUE_ALLOWANCE = 64;
+
+    private final String name;
+    private final String subject;
+    private final String[] segments;
+    private final String[] placeholders;
+    private final int capacity;
+
+    private MailTemplate(String name, String subject, String[] segments, String[] placeholders, int staticLength) {
+        this.name = name;
+        this.subject = subject;
+        this.segments = segments;
+        this.placeholders = placeholders;
+        this.capacity = staticLength + placeholders.length * VALUE_ALLOWANCE;
+    }
+
+    /**
+     * Parses a template whose first line is {@code subject: ...}, followed by a blank line and the HTML body.
+     */
+    public static MailTemplate parse(String name, String source) {
+        String text = source.replace("\r\n", "\n");
+        if (!text.startsWith("subject:")) {
+            throw new IllegalArgumentException("Mail template " + name + " must start with a subject line");
+        }
+        int endOfSubject = text.indexOf('\n');
+        if (endOfSubject < 0) {
+            throw new IllegalArgumentException("Mail template " + name + " has no body");
+        }
+        String subject = text.substring("subject:".length(), endOfSubject).trim();
+        int bodyStart = endOfSubject + 1;
+        if (text.startsWith("\n", bodyStart)) {
+            bodyStart++;
+        }
+        String body = text.substring(bodyStart);
+
+        List<String> segments = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int staticLength = 0;
+        int position = 0;
+        while (true) {
+            int open = body.indexOf(OPEN, position);
+            if (open < 0) {
+                break;
+            }
+            int close = body.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in mail template " + name);
+            }
+            String placeholder = body.substring(open + OPEN.length(), close).trim();
+            if (placeholder.isEmpty()) {
+                throw new IllegalArgumentException("Empty placeholder in mail template " + name);
+            }
+            segments.add(body.substring(position, open));
+            staticLength += open - position;
+            placeholders.add(placeholder);
+            position = close + CLOSE.length();
+        }
+        segments.add(body.substring(position));
+        staticLength += body.length() - position;
+        return new MailTemplate(name, subject, segments.toArray(String[]::new), placeholders.toArray(String[]::new), staticLength);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Renders the body. Every placeholder must have a value.
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder html = new StringBuilder(capacity);
+        for (int i = 0; i < placeholders.length; i++) {
+            html.append(segments[i]);
+            String value = values.get(placeholders[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("No value for " + placeholders[i] + " in mail template " + name);
+            }
+            appendEscaped(html, value);
+        }
+        html.append(segments[placeholders.length]);
+        return html.toString();
+    }
+
+    private static void appendEscaped(StringBuilder html, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> html.append("&lt;");
+                case '>' -> html.append("&gt;");
+                case '&' -> html.append("&amp;");
+                case '"' -> html.append("&quot;");
+                case '\'' -> html.append("&#39;");
+                default -> html.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.grupouno.parking.it4.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Loads every {@code classpath*:mail-templates/*.html} at startup, keyed by file name without the extension.
+ * A new kind of mail only needs a new template file and a call to {@link MailService#send}.
+ */
+@Component
+public class MailTemplateRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailTemplateRegistry.class);
+    private static final String LOCATION = "classpath*:mail-templates/*.html";
+    private static final String EXTENSION = ".html";
+
+    private final Map<String, MailTemplate> templates;
+
+    public MailTemplateRegistry() {
+        Map<String, MailTemplate> loaded = new HashMap<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+                String filename = resource.getFilename();
+                if (filename == null || !filename.endsWith(EXTENSION)) {
+                    continue;
+                }
+                String name = filename.substring(0, filename.length() - EXTENSION.length());
+                try (InputStream in = resource.getInputStream()) {
+                    loaded.put(name, MailTemplate.parse(name, new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error loading mail templates", e);
+        }
+        this.templates = Map.copyOf(loaded);
+        logger.info("Loaded mail templates {}", templates.keySet());
+    }
+
+    public MailTemplate get(String name) {
+        MailTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown mail template " + name);
+        }
+        return template;
+    }
+}
@@ -0,0 +1,236 @@
+package org.grupouno.parking.it4.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JavaMailSenderImpl} that keeps up to {@code maxConnections} connected and authenticated SMTP transports
+ * open between calls, instead of paying the TCP, STARTTLS and AUTH handshake for every mail. A connection is
+ * closed after {@code maxMessagesPerConnection} messages, after an error, or once it has been idle for
+ * {@code idleTimeoutMs}. Callers wait up to {@code borrowTimeoutMs} for a free connection.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledJavaMailSender.class);
+    // A connection idle for longer than this is checked with a NOOP before it is used again
+    private static final long VALIDATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static final class Connection {
+        private final Transport transport;
+        private int sent;
+        private long lastUsed;
+
+        private Connection(Transport transport, long now) {
+            this.transport = transport;
+            this.lastUsed = now;
+        }
+    }
+
+    private final int maxConnections;
+    private final int maxMessagesPerConnection;
+    private final long idleTimeoutNanos;
+    private final long borrowTimeoutMs;
+    private final Semaphore permits;
+    private final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed;
+
+    private final Counter openedCounter;
+    private final Counter closedCounter;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer sendTimer;
+
+    public PooledJavaMailSender(int maxConnections, int maxMessagesPerConnection, long idleTimeoutMs,
+                                long borrowTimeoutMs, MeterRegistry meterRegistry) {
+        if (maxConnections <= 0 || maxMessagesPerConnection <= 0 || idleTimeoutMs <= 0) {
+            throw new IllegalArgumentException("SMTP pool size, messages per connection and idle timeout must be positive");
+        }
+        this.maxConnections = maxConnections;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.permits = new Semaphore(maxConnections, true);
+
+        this.openedCounter = Counter.builder("mail.smtp.connections.opened")
+                .description("SMTP connections opened")
+                .register(meterRegistry);
+        this.closedCounter = Counter.builder("mail.smtp.connections.closed")
+                .description("SMTP connections closed")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("mail.smtp.messages.sent")
+                .description("Messages accepted by the SMTP server")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("mail.smtp.messages.failed")
+                .description("Messages the SMTP server did not accept")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("mail.smtp.send")
+                .description("Time to send one message over an open connection")
+                .register(meterRegistry);
+        Gauge.builder("mail.smtp.connections.idle", idle, Deque::size)
+                .register(meterRegistry);
+        Gauge.builder("mail.smtp.connections.active", permits, p -> maxConnections - p.availablePermits())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends every message over pooled connections. A message that fails is reported in the
+     * {@link MailSendException} and its connection closed; the remaining messages still go out.
+     */
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        Connection connection = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessages[i];
+                try {
+                    if (connection == null) {
+                        connection = borrow();
+                    }
+                    send(connection, mimeMessages[i]);
+                    if (connection.sent >= maxMessagesPerConnection) {
+                        release(connection, true);
+                        connection = null;
+                    }
+                } catch (AuthenticationFailedException e) {
+                    throw new MailAuthenticationException(e);
+                } catch (MessagingException | RuntimeException e) {
+                    failedCounter.increment();
+                    failedMessages.put(original, e);
+                    if (connection != null) {
+                        release(connection, true);
+                        connection = null;
+                    }
+                }
+            }
+        } finally {
+            if (connection != null) {
+                release(connection, false);
+            }
+        }
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${mail.pool.evict-interval-ms:30000}")
+    public void evictIdleConnections() {
+        evictIdleConnections(System.nanoTime());
+    }
+
+    int evictIdleConnections(long now) {
+        int evicted = 0;
+        for (Connection connection : idle) {
+            // remove() only succeeds for one thread, so a connection being borrowed right now is left alone
+            if (now - connection.lastUsed >= idleTimeoutNanos && idle.remove(connection)) {
+                close(connection);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    int getIdleConnections() {
+        return idle.size();
+    }
+
+    @Override
+    public void destroy() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    private void send(Connection connection, MimeMessage mimeMessage) throws MessagingException {
+        long start = System.nanoTime();
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        String messageId = mimeMessage.getMessageID();
+        mimeMessage.saveChanges();
+        if (messageId != null) {
+            mimeMessage.setHeader("Message-ID", messageId);
+        }
+        connection.transport.sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+        connection.sent++;
+        sentCounter.increment();
+        sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Connection borrow() throws MessagingException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection");
+        }
+        if (!acquired) {
+            throw new MessagingException("No SMTP connection available after " + borrowTimeoutMs + " ms");
+        }
+        try {
+            long now = System.nanoTime();
+            Connection connection;
+            // Most recently used first, so the least used connections age out
+            while ((connection = idle.pollFirst()) != null) {
+                long idleFor = now - connection.lastUsed;
+                if (idleFor < idleTimeoutNanos && (idleFor < VALIDATE_AFTER_NANOS || connection.transport.isConnected())) {
+                    return connection;
+                }
+                close(connection);
+            }
+            Transport transport = connectTransport();
+            openedCounter.increment();
+            return new Connection(transport, now);
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void release(Connection connection, boolean retire) {
+        try {
+            if (retire || closed) {
+                close(connection);
+            } else {
+                connection.lastUsed = System.nanoTime();
+                idle.offerFirst(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void close(Connection connection) {
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            logger.debug("Error closing SMTP connection: {}", e.getMessage());
+        }
+        closedCounter.increment();
+    }
+}
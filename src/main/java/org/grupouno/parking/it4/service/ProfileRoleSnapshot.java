@@ -0,0 +1,112 @@
+package org.grupouno.parking.it4.service;
+
+import jakarta.annotation.PostConstruct;
+import org.grupouno.parking.it4.model.DetailRoleProfile;
+import org.grupouno.parking.it4.model.Rol;
+import org.grupouno.parking.it4.repository.DetailRoleProfileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory copy of the detail_role_profile mapping, profileId to roles and authorities.
+ * Reads never lock or hit the database; every write to profiles, roles or their details must call
+ * {@link #refreshAfterCommit()} so a new snapshot is built and swapped in.
+ */
+@Component
+public class ProfileRoleSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileRoleSnapshot.class);
+
+    private record Snapshot(Map<Long, List<Rol>> roles,
+                            Map<Long, List<GrantedAuthority>> authorities,
+                            Map<Long, List<String>> roleNames) {
+    }
+
+    private final DetailRoleProfileRepository detailRoleProfileRepository;
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), Map.of());
+
+    public ProfileRoleSnapshot(DetailRoleProfileRepository detailRoleProfileRepository) {
+        this.detailRoleProfileRepository = detailRoleProfileRepository;
+    }
+
+    @PostConstruct
+    public void load() {
+        try {
+            refresh();
+        } catch (DataAccessException e) {
+            logger.error("Error loading profile roles: {}", e.getMessage());
+        }
+    }
+
+    public List<GrantedAuthority> getAuthorities(long profileId) {
+        return snapshot.authorities().getOrDefault(profileId, List.of());
+    }
+
+    public List<String> getRoleNames(long profileId) {
+        return snapshot.roleNames().getOrDefault(profileId, List.of());
+    }
+
+    public List<Rol> getRoles(long profileId) {
+        return snapshot.roles().getOrDefault(profileId, List.of());
+    }
+
+    /**
+     * Rebuilds the snapshot from the database. Serialized so that the last refresh always publishes the latest data.
+     */
+    public synchronized void refresh() {
+        Map<Long, List<Rol>> roles = new HashMap<>();
+        for (DetailRoleProfile detail : detailRoleProfileRepository.findAllWithRoles()) {
+            roles.computeIfAbsent(detail.getId().getIdProfile(), id -> new ArrayList<>()).add(copyOf(detail.getRole()));
+        }
+        Map<Long, List<Rol>> rolesByProfile = new HashMap<>();
+        Map<Long, List<GrantedAuthority>> authorities = new HashMap<>();
+        Map<Long, List<String>> roleNames = new HashMap<>();
+        roles.forEach((profileId, profileRoles) -> {
+            rolesByProfile.put(profileId, List.copyOf(profileRoles));
+            authorities.put(profileId, profileRoles.stream()
+                    .filter(role -> role.getRole() != null)
+                    .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.getRole()))
+                    .toList());
+            roleNames.put(profileId, profileRoles.stream()
+                    .map(Rol::getRole)
+                    .filter(name -> name != null)
+                    .toList());
+        });
+        snapshot = new Snapshot(Map.copyOf(rolesByProfile), Map.copyOf(authorities), Map.copyOf(roleNames));
+    }
+
+    /**
+     * Refreshes once the current transaction commits, or right away when there is none.
+     */
+    public void refreshAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh();
+                }
+            });
+        } else {
+            refresh();
+        }
+    }
+
+    private Rol copyOf(Rol role) {
+        Rol copy = new Rol();
+        copy.setId(role.getId());
+        copy.setRole(role.getRole());
+        copy.setDescription(role.getDescription());
+        return copy;
+    }
+}
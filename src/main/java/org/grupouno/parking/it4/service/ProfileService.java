@@ -4,7 +4,7 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import org.grupouno.parking.it4.dto.ProfileDto;
-import org.grupouno.parking.it4.exceptions.ProfileConversionException;
+import org.grupouno.parking.it4.dto.ProfileSummary;
 import org.grupouno.parking.it4.exceptions.RoleExistingException;
 import org.grupouno.parking.it4.exceptions.UserDeletionException;
 import org.grupouno.parking.it4.model.DetailDTO;
@@ -14,16 +14,21 @@ import org.grupouno.parking.it4.model.Rol;
 import org.grupouno.parking.it4.repository.DetailRoleProfileRepository;
 import org.grupouno.parking.it4.repository.ProfileRepository;
 import org.grupouno.parking.it4.repository.RoleRepository;
+import org.grupouno.parking.it4.security.PrincipalCache;
+import org.grupouno.parking.it4.security.TokenVersionRegistry;
+import org.grupouno.parking.it4.utils.KeysetCursor;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @AllArgsConstructor
 @Service
@@ -31,41 +36,69 @@ public class ProfileService implements IProfileService {
 
     private final ProfileRepository profileRepository;
     private final AudithService audithService;
-    private final ObjectMapper objectMapper;
     private final DetailRoleProfileRepository detailRoleProfileRepository;
     private final RoleRepository roleRepository;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final ProfileRoleSnapshot profileRoleSnapshot;
     private static final String PROFILE = "Profile";
     private static final String SUCCES = "Success";
     private static final String NOTEXIST = "does not exist";
+    public static final int MAX_PAGE_SIZE = 100;
 
     public List<Rol> getRolesByProfileId(Long profileId) {
-        return detailRoleProfileRepository.findRolesByProfileId(profileId);
+        return profileRoleSnapshot.getRoles(profileId);
     }
 
     @Override
-    public Page<Profile> getAllProfiles(int page, int size, String description) {
+    public Page<ProfileSummary> getAllProfiles(int page, int size, String description) {
         Pageable pageable = PageRequest.of(page, size);
 
         if (description != null && !description.isEmpty()) {
-            return profileRepository.findByDescriptionContainingIgnoreCase(description, pageable);
+            return profileRepository.findSummariesByDescriptionContaining(description, pageable);
         }
-        Page<Profile> profiles = profileRepository.findAll(pageable);
+        Page<ProfileSummary> profiles = profileRepository.findSummaries(pageable);
 
         auditAction(PROFILE, "Fetching all profiles", "Read",
-                Map.of(),
-                Map.of("profilesCount", profiles.getTotalElements()),
+                () -> Map.of(),
+                () -> Map.of("profilesCount", profiles.getTotalElements()),
                 SUCCES);
 
         return profiles;
     }
 
-    public List<Profile> getAllProfilesForUser() {
+    /**
+     * Profiles ordered by id, one keyset page at a time: pass the {@link #cursorOf cursor} of the last profile of
+     * the previous page.
+     */
+    @Override
+    public Slice<ProfileSummary> getProfilesAfter(String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        long afterId = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            afterId = KeysetCursor.decodeLong(KeysetCursor.decode(cursor, 1)[0]);
+        }
+        List<ProfileSummary> profiles = profileRepository.findSummariesAfter(afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasNext = profiles.size() > pageSize;
+        return new SliceImpl<>(hasNext ? profiles.subList(0, pageSize) : profiles, PageRequest.of(0, pageSize), hasNext);
+    }
+
+    public static String cursorOf(ProfileSummary profile) {
+        return KeysetCursor.encode(profile.profileId());
+    }
+
+    @Override
+    public long estimateProfileCount() {
+        return Math.max(profileRepository.estimateCount(), 0);
+    }
+
+    public List<ProfileSummary> getAllProfilesForUser() {
 
-        List<Profile> profiles = profileRepository.findAll();
+        List<ProfileSummary> profiles = profileRepository.findAllSummaries();
 
         auditAction(PROFILE, "Fetching all profiles", "Read",
-                Map.of(),
-                Map.of("profilesCount", profiles.size()),
+                () -> Map.of(),
+                () -> Map.of("profilesCount", profiles.size()),
                 SUCCES);
 
         return profiles;
@@ -76,11 +109,10 @@ public class ProfileService implements IProfileService {
         validateId(id);
 
         Optional<Profile> profile = profileRepository.findById(id);
-        String responseMessage = profile.map(Profile::toString).orElse("Not Found");
 
         auditAction(PROFILE, "Fetching profile by ID", "Read",
-                Map.of("id", id),
-                Map.of("profile", responseMessage),
+                () -> Map.of("id", id),
+                () -> Map.of("profile", profile.map(Profile::toString).orElse("Not Found")),
                 profile.isPresent() ? SUCCES : "Not Found");
 
         return profile;
@@ -92,8 +124,8 @@ public class ProfileService implements IProfileService {
         Profile savedProfile = profileRepository.save(profile);
 
         auditAction(PROFILE, "Saving profile", "Create",
-                convertToMap(profile),
-                convertToMap(savedProfile),
+                () -> ProfileSummary.of(profile),
+                () -> ProfileSummary.of(savedProfile),
                 SUCCES);
 
         return savedProfile;
@@ -122,6 +154,7 @@ public class ProfileService implements IProfileService {
             detailRoleProfile.setRole(role);
             detailRoleProfileRepository.save(detailRoleProfile);
         }
+        profileRoleSnapshot.refreshAfterCommit();
         return savedProfile;
     }
 
@@ -136,8 +169,8 @@ public class ProfileService implements IProfileService {
         profileRepository.save(profile);
 
         auditAction(PROFILE, "Updating profile", "Update",
-                Map.of("profile Id", profileId, "profileUpdates", profileDto),
-                convertToMap(profile),
+                () -> Map.of("profile Id", profileId, "profileUpdates", profileDto),
+                () -> ProfileSummary.of(profile),
                 SUCCES);
     }
 
@@ -175,6 +208,9 @@ public class ProfileService implements IProfileService {
         for (Long roleId : rolesToRemove) {
             detailRoleProfileRepository.deleteById(new DetailDTO(profileId, roleId));
         }
+        principalCache.invalidateProfile(profileId);
+        tokenVersionRegistry.profileChanged(profileId);
+        profileRoleSnapshot.refreshAfterCommit();
         return profile;
     }
 
@@ -189,8 +225,8 @@ public class ProfileService implements IProfileService {
         profileRepository.save(profile);
 
         auditAction(PROFILE, "Patching profile", "Update",
-                Map.of("profileId", profileId, "profileUpdates", profileDto),
-                convertToMap(profile),
+                () -> Map.of("profileId", profileId, "profileUpdates", profileDto),
+                () -> ProfileSummary.of(profile),
                 SUCCES);
     }
 
@@ -201,7 +237,7 @@ public class ProfileService implements IProfileService {
         try {
             profileRepository.deleteById(profileId);
             auditAction(PROFILE, "Deleting profile", "Delete",
-                    Map.of("profileId", profileId),
+                    () -> Map.of("profileId", profileId),
                     null,
                     SUCCES);
         } catch (DataAccessException e) {
@@ -216,8 +252,11 @@ public class ProfileService implements IProfileService {
         Profile profile = profileRepository.findById(profileId)
                 .orElseThrow(() -> new EntityNotFoundException("Profile not found"));
 
+        tokenVersionRegistry.profileChanged(profileId);
         detailRoleProfileRepository.deleteByProfile(profile);
         profileRepository.deleteById(profileId);
+        principalCache.invalidateProfile(profileId);
+        profileRoleSnapshot.refreshAfterCommit();
     }
 
     private void validateId(Long id) {
@@ -253,16 +292,9 @@ public class ProfileService implements IProfileService {
         }
     }
 
-    private Map<String, Object> convertToMap(Profile profile) {
-        try {
-            return objectMapper.convertValue(profile, Map.class);
-        } catch (RuntimeException e) {
-            throw new ProfileConversionException("Error converting Profile to Map", e);
-        }
-    }
 
     private void auditAction(String entity, String description, String operation,
-                             Map<String, Object> request, Map<String, Object> response, String result) {
-        audithService.createAudit(entity, description, operation, request, response, result);
+                             Supplier<?> request, Supplier<?> response, String result) {
+        audithService.recordAudit(entity, description, operation, request, response, result);
     }
 }
@@ -1,52 +1,49 @@
 package org.grupouno.parking.it4.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.grupouno.parking.it4.dto.RoleDto;
-import org.grupouno.parking.it4.exceptions.SerializingRolException;
+import org.grupouno.parking.it4.dto.RoleSummary;
 import org.grupouno.parking.it4.exceptions.UserDeletionException;
 import org.grupouno.parking.it4.model.Rol;
 import org.grupouno.parking.it4.repository.RoleRepository;
+import org.grupouno.parking.it4.security.PrincipalCache;
+import org.grupouno.parking.it4.security.TokenVersionRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 @AllArgsConstructor
 @Service
 public class RoleService implements IRoleService {
 
     private static final Logger logger = LoggerFactory.getLogger(RoleService.class);
-    ObjectMapper objectMapper;
     private RoleRepository repository;
     AudithService audithService;
+    private PrincipalCache principalCache;
+    private TokenVersionRegistry tokenVersionRegistry;
+    private ProfileRoleSnapshot profileRoleSnapshot;
     private static final String SUCCES = "Success";
 
     @Override
     public List<String> findRolesByProfileId(Long profileId) {
-        List<Rol> roles = repository.findRolesByProfileId(profileId);
+        List<String> roles = profileRoleSnapshot.getRoleNames(profileId);
         auditAction("Role", "Retrieved roles for profile ID: " + profileId, "GET", null, null, SUCCES);
-        return roles.stream()
-                .map(Rol::getRole)
-                .toList();
+        return roles;
     }
 
     @Override
     public List<GrantedAuthority> getRolesByProfileId(Long profileId) {
-        List<Rol> roles = repository.findRolesByProfileId(profileId);
+        List<GrantedAuthority> authorities = profileRoleSnapshot.getAuthorities(profileId);
         auditAction("Role", "Retrieved roles for profile ID: " + profileId, "GET", null, null, SUCCES);
-        return roles.stream()
-                .map(role -> new SimpleGrantedAuthority(role.getRole()))
-                .collect(Collectors.toList());
+        return authorities;
     }
 
     @Override
@@ -79,12 +76,7 @@ public class RoleService implements IRoleService {
         }
 
         Rol role = optionalRol.get();
-        String previousRoleState = null;
-        try {
-            previousRoleState = objectMapper.writeValueAsString(role);
-        } catch (JsonProcessingException e) {
-            throw new SerializingRolException("Error serializing role to JSON", e);
-        }
+        RoleSummary previousRole = RoleSummary.of(role);
 
         if (roleDto.getRole() != null) {
             role.setRole(roleDto.getRole());
@@ -93,13 +85,12 @@ public class RoleService implements IRoleService {
             role.setDescription(roleDto.getDescription());
         }
         Rol updatedRole = repository.save(role);
+        principalCache.invalidateAll();
+        tokenVersionRegistry.roleChanged(idRol);
+        profileRoleSnapshot.refreshAfterCommit();
 
-        try {
-            auditAction("Role", "Updated role information", "UPDATE", convertToMap(updatedRole),
-                    objectMapper.readValue(previousRoleState, Map.class), SUCCES);
-        } catch (JsonProcessingException e) {
-            throw new SerializingRolException("Error serializing previous role state to JSON", e);
-        }
+        auditAction("Role", "Updated role information", "UPDATE", () -> RoleSummary.of(updatedRole),
+                () -> previousRole, SUCCES);
     }
 
     @Override
@@ -112,9 +103,12 @@ public class RoleService implements IRoleService {
             Rol roleToDelete = repository.findById(idRole).orElseThrow(() ->
                     new EntityNotFoundException("This role doesn't exist"));
 
-            auditAction("Role", "Deleted a role", "DELETE", convertToMap(roleToDelete), null, SUCCES);
+            auditAction("Role", "Deleted a role", "DELETE", () -> RoleSummary.of(roleToDelete), null, SUCCES);
 
+            tokenVersionRegistry.roleChanged(idRole);
             repository.deleteById(idRole);
+            principalCache.invalidateAll();
+            profileRoleSnapshot.refreshAfterCommit();
         } catch (DataAccessException e) {
             throw new UserDeletionException("Error deleting rol ", e);
         }
@@ -127,7 +121,7 @@ public class RoleService implements IRoleService {
         }
         Optional<Rol> roleOptional = repository.findById(idRole);
         if (roleOptional.isPresent()) {
-            auditAction("Role", "Retrieved role with ID: " + idRole, "GET", null, convertToMap(roleOptional.get()), SUCCES);
+            auditAction("Role", "Retrieved role with ID: " + idRole, "GET", null, () -> RoleSummary.of(roleOptional.get()), SUCCES);
         } else {
             auditAction("Role", "Failed to retrieve role with ID: " + idRole, "GET", null, null, "Not Found");
         }
@@ -141,18 +135,12 @@ public class RoleService implements IRoleService {
         return roles;
     }
 
-    private Map<String, Object> convertToMap(Rol rol) {
-        try {
-            return objectMapper.convertValue(rol, Map.class);
-        } catch (Exception e) {
-            throw new SerializingRolException("Error converting Rol to Map", e);
-        }
-    }
+
 
     private void auditAction(String entity, String description, String operation,
-                             Map<String, Object> request, Map<String, Object> response, String result) {
+                             Supplier<?> request, Supplier<?> response, String result) {
         try {
-            audithService.createAudit(entity, description, operation, request, response, result);
+            audithService.recordAudit(entity, description, operation, request, response, result);
         } catch (Exception e) {
             logger.error("Error saving audit record: {}", e.getMessage(), e);
         }
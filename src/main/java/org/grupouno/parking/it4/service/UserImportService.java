@@ -0,0 +1,405 @@
+package org.grupouno.parking.it4.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.grupouno.parking.it4.dto.UserDto;
+import org.grupouno.parking.it4.dto.UserImportReport;
+import org.grupouno.parking.it4.exceptions.DuplicateUserException;
+import org.grupouno.parking.it4.repository.ProfileRepository;
+import org.grupouno.parking.it4.security.BoundedPasswordEncoder;
+import org.grupouno.parking.it4.utils.Validations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates users in bulk from a CSV or NDJSON body. The body is read row by row and handled in chunks of
+ * {@code user.import.chunk-size}, so memory does not grow with the file. Each chunk is validated, checked
+ * for existing emails and DPIs with one query, inserted with one JDBC batch and gets its credentials mails
+ * queued in the outbox, all in its own transaction. A chunk that fails does not undo the ones before it.
+ */
+@Service
+public class UserImportService {
+
+    public static final String CSV = "text/csv";
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final Logger logger = LoggerFactory.getLogger(UserImportService.class);
+    private static final int MAX_NAME_LENGTH = 25;
+    private static final int MAX_EMAIL_LENGTH = 50;
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "surname", "dpi", "email", "profileid");
+    private static final String FIND_EXISTING = "SELECT lower(email) AS email, dpi FROM \"user\" "
+            + "WHERE lower(email) = ANY (?) OR dpi = ANY (?)";
+    private static final String INSERT_USER = "INSERT INTO \"user\" "
+            + "(name, surname, age, dpi, email, password, status, profile_id, token_version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, true, ?, 0) ON CONFLICT DO NOTHING";
+
+    private record Row(int line, UserDto user, String error) {
+    }
+
+    private interface RowReader {
+        /**
+         * @return the next row, or {@code null} at the end of the body
+         */
+        Row next() throws IOException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ProfileRepository profileRepository;
+    private final MailOutboxService mailOutboxService;
+    private final Validations validations;
+    private final ObjectMapper objectMapper;
+    private final AudithService audithService;
+    private final int chunkSize;
+    private final int maxRows;
+
+    private final Counter createdCounter;
+    private final Counter rejectedCounter;
+
+    public UserImportService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             PasswordEncoder passwordEncoder,
+                             ProfileRepository profileRepository,
+                             MailOutboxService mailOutboxService,
+                             Validations validations,
+                             ObjectMapper objectMapper,
+                             AudithService audithService,
+                             MeterRegistry meterRegistry,
+                             @Value("${user.import.chunk-size:500}") int chunkSize,
+                             @Value("${user.import.max-rows:100000}") int maxRows) {
+        if (chunkSize <= 0 || maxRows <= 0) {
+            throw new IllegalArgumentException("User import chunk size and max rows must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.passwordEncoder = passwordEncoder;
+        this.profileRepository = profileRepository;
+        this.mailOutboxService = mailOutboxService;
+        this.validations = validations;
+        this.objectMapper = objectMapper;
+        this.audithService = audithService;
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+
+        this.createdCounter = Counter.builder("user.import.rows")
+                .tag("result", "created")
+                .description("Rows of user imports")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("user.import.rows")
+                .tag("result", "rejected")
+                .description("Rows of user imports")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Imports the rows of {@code body}, {@link #CSV} with a header line or {@link #NDJSON} with one
+     * {@link UserDto} per line.
+     *
+     * @throws IllegalArgumentException for an unsupported content type or a CSV header without the required columns
+     */
+    public UserImportReport importUsers(InputStream body, String contentType) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        RowReader rows = isCsv(contentType) ? csvReader(reader) : ndjsonReader(contentType, reader);
+        UserImportReport report = new UserImportReport();
+        Map<Long, Boolean> profiles = new HashMap<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        Row row;
+        while ((row = rows.next()) != null) {
+            if (report.getTotal() >= maxRows) {
+                report.reject(row.line(), null, "Import stopped, the limit is " + maxRows + " rows");
+                break;
+            }
+            report.rowRead();
+            String error = row.error() != null ? row.error() : validate(row.user(), profiles);
+            if (error != null) {
+                report.reject(row.line(), row.user() != null ? row.user().getEmail() : null, error);
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+        createdCounter.increment(report.getCreated());
+        rejectedCounter.increment(report.getRejected().size());
+        logger.info("Imported {} of {} users", report.getCreated(), report.getTotal());
+        audithService.recordAudit("User", "Importing users", "Import",
+                () -> Map.of("total", report.getTotal()),
+                () -> Map.of("created", report.getCreated(), "rejected", report.getRejected().size()),
+                "Success");
+        return report;
+    }
+
+    private void importChunk(List<Row> chunk, UserImportReport report) {
+        List<Row> candidates = withoutDuplicates(chunk, report);
+        if (candidates.isEmpty()) {
+            return;
+        }
+        // Hashing is by far the slowest step, so it runs outside the transaction and in parallel
+        List<String> passwords = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            passwords.add(validations.generatePassword());
+        }
+        List<String> hashes = encodeAll(passwords);
+        List<Object[]> inserts = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            UserDto user = candidates.get(i).user();
+            inserts.add(new Object[]{user.getName().trim(), user.getSurname().trim(), user.getAge(), user.getDpi(),
+                    user.getEmail(), hashes.get(i), user.getProfileId()});
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int[] counts = jdbcTemplate.batchUpdate(INSERT_USER, inserts);
+                Map<String, String> mails = new LinkedHashMap<>();
+                for (int i = 0; i < candidates.size(); i++) {
+                    Row row = candidates.get(i);
+                    // Another request created the same user since the lookup
+                    if (counts[i] == 0) {
+                        report.reject(row.line(), row.user().getEmail(), DuplicateUserException.MESSAGE);
+                    } else {
+                        mails.put(row.user().getEmail(), passwords.get(i));
+                    }
+                }
+                mailOutboxService.enqueuePasswordAndUsers(mails);
+                report.created(mails.size());
+            });
+        } catch (DataAccessException e) {
+            logger.error("Error importing users from line {}: {}", candidates.get(0).line(), e.getMessage());
+            for (Row row : candidates) {
+                report.reject(row.line(), row.user().getEmail(), "Could not save the user");
+            }
+        }
+    }
+
+    private List<String> encodeAll(List<String> passwords) {
+        if (passwordEncoder instanceof BoundedPasswordEncoder bounded) {
+            return bounded.encodeAll(passwords);
+        }
+        return passwords.stream().map(passwordEncoder::encode).toList();
+    }
+
+    /**
+     * Drops, and reports, the rows whose email, ignoring case, or DPI is repeated earlier in the chunk or already
+     * taken. Rows of previous chunks are committed by now, so the lookup also covers repeats across the whole file.
+     */
+    private List<Row> withoutDuplicates(List<Row> chunk, UserImportReport report) {
+        Set<String> emails = new HashSet<>();
+        Set<String> dpis = new HashSet<>();
+        List<Row> unique = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            String email = lowerEmail(row);
+            String dpi = row.user().getDpi();
+            if (emails.contains(email) || dpis.contains(dpi)) {
+                report.reject(row.line(), row.user().getEmail(), "Email or DPI repeated in the file");
+            } else {
+                emails.add(email);
+                dpis.add(dpi);
+                unique.add(row);
+            }
+        }
+        Set<String> takenEmails = new HashSet<>();
+        Set<String> takenDpis = new HashSet<>();
+        jdbcTemplate.query(findExisting(emails, dpis), (RowCallbackHandler) rs -> {
+            takenEmails.add(rs.getString("email"));
+            takenDpis.add(rs.getString("dpi"));
+        });
+        if (takenEmails.isEmpty()) {
+            return unique;
+        }
+        List<Row> available = new ArrayList<>(unique.size());
+        for (Row row : unique) {
+            if (takenEmails.contains(lowerEmail(row)) || takenDpis.contains(row.user().getDpi())) {
+                report.reject(row.line(), row.user().getEmail(), DuplicateUserException.MESSAGE);
+            } else {
+                available.add(row);
+            }
+        }
+        return available;
+    }
+
+    private static String lowerEmail(Row row) {
+        return row.user().getEmail().toLowerCase(Locale.ROOT);
+    }
+
+    private static PreparedStatementCreator findExisting(Set<String> emails, Set<String> dpis) {
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_EXISTING);
+            statement.setArray(1, connection.createArrayOf("varchar", emails.toArray()));
+            statement.setArray(2, connection.createArrayOf("varchar", dpis.toArray()));
+            return statement;
+        };
+    }
+
+    /**
+     * Same checks as the single signup, plus the column sizes of {@code user}, since the batch insert skips
+     * bean validation.
+     *
+     * @return the reason the row is rejected, or {@code null}
+     */
+    private String validate(UserDto user, Map<Long, Boolean> profiles) {
+        if (isBlankOrLong(user.getName()) || isBlankOrLong(user.getSurname())) {
+            return "Name and surname are required, up to " + MAX_NAME_LENGTH + " characters";
+        }
+        if (user.getAge() < 0) {
+            return "Age is not valid";
+        }
+        if (!Validations.isValidEmail(user.getEmail()) || user.getEmail().length() > MAX_EMAIL_LENGTH) {
+            return "Email is not valid";
+        }
+        if (!Validations.isValidDpi(user.getDpi())) {
+            return "DPI IS NOT VALID";
+        }
+        Long profileId = user.getProfileId();
+        if (profileId == null || !profiles.computeIfAbsent(profileId, profileRepository::existsById)) {
+            return "Profile not found";
+        }
+        return null;
+    }
+
+    private static boolean isBlankOrLong(String value) {
+        return value == null || value.isBlank() || value.trim().length() > MAX_NAME_LENGTH;
+    }
+
+    private static boolean isCsv(String contentType) {
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(CSV);
+    }
+
+    private RowReader ndjsonReader(String contentType, BufferedReader reader) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith(NDJSON)) {
+            throw new IllegalArgumentException("Content type must be " + CSV + " or " + NDJSON);
+        }
+        int[] line = {0};
+        return () -> {
+            String text;
+            do {
+                text = reader.readLine();
+                line[0]++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            try {
+                return new Row(line[0], objectMapper.readValue(text, UserDto.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(line[0], null, "Malformed JSON");
+            }
+        };
+    }
+
+    private static RowReader csvReader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return () -> null;
+        }
+        if (!header.isEmpty() && header.charAt(0) == '\uFEFF') {
+            header = header.substring(1);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.keySet().containsAll(REQUIRED_COLUMNS)) {
+            throw new IllegalArgumentException("CSV header must contain the columns name, surname, dpi, email and profileId");
+        }
+        int[] line = {1};
+        return () -> {
+            String text;
+            do {
+                text = reader.readLine();
+                line[0]++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            try {
+                List<String> fields = parseCsvLine(text);
+                UserDto user = new UserDto();
+                user.setName(field(fields, columns, "name"));
+                user.setSurname(field(fields, columns, "surname"));
+                user.setDpi(field(fields, columns, "dpi"));
+                user.setEmail(field(fields, columns, "email"));
+                String age = field(fields, columns, "age");
+                user.setAge(age == null || age.isBlank() ? 0 : Long.parseLong(age.trim()));
+                String profileId = field(fields, columns, "profileid");
+                user.setProfileId(profileId == null || profileId.isBlank() ? null : Long.valueOf(profileId.trim()));
+                return new Row(line[0], user, null);
+            } catch (NumberFormatException e) {
+                return new Row(line[0], null, "Age and profileId must be numbers");
+            } catch (IllegalArgumentException e) {
+                return new Row(line[0], null, e.getMessage());
+            }
+        };
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < fields.size() ? fields.get(index) : null;
+    }
+
+    /**
+     * Splits one CSV record. Fields may be quoted, with {@code ""} for a quote inside; line breaks inside quoted
+     * fields are not supported.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
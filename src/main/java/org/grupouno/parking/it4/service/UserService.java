@@ -1,30 +1,39 @@
 package org.grupouno.parking.it4.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.grupouno.parking.it4.dto.UserDto;
-import org.grupouno.parking.it4.exceptions.ConverterMapException;
+import org.grupouno.parking.it4.dto.UserSummary;
 import org.grupouno.parking.it4.exceptions.DpiException;
+import org.grupouno.parking.it4.exceptions.DuplicateUserException;
 import org.grupouno.parking.it4.exceptions.UserDeletionException;
 import org.grupouno.parking.it4.exceptions.UserNotFoundException;
 import org.grupouno.parking.it4.model.Profile;
 import org.grupouno.parking.it4.model.User;
 import org.grupouno.parking.it4.repository.ProfileRepository;
 import org.grupouno.parking.it4.repository.UserRepository;
+import org.grupouno.parking.it4.security.PrincipalCache;
+import org.grupouno.parking.it4.security.TokenVersionRegistry;
+import org.grupouno.parking.it4.utils.KeysetCursor;
 import org.grupouno.parking.it4.utils.Validations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 
 @AllArgsConstructor
@@ -36,9 +45,11 @@ public class UserService implements IUserService {
     private final PasswordEncoder passwordEncoder;
     private final VerificationCodeService verificationCodeService;
     private final ProfileRepository profileRepository;
-    private final ObjectMapper objectMapper;
     private final Validations validations;
-    private final MailService mailService;
+    private final MailOutboxService mailOutboxService;
+    private final PlatformTransactionManager transactionManager;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     private static final String USER_WITH = "User with id ";
     private static final String DONT_EXIST = "Don't exist";
@@ -46,16 +57,30 @@ public class UserService implements IUserService {
     private static final String USERID = "userId";
     private static final String SUCCESS = "Success";
     private static final String PROFILENOTF = "Profile not found";
+    // Trigrams need three characters, shorter terms would read the whole index
+    private static final int SEARCH_MIN_LENGTH = 3;
+    private static final int SEARCH_MAX_LENGTH = 100;
+    public static final int MAX_PAGE_SIZE = 100;
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
     @Override
     public Optional<User> findByEmail(String email) {
         Optional<User> user = userRepository.findByEmail(email);
-        String responseMessage = user.map(User::toString).orElse("Not Found");
 
         auditAction("User", "Fetching user by Email", "Read",
-                Map.of("email", email),
-                Map.of("user", responseMessage),
+                () -> Map.of("email", email),
+                () -> Map.of("user", user.map(User::toString).orElse("Not Found")),
+                user.isPresent() ? SUCCESS : "Not Found");
+        return user;
+    }
+
+    @Override
+    public Optional<UserSummary> findSummaryByEmail(String email) {
+        Optional<UserSummary> user = userRepository.findSummaryByEmail(email);
+
+        auditAction("User", "Fetching user by Email", "Read",
+                () -> Map.of("email", email),
+                () -> Map.of("user", user.map(UserSummary::toString).orElse("Not Found")),
                 user.isPresent() ? SUCCESS : "Not Found");
         return user;
     }
@@ -76,11 +101,10 @@ public class UserService implements IUserService {
         }
 
         User user = optionalUser.get(); // Obtener el usuario ya que sabemos que existe
-        String responseMessage = user.toString();
 
         auditAction("User", "Fetching user by ID", "Read",
-                Map.of("id", id),
-                Map.of("user", responseMessage),
+                () -> Map.of("id", id),
+                () -> Map.of("user", user.toString()),
                 SUCCESS);
 
         return optionalUser;
@@ -92,19 +116,72 @@ public class UserService implements IUserService {
     }
 
     @Override
-    public Page<User> getAllUsers(int page, int size, String email) {
+    public Page<UserSummary> searchUsers(String query, int page, int size) {
+        String term = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (term.length() < SEARCH_MIN_LENGTH || term.length() > SEARCH_MAX_LENGTH) {
+            throw new IllegalArgumentException("Search text must have between " + SEARCH_MIN_LENGTH + " and "
+                    + SEARCH_MAX_LENGTH + " characters");
+        }
+        String escaped = escapeLike(term);
+        // Relevance ordering is part of the query, the page must not add its own sort
+        return userRepository.search(term, "%" + escaped + "%", escaped + "%", PageRequest.of(page, size));
+    }
+
+    static String escapeLike(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 4);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' || c == '%' || c == '_') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Users ordered by email, one keyset page at a time: pass the {@link #cursorOf cursor} of the last user of the
+     * previous page. No offset and no count, so any page costs the same as the first.
+     */
+    @Override
+    public Slice<UserSummary> getUsersAfter(String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        String email = "";
+        long userId = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] position = KeysetCursor.decode(cursor, 2);
+            email = position[0];
+            userId = KeysetCursor.decodeLong(position[1]);
+        }
+        // One extra row tells whether there is a next page without a count query
+        List<UserSummary> users = userRepository.findSummariesAfter(email, userId, PageRequest.of(0, pageSize + 1));
+        boolean hasNext = users.size() > pageSize;
+        return new SliceImpl<>(hasNext ? users.subList(0, pageSize) : users, PageRequest.of(0, pageSize), hasNext);
+    }
+
+    public static String cursorOf(UserSummary user) {
+        return KeysetCursor.encode(user.email(), user.userId());
+    }
+
+    @Override
+    public long estimateUserCount() {
+        return Math.max(userRepository.estimateCount(), 0);
+    }
+
+    @Override
+    public Page<UserSummary> getAllUsers(int page, int size, String email) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Order.asc("email")));
 
         if (email != null && !email.isEmpty()) {
-            return userRepository.findByEmailContainingIgnoreCase(email, pageable);
+            return userRepository.findSummariesByEmailContaining(email, pageable);
         }
-        Page<User> users = userRepository.findAll(pageable);
+        Page<UserSummary> users = userRepository.findSummaries(pageable);
 
 
         // Registro de auditoría
         auditAction("User", "Fetching all users", "Read",
-                Map.of(),
-                Map.of("usersCount", users.getTotalElements()),
+                () -> Map.of(),
+                () -> Map.of("usersCount", users.getTotalElements()),
                 SUCCESS);
         return users;
     }
@@ -117,8 +194,10 @@ public class UserService implements IUserService {
         }
         try {
             userRepository.deleteById(idUser);
+            principalCache.invalidateUser(idUser);
+            tokenVersionRegistry.userDeleted(idUser);
             auditAction("User", "Deleting user", "Delete",
-                    Map.of(USERID, idUser),
+                    () -> Map.of(USERID, idUser),
                     null,
                     SUCCESS);
         } catch (DataAccessException e) {
@@ -143,11 +222,14 @@ public class UserService implements IUserService {
                 user.setIdProfile(profile);
             }
             logger.info("User {} updated",  userDto.getName());
+            user.setTokenVersion(user.getTokenVersion() + 1);
             userRepository.save(user);
+            principalCache.invalidateUser(idUser);
+            tokenVersionRegistry.userChanged(user);
             // Registro de auditoría
             auditAction("User", "Updating user", UPDATE,
-                    Map.of(USERID, idUser, "userUpdates", userDto),
-                    convertToMap(user),
+                    () -> Map.of(USERID, idUser, "userUpdates", userDto),
+                    () -> UserSummary.of(user),
                     SUCCESS);
         }
     }
@@ -203,10 +285,13 @@ public class UserService implements IUserService {
             user.setIdProfile(profile);
         }
         logger.info("User {} updated", userDto.getName() );
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+        principalCache.invalidateUser(idUser);
+        tokenVersionRegistry.userChanged(user);
         auditAction("User", "Patching user", UPDATE,
-                Map.of(USERID, idUser, "userUpdates", userDto),
-                convertToMap(user),
+                () -> Map.of(USERID, idUser, "userUpdates", userDto),
+                () -> UserSummary.of(user),
                 SUCCESS);
     }
 
@@ -223,12 +308,14 @@ public class UserService implements IUserService {
             throw new IllegalArgumentException("The new password and confirm password do not match");
         }
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+        tokenVersionRegistry.userChanged(user);
 
         // Registro de auditoría
         auditAction("User", "update password", UPDATE,
-                Map.of(USERID, idUser, "paswordUpdate", pastPassword),
-                convertToMap(user),
+                () -> Map.of(USERID, idUser, "paswordUpdate", pastPassword),
+                () -> UserSummary.of(user),
                 SUCCESS);
     }
 
@@ -240,12 +327,14 @@ public class UserService implements IUserService {
             throw new IllegalArgumentException("The new password and confirm password do not match");
         }
         user.setPassword(passwordEncoder.encode(newPassword));
+        user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+        tokenVersionRegistry.userChanged(user);
 
         // Registro de auditoría
         auditAction("User", "Change password", UPDATE,
-                Map.of("UserId", idUser, "Update Password", newPassword),
-                convertToMap(user),
+                () -> Map.of("UserId", idUser, "Update Password", newPassword),
+                () -> UserSummary.of(user),
                 SUCCESS);
 
     }
@@ -263,7 +352,7 @@ public class UserService implements IUserService {
 
 
     public User signup(UserDto input) {
-        if (input.getEmail() == null || !input.getEmail().contains("@")) {
+        if (!Validations.isValidEmail(input.getEmail())) {
             throw new IllegalArgumentException("Email is not valid");
         }
         if (input.getDpi() == null || input.getDpi().length() > 13) {
@@ -277,11 +366,6 @@ public class UserService implements IUserService {
         if (Boolean.FALSE.equals(isValid)) {
             throw new IllegalArgumentException("The password is invalid");
         }
-        Boolean isNotRepeatData = userRepository.findByEmail(input.getEmail()).isPresent();
-        Boolean isNotRepeatDPI = userRepository.findByDPI(input.getDpi()).isPresent();
-        if (Boolean.TRUE.equals(isNotRepeatData) || Boolean.TRUE.equals(isNotRepeatDPI)) {
-            throw new IllegalArgumentException("You have already a account with this DPI or Email");
-        }
         User user = new User();
         user.setName(input.getName());
         user.setSurname(input.getSurname());
@@ -293,24 +377,25 @@ public class UserService implements IUserService {
         Profile profile = profileRepository.findById(input.getProfileId())
                 .orElseThrow(() -> new IllegalArgumentException(PROFILENOTF));
         user.setIdProfile(profile);
-        mailService.sendPasswordAndUser(input.getEmail(), passwordUser);
-        return userRepository.save(user);
+        // Duplicates are caught by the unique indexes on email and DPI, the identity insert runs on save
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                User saved = userRepository.save(user);
+                mailOutboxService.enqueuePasswordAndUser(input.getEmail(), passwordUser);
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw DuplicateUserException.translate(e);
+        }
 
     }
 
 
 
 
-    private Map<String, Object> convertToMap(User user) {
-        try {
-            return objectMapper.convertValue(user, Map.class);
-        } catch (Exception e) {
-            throw new ConverterMapException("Error converting User to Map", e);
-        }
-    }
 
-    private void auditAction(String entity, String description, String operation, Map<String, Object> request, Map<String, Object> response, String result) {
-        audithService.createAudit(entity, description, operation, request, response, result);
+    private void auditAction(String entity, String description, String operation, Supplier<?> request, Supplier<?> response, String result) {
+        audithService.recordAudit(entity, description, operation, request, response, result);
     }
 
 }
\ No newline at end of file
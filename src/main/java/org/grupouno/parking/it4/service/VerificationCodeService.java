@@ -1,63 +1,84 @@
 package org.grupouno.parking.it4.service;
 
-import lombok.AllArgsConstructor;
-import org.grupouno.parking.it4.dto.VerificationCodeDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.grupouno.parking.it4.exceptions.InvalidVerificationCodeException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
-@AllArgsConstructor
 @Service
 public class VerificationCodeService {
     private static final Logger logger = LoggerFactory.getLogger(VerificationCodeService.class);
-    public final Map<String, VerificationCodeDto> verificationCodes = new ConcurrentHashMap<>();
+    private static final Duration VALIDITY = Duration.ofMinutes(30);
     private static final String VERIFICATIONCODE ="VerificationCode";
     private static final String SUCCESS = "Success";
 
     private final AudithService audithService;
+    private final VerificationCodeStore verificationCodeStore;
+    private final Counter expiredCounter;
+    // Refreshed by the cleanup run, so a metrics scrape never queries the store
+    private final AtomicLong liveCodes = new AtomicLong();
+
+    public VerificationCodeService(AudithService audithService, VerificationCodeStore verificationCodeStore,
+                                   MeterRegistry meterRegistry) {
+        this.audithService = audithService;
+        this.verificationCodeStore = verificationCodeStore;
+        this.expiredCounter = Counter.builder("verification.code.expired")
+                .description("Verification codes removed after their deadline")
+                .register(meterRegistry);
+        Gauge.builder("verification.code.live", liveCodes, AtomicLong::get)
+                .description("Verification codes that had not expired at the last cleanup")
+                .register(meterRegistry);
+    }
 
     public void saveVerificationCode(String email, String code) {
-        LocalDateTime expiry = LocalDateTime.now().plusMinutes(30);
-        VerificationCodeDto verificationCode = new VerificationCodeDto(code, expiry);
-        verificationCodes.put(email, verificationCode);
+        verificationCodeStore.save(email, code, Instant.now().plus(VALIDITY));
         auditAction(VERIFICATIONCODE, "Saved verification code for email: " + email, "CREATE",
-                Map.of("email", email, "code", code), null, SUCCESS);
+                () -> Map.of("email", email), null, SUCCESS);
     }
 
     public boolean isVerificationCodeValid(String email, String code) throws InvalidVerificationCodeException {
-        VerificationCodeDto verificationCode = verificationCodes.get(email);
-        if (verificationCode == null) {
-            throw new InvalidVerificationCodeException("Email not Found.");
-        }
-        if (!verificationCode.getCode().equals(code)) {
-            throw new InvalidVerificationCodeException("The code is incorrect.");
-        }
-        if (verificationCode.getExpiry().isBefore(LocalDateTime.now())) {
-            throw new InvalidVerificationCodeException("The code has expired.");
+        switch (verificationCodeStore.check(email, code, Instant.now())) {
+            case NOT_FOUND -> throw new InvalidVerificationCodeException("Email not Found.");
+            case INCORRECT -> throw new InvalidVerificationCodeException("The code is incorrect.");
+            case EXPIRED -> throw new InvalidVerificationCodeException("The code has expired.");
+            case VALID -> { }
         }
 
         auditAction(VERIFICATIONCODE, "Successfully validated code for email: " + email, "VALIDATE",
-                Map.of("email", email, "code", code), null, SUCCESS);
+                () -> Map.of("email", email), null, SUCCESS);
         return true;
     }
 
-    @Scheduled(fixedRate = 60000)
+    /**
+     * Collects what expired since the last run and counts the codes still live for the gauge. The in-memory store
+     * already drops each code at its deadline, the shared table is only cleaned here.
+     */
+    @Scheduled(fixedRateString = "${verification.code.cleanup-interval-ms:60000}")
     public void cleanExpiredCodes() {
-        verificationCodes.entrySet().removeIf(entry -> entry.getValue().getExpiry().isBefore(LocalDateTime.now()));
-
+        Instant now = Instant.now();
+        int expired = verificationCodeStore.removeExpired(now);
+        liveCodes.set(verificationCodeStore.countLive(now));
+        if (expired == 0) {
+            return;
+        }
+        expiredCounter.increment(expired);
         auditAction(VERIFICATIONCODE, "Cleaned up expired verification codes.", "CLEAN_UP",
                 null, null, SUCCESS);
     }
 
     private void auditAction(String entity, String description, String operation,
-                             Map<String, Object> request, Map<String, Object> response, String result) {
+                             Supplier<?> request, Supplier<?> response, String result) {
         try {
-            audithService.createAudit(entity, description, operation, request, response, result);
+            audithService.recordAudit(entity, description, operation, request, response, result);
         } catch (Exception e) {
             logger.error("Error saving audit record: {}", e.getMessage(), e);
         }
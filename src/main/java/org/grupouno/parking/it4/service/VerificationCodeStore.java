@@ -0,0 +1,58 @@
+package org.grupouno.parking.it4.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+
+/**
+ * Where the password recovery codes live between {@code /auth/forgot-password} and {@code /auth/reset-password}.
+ * Only a hash of each code is kept. Selected with {@code verification.code.store}: {@code memory} (single node)
+ * or {@code jdbc} (shared by every replica).
+ */
+public interface VerificationCodeStore {
+
+    enum Result {
+        VALID, NOT_FOUND, INCORRECT, EXPIRED
+    }
+
+    /**
+     * Stores the code for the email, replacing any previous one.
+     */
+    void save(String email, String code, Instant expiresAt);
+
+    Result check(String email, String code, Instant now);
+
+    /**
+     * Drops the codes that expired before {@code now}.
+     *
+     * @return how many were dropped
+     */
+    int removeExpired(Instant now);
+
+    /**
+     * Codes that have not expired at {@code now}.
+     */
+    long countLive(Instant now);
+
+    /**
+     * SHA-256 of the email and the code, so the same code issued to two users never has the same hash.
+     */
+    static byte[] hash(String email, String code) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(email.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return digest.digest(code.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static Result compare(byte[] storedHash, Instant expiresAt, String email, String code, Instant now) {
+        if (!MessageDigest.isEqual(storedHash, hash(email, code))) {
+            return Result.INCORRECT;
+        }
+        return expiresAt.isBefore(now) ? Result.EXPIRED : Result.VALID;
+    }
+}
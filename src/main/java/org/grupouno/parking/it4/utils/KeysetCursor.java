@@ -0,0 +1,52 @@
+package org.grupouno.parking.it4.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position for keyset pages: the sort key of the last row served, URL safe base64 encoded so clients pass it
+ * back untouched instead of building it.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "\n";
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(Object... values) {
+        StringBuilder joined = new StringBuilder();
+        for (Object value : values) {
+            if (!joined.isEmpty()) {
+                joined.append(SEPARATOR);
+            }
+            joined.append(value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the {@code parts} values of the cursor
+     * @throws IllegalArgumentException when the cursor was not produced by {@link #encode} with as many values
+     */
+    public static String[] decode(String cursor, int parts) {
+        String[] values;
+        try {
+            values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        if (values.length != parts) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return values;
+    }
+
+    public static long decodeLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -3,8 +3,6 @@ package org.grupouno.parking.it4.utils;
 import org.springframework.stereotype.Component;
 
 import java.security.SecureRandom;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Random;
 @Component
 public class Validations {
@@ -17,11 +15,6 @@ public class Validations {
     private Random rand = new Random();
 
 
-    public boolean isValidPassword(String password) {
-        String regex = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[@$!%*?&])[A-Za-z\\d@$!%*?&]{8,}$";
-        return password.matches(regex);
-    }
-
     public String generateVerificationCode() {
         return String.valueOf(rand.nextInt(999999));
     }
@@ -51,78 +44,159 @@ public class Validations {
         return mezcla.toString();
     }
 
-    private static final List<String> validCodes  = Arrays.asList(
-            // Departamento de Guatemala
-            "0101", "0102", "0103", "0104", "0105", "0106", "0107", "0108", "0109", "0110",
-            "0111", "0112", "0113", "0114", "0115", "0116", "0117",
-            // Departamento de El Progreso
-            "0201", "0202", "0203", "0204", "0205", "0206", "0207", "0208",
-            // Departamento de Sacatepéquez
-            "0301", "0302", "0303", "0304", "0305", "0306", "0307", "0308", "0309", "0310",
-            "0311", "0312", "0313", "0314", "0315", "0316",
-            // Departamento de Chimaltenango
-            "0401", "0402", "0403", "0404", "0405", "0406", "0407", "0408", "0409", "0410",
-            "0411", "0412", "0413", "0414", "0415", "0416",
-            // Departamento de Escuintla
-            "0501", "0502", "0503", "0504", "0505", "0506", "0507", "0508", "0509", "0510",
-            "0511", "0512", "0513",
-            // Departamento de Santa Rosa
-            "0601", "0602", "0603", "0604", "0605", "0606", "0607", "0608", "0609", "0610",
-            "0611", "0612", "0613", "0614",
-            // Departamento de Sololá
-            "0701", "0702", "0703", "0704", "0705", "0706", "0707", "0708", "0709", "0710",
-            "0711", "0712", "0713", "0714", "0715", "0716", "0717", "0718", "0719",
-            // Departamento de Totonicapán
-            "0801", "0802", "0803", "0804", "0805", "0806", "0807", "0808",
-            // Departamento de Quetzaltenango
-            "0901", "0902", "0903", "0904", "0905", "0906", "0907", "0908", "0909", "0910",
-            "0911", "0912", "0913", "0914", "0915", "0916", "0917", "0918", "0919", "0920",
-            "0921", "0922", "0923", "0924",
-            // Departamento de Suchitepéquez
-            "1001", "1002", "1003", "1004", "1005", "1006", "1007", "1008", "1009", "1010",
-            "1011", "1012", "1013", "1014", "1015", "1016", "1017", "1018", "1019", "1020",
-            // Departamento de Retalhuleu
-            "1101", "1102", "1103", "1104", "1105", "1106", "1107", "1108", "1109",
-            // Departamento de San Marcos
-            "1201", "1202", "1203", "1204", "1205", "1206", "1207", "1208", "1209", "1210",
-            "1211", "1212", "1213", "1214", "1215", "1216", "1217", "1218", "1219", "1220",
-            "1221", "1222", "1223", "1224", "1225", "1226", "1227", "1228", "1229",
-            // Departamento de Huehuetenango
-            "1301", "1302", "1303", "1304", "1305", "1306", "1307", "1308", "1309", "1310",
-            "1311", "1312", "1313", "1314", "1315", "1316", "1317", "1318", "1319", "1320",
-            "1321", "1322", "1323", "1324", "1325", "1326", "1327", "1328", "1329", "1330",
-            "1331", "1332", "1333", "1334", "1335", "1336",
-            // Departamento de Quiché
-            "1401", "1402", "1403", "1404", "1405", "1406", "1407", "1408", "1409", "1410",
-            "1411", "1412", "1413", "1414", "1415", "1416", "1417", "1418", "1419", "1420",
-            // Departamento de Baja Verapaz
-            "1501", "1502", "1503", "1504", "1505", "1506", "1507", "1508",
-            // Departamento de Alta Verapaz
-            "1601", "1602", "1603", "1604", "1605", "1606", "1607", "1608", "1609", "1610",
-            "1611", "1612", "1613", "1614", "1615", "1616", "1617",
-            // Departamento de Petén
-            "1701", "1702", "1703", "1704", "1705", "1706", "1707", "1708", "1709", "1710",
-            "1711", "1712", "1713", "1714", "1715",
-            // Departamento de Izabal
-            "1801", "1802", "1803", "1804", "1805",
-            // Departamento de Zacapa
-            "1901", "1902", "1903", "1904", "1905", "1906", "1907", "1908", "1909", "1910",
-            // Departamento de Chiquimula
-            "2001", "2002", "2003", "2004", "2005", "2006", "2007", "2008", "2009",
-            // Departamento de Jalapa
-            "2101", "2102", "2103", "2104", "2105", "2106", "2107",
-            // Departamento de Jutiapa
-            "2201", "2202", "2203", "2204", "2205", "2206", "2207", "2208", "2209", "2210",
-            "2211", "2212", "2213", "2214", "2215", "2216", "2217"
-    );
+    private static final int DPI_LENGTH = 13;
+    private static final int MAX_EMAIL_LENGTH = 254;
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final String EMAIL_LOCAL_SPECIALS = "!#$%&'*+/=?^_`{|}~-";
+
+    // Character classes for passwords, indexed by ASCII code, 0 for characters that are not allowed
+    private static final int LOWER = 1;
+    private static final int UPPER = 2;
+    private static final int DIGIT = 4;
+    private static final int SPECIAL = 8;
+    private static final int ALL_CLASSES = LOWER | UPPER | DIGIT | SPECIAL;
+    private static final byte[] PASSWORD_CLASSES = new byte[128];
+    private static final boolean[] EMAIL_LOCAL_CHARS = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            PASSWORD_CLASSES[c] = LOWER;
+            PASSWORD_CLASSES[Character.toUpperCase(c)] = UPPER;
+            EMAIL_LOCAL_CHARS[c] = true;
+            EMAIL_LOCAL_CHARS[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            PASSWORD_CLASSES[c] = DIGIT;
+            EMAIL_LOCAL_CHARS[c] = true;
+        }
+        for (int i = 0; i < SPECIAL_CHARS.length(); i++) {
+            PASSWORD_CLASSES[SPECIAL_CHARS.charAt(i)] = SPECIAL;
+        }
+        for (int i = 0; i < EMAIL_LOCAL_SPECIALS.length(); i++) {
+            EMAIL_LOCAL_CHARS[EMAIL_LOCAL_SPECIALS.charAt(i)] = true;
+        }
+    }
+
+    // Municipalities per department, indexed by the department code in the last four digits of the DPI.
+    // Every department numbers its municipalities from 01 up to this count.
+    private static final byte[] MUNICIPALITIES = {
+            0,
+            17, // Guatemala
+            8,  // El Progreso
+            16, // Sacatepéquez
+            16, // Chimaltenango
+            13, // Escuintla
+            14, // Santa Rosa
+            19, // Sololá
+            8,  // Totonicapán
+            24, // Quetzaltenango
+            20, // Suchitepéquez
+            9,  // Retalhuleu
+            29, // San Marcos
+            36, // Huehuetenango
+            20, // Quiché
+            8,  // Baja Verapaz
+            17, // Alta Verapaz
+            15, // Petén
+            5,  // Izabal
+            10, // Zacapa
+            9,  // Chiquimula
+            7,  // Jalapa
+            17  // Jutiapa
+    };
+
+    /**
+     * Same rule as {@code ^(?=.*[a-z])(?=.*[A-Z])(?=.*\d)(?=.*[@$!%*?&])[A-Za-z\d@$!%*?&]{8,}$}, checked in
+     * one pass over the characters.
+     */
+    public boolean isValidPassword(String password) {
+        if (password == null || password.length() < 8) {
+            return false;
+        }
+        int classes = 0;
+        for (int i = 0; i < password.length(); i++) {
+            char c = password.charAt(i);
+            int charClass = c < 128 ? PASSWORD_CLASSES[c] : 0;
+            if (charClass == 0) {
+                return false;
+            }
+            classes |= charClass;
+        }
+        return classes == ALL_CLASSES;
+    }
 
+    /**
+     * A DPI is 13 digits: an 8 digit sequence, its check digit, then the department and municipality codes.
+     * The check digit is the sum of the sequence digits weighted 2 to 9, modulo 11.
+     */
     public static boolean isValidDpi(String dpi) {
-        if (dpi == null || dpi.length() != 13) {
+        if (dpi == null || dpi.length() != DPI_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < DPI_LENGTH; i++) {
+            char c = dpi.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        int department = (dpi.charAt(9) - '0') * 10 + (dpi.charAt(10) - '0');
+        int municipality = (dpi.charAt(11) - '0') * 10 + (dpi.charAt(12) - '0');
+        if (department < 1 || department >= MUNICIPALITIES.length
+                || municipality < 1 || municipality > MUNICIPALITIES[department]) {
             return false;
         }
-        String dpiSuffix = dpi.substring(dpi.length() - 4);
+        int sum = 0;
+        for (int i = 0; i < 8; i++) {
+            sum += (dpi.charAt(i) - '0') * (i + 2);
+        }
+        return sum % 11 == dpi.charAt(8) - '0';
+    }
 
-        return validCodes.contains(dpiSuffix);
+    /**
+     * Structural check of an address: a single {@code @}, a dot-atom local part of up to 64 characters and a
+     * domain of at least two labels made of letters, digits and inner hyphens.
+     */
+    public static boolean isValidEmail(String email) {
+        if (email == null || email.length() > MAX_EMAIL_LENGTH) {
+            return false;
+        }
+        int at = email.indexOf('@');
+        if (at < 1 || at > MAX_LOCAL_PART_LENGTH || email.indexOf('@', at + 1) >= 0) {
+            return false;
+        }
+        char previous = '.';
+        for (int i = 0; i < at; i++) {
+            char c = email.charAt(i);
+            if (c == '.' ? previous == '.' : c >= 128 || !EMAIL_LOCAL_CHARS[c]) {
+                return false;
+            }
+            previous = c;
+        }
+        if (previous == '.') {
+            return false;
+        }
+        int labels = 1;
+        int labelLength = 0;
+        for (int i = at + 1; i < email.length(); i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                if (labelLength == 0 || previous == '-') {
+                    return false;
+                }
+                labels++;
+                labelLength = 0;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || (c == '-' && labelLength > 0)) {
+                if (++labelLength > MAX_LABEL_LENGTH) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+            previous = c;
+        }
+        return labels >= 2 && labelLength > 0 && previous != '-';
     }
 
 }
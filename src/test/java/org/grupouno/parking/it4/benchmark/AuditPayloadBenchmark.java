@@ -0,0 +1,92 @@
+package org.grupouno.parking.it4.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.grupouno.parking.it4.dto.UserDto;
+import org.grupouno.parking.it4.model.Profile;
+import org.grupouno.parking.it4.model.User;
+import org.grupouno.parking.it4.model.converter.JsonbConverter;
+import org.grupouno.parking.it4.service.AuditPolicy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audit payload cost of one {@code UserService.updateUser} call. {@code eager} is the old path: request map,
+ * {@code convertValue(user, Map.class)} and then the map serialized again by the JSONB converter, on every call.
+ * {@code lazyWritten} is what the writer thread does now for a recorded audit, and {@code lazySkipped} what the
+ * request thread pays when the policy skips the record. Run with {@code -prof gc} to compare bytes per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditPayloadBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper payloadMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private final JsonbConverter jsonbConverter = new JsonbConverter();
+    private AuditPolicy skipPolicy;
+    private User user;
+    private UserDto userDto;
+
+    @Setup
+    public void setUp() {
+        skipPolicy = new AuditPolicy(new SimpleMeterRegistry(), "off", "");
+        Profile profile = new Profile();
+        profile.setProfileId(2L);
+        profile.setDescription("Operador");
+        profile.setStatus(true);
+        user = new User();
+        user.setUserId(1L);
+        user.setName("Ana");
+        user.setSurname("Lopez");
+        user.setAge(30);
+        user.setDpi("1234567890101");
+        user.setEmail("ana.lopez@example.com");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z1pJ7iGm0a1xQF3sZbS8r9m2");
+        user.setStatus(true);
+        user.setIdProfile(profile);
+        userDto = new UserDto();
+        userDto.setName("Ana");
+        userDto.setSurname("Lopez");
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void eager(Blackhole blackhole) {
+        Map<String, Object> request = Map.of("userId", 1L, "userUpdates", userDto);
+        Map<String, Object> response = objectMapper.convertValue(user, Map.class);
+        blackhole.consume(jsonbConverter.convertToDatabaseColumn(request));
+        blackhole.consume(jsonbConverter.convertToDatabaseColumn(response));
+    }
+
+    @Benchmark
+    public void lazyWritten(Blackhole blackhole) throws JsonProcessingException {
+        blackhole.consume(payloadMapper.writeValueAsString(Map.of("userId", 1L, "userUpdates", userDto)));
+        blackhole.consume(payloadMapper.writeValueAsString(user));
+    }
+
+    @Benchmark
+    public boolean lazySkipped() {
+        return skipPolicy.shouldRecord("User", "Update", "Success");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AuditPayloadBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,67 @@
+package org.grupouno.parking.it4.benchmark;
+
+import org.grupouno.parking.it4.service.MailTemplate;
+import org.grupouno.parking.it4.service.MailTemplateRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering the credentials mail body. {@code stringFormat} is the old MailService: String.format over
+ * the whole HTML text block on every send. {@code template} renders the template parsed once at startup.
+ *
+ * Run with {@code mvn test-compile} and then the main method of this class from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MailTemplateBenchmark {
+
+    private static final String EMAIL = "benchmark@example.com";
+    private static final String PASSWORD = "aB3$kd9Q";
+
+    private String formatString;
+    private MailTemplate template;
+    private Map<String, String> values;
+
+    @Setup
+    public void setUp() throws IOException {
+        String source;
+        try (InputStream in = MailTemplateBenchmark.class.getResourceAsStream("/mail-templates/password-and-user.html")) {
+            source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        formatString = source.substring(source.indexOf("\n\n") + 2)
+                .replace("{{email}}", "%s")
+                .replace("{{password}}", "%s");
+        template = new MailTemplateRegistry().get("password-and-user");
+        values = Map.of("email", EMAIL, "password", PASSWORD);
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return String.format(formatString, EMAIL, PASSWORD);
+    }
+
+    @Benchmark
+    public String template() {
+        return template.render(values);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MailTemplateBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
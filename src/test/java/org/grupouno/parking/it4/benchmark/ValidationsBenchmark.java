@@ -0,0 +1,93 @@
+package org.grupouno.parking.it4.benchmark;
+
+import org.grupouno.parking.it4.utils.Validations;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Per-call cost of the signup and import validations. The {@code legacy} benchmarks are the previous
+ * implementations: String.matches on the password regex, a substring plus List.contains over the municipality
+ * codes for the DPI, and contains("@") for emails. {@code passwordPrecompiled} is the same regex compiled once.
+ *
+ * Run with {@code mvn test-compile} and then the main method of this class from the test classpath, with
+ * {@code -prof gc} to see the allocations per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationsBenchmark {
+
+    private static final String PASSWORD_REGEX = "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[@$!%*?&])[A-Za-z\\d@$!%*?&]{8,}$";
+    private static final Pattern PASSWORD_PATTERN = Pattern.compile(PASSWORD_REGEX);
+
+    private final Validations validations = new Validations();
+    private List<String> legacyCodes;
+    private String password = "aB3$kd9Qx7";
+    private String dpi = "1234567891701";
+    private String email = "benchmark.user@example.com";
+
+    @Setup
+    public void setUp() {
+        // 12345678 has check digit 9, so only the department and municipality decide
+        legacyCodes = new ArrayList<>();
+        for (int code = 0; code < 10000; code++) {
+            String suffix = String.format("%04d", code);
+            if (Validations.isValidDpi("123456789" + suffix)) {
+                legacyCodes.add(suffix);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean passwordLegacy() {
+        return password.matches(PASSWORD_REGEX);
+    }
+
+    @Benchmark
+    public boolean passwordPrecompiled() {
+        return PASSWORD_PATTERN.matcher(password).matches();
+    }
+
+    @Benchmark
+    public boolean password() {
+        return validations.isValidPassword(password);
+    }
+
+    @Benchmark
+    public boolean dpiLegacy() {
+        return dpi.length() == 13 && legacyCodes.contains(dpi.substring(dpi.length() - 4));
+    }
+
+    @Benchmark
+    public boolean dpi() {
+        return Validations.isValidDpi(dpi);
+    }
+
+    @Benchmark
+    public boolean emailLegacy() {
+        return email.contains("@");
+    }
+
+    @Benchmark
+    public boolean email() {
+        return Validations.isValidEmail(email);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ValidationsBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
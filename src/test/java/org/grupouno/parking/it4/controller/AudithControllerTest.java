@@ -2,34 +2,49 @@ package org.grupouno.parking.it4.controller;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 import org.grupouno.parking.it4.dto.AudithDTO;
+import org.grupouno.parking.it4.dto.AudithFilterDto;
 import org.grupouno.parking.it4.model.Audith;
+import org.grupouno.parking.it4.service.AudithExportService;
 import org.grupouno.parking.it4.service.AudithService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 class AudithControllerTest {
 
-    @InjectMocks
     private AudithController audithController;
 
     @Mock
     private AudithService audithService;
 
+    @Mock
+    private AudithExportService audithExportService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        audithController = new AudithController(audithService, audithExportService, 600000L);
     }
 
     @Test
@@ -44,14 +59,18 @@ class AudithControllerTest {
         audit.setRequest(Collections.singletonMap("key", "value"));
         audit.setResponse(Collections.singletonMap("key", "value"));
 
-        when(audithService.getAllAudits()).thenReturn(List.of(audit));
+        when(audithService.searchAudits(any(AudithFilterDto.class), isNull(), eq(50)))
+                .thenReturn(new SliceImpl<>(List.of(audit), PageRequest.of(0, 50), true));
 
-        ResponseEntity<List<AudithDTO>> response = audithController.getAllAudits();
+        ResponseEntity<Map<String, Object>> response = audithController.getAllAudits(null, null, null, null, null, null, 50);
 
         assert response.getStatusCode().is2xxSuccessful();
         assert response.getBody() != null;
-        assert response.getBody().size() == 1;
-        assert "TestEntity".equals(response.getBody().get(0).getEntity());
+        List<AudithDTO> audits = (List<AudithDTO>) response.getBody().get("audits");
+        assert audits.size() == 1;
+        assert "TestEntity".equals(audits.get(0).getEntity());
+        assert Boolean.TRUE.equals(response.getBody().get("hasNext"));
+        assert Long.valueOf(1L).equals(response.getBody().get("nextAfterId"));
     }
 
     @Test
@@ -96,13 +115,15 @@ class AudithControllerTest {
         audit.setRequest(Collections.singletonMap("key", "value"));
         audit.setResponse(Collections.singletonMap("key", "value"));
 
-        when(audithService.getAuditsByEntity(anyString())).thenReturn(List.of(audit));
+        when(audithService.getAuditsByEntity(anyString(), isNull(), anyInt()))
+                .thenReturn(new SliceImpl<>(List.of(audit)));
 
-        ResponseEntity<List<AudithDTO>> response = audithController.getAuditsByEntity("TestEntity");
+        ResponseEntity<Map<String, Object>> response = audithController.getAuditsByEntity("TestEntity", null, 50);
 
         assert response.getStatusCode().is2xxSuccessful();
         assert response.getBody() != null;
-        assert response.getBody().size() == 1;
+        assert ((List<?>) response.getBody().get("audits")).size() == 1;
+        assert Boolean.FALSE.equals(response.getBody().get("hasNext"));
     }
 
     @Test
@@ -138,4 +159,37 @@ class AudithControllerTest {
         assert response.getStatusCode().is5xxServerError();
         assert response.getBody().contains("Error al crear la auditoría:");
     }
+
+    @Test
+    void testExportAudits_Csv() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = audithController.exportAudits("csv", "User", null, null, webRequest());
+
+        assert response.getStatusCode().is2xxSuccessful();
+        assert "text/csv".equals(String.valueOf(response.getHeaders().getContentType()));
+        response.getBody().writeTo(new ByteArrayOutputStream());
+        verify(audithExportService).export(any(AudithFilterDto.class), eq(AudithExportService.Format.CSV), any());
+    }
+
+    @Test
+    void testExportAudits_UnknownFormat() {
+        ResponseEntity<StreamingResponseBody> response = audithController.exportAudits("xml", null, null, null, webRequest());
+
+        assert response.getStatusCode().is4xxClientError();
+        verifyNoInteractions(audithExportService);
+    }
+
+    @Test
+    void testExportAudits_SetsItsOwnAsyncTimeout() {
+        ServletWebRequest request = webRequest();
+        AsyncWebRequest asyncWebRequest = mock(AsyncWebRequest.class);
+        WebAsyncUtils.getAsyncManager(request).setAsyncWebRequest(asyncWebRequest);
+
+        audithController.exportAudits("ndjson", null, null, null, request);
+
+        verify(asyncWebRequest).setTimeout(600000L);
+    }
+
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
 }
@@ -7,7 +7,7 @@ import org.grupouno.parking.it4.dto.ResetPasswordDto;
 import org.grupouno.parking.it4.model.User;
 import org.grupouno.parking.it4.security.AuthenticationService;
 import org.grupouno.parking.it4.security.JwtService;
-import org.grupouno.parking.it4.service.MailService;
+import org.grupouno.parking.it4.service.MailOutboxService;
 import org.grupouno.parking.it4.service.UserService;
 import org.grupouno.parking.it4.utils.Validations;
 import org.junit.jupiter.api.BeforeEach;
@@ -34,7 +34,7 @@ class AuthControllerTest {
     private AuthenticationService authenticationService;
 
     @Mock
-    private MailService mailService;
+    private MailOutboxService mailOutboxService;
 
     @Mock
     private UserService userService;
@@ -65,7 +65,7 @@ class AuthControllerTest {
         verify(userService).saveVerificationCode(eq(user), codeCaptor.capture());
         String generatedCode = codeCaptor.getValue();
 
-        verify(mailService).sendVerificationCode(email, generatedCode);
+        verify(mailOutboxService).enqueueVerificationCode(email, generatedCode);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("Email has been send", response.getBody().get("message"));
     }
@@ -77,7 +77,7 @@ class AuthControllerTest {
 
         ResponseEntity<Map<String, String>> response = authController.forgotPassword(email);
 
-        verify(mailService, never()).sendVerificationCode(anyString(), anyString());
+        verify(mailOutboxService, never()).enqueueVerificationCode(anyString(), anyString());
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertEquals("Email not found", response.getBody().get("message"));
     }
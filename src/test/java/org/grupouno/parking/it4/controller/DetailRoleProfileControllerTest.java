@@ -1,5 +1,7 @@
 package org.grupouno.parking.it4.controller;
 
+import org.grupouno.parking.it4.dto.ProfileSummary;
+import org.grupouno.parking.it4.dto.DetailRoleProfileSummary;
 import org.grupouno.parking.it4.model.DetailRoleProfile;
 import org.grupouno.parking.it4.model.Profile;
 import org.grupouno.parking.it4.model.Rol;
@@ -97,10 +99,12 @@ class DetailRoleProfileControllerTest {
 
     @Test
     void testGetAllDetailRoleProfiles() {
-        List<DetailRoleProfile> detailRoleProfiles = Arrays.asList(new DetailRoleProfile(), new DetailRoleProfile());
+        List<DetailRoleProfileSummary> detailRoleProfiles = Arrays.asList(
+                new DetailRoleProfileSummary(1L, "ADMINISTRADOR", true, 1L, "USER", "Users"),
+                new DetailRoleProfileSummary(1L, "ADMINISTRADOR", true, 2L, "PROFILE", "Profiles"));
         when(detailRoleProfileService.getAllDetailRoleProfiles()).thenReturn(detailRoleProfiles);
 
-        List<DetailRoleProfile> result = detailRoleProfileController.getAllDetailRoleProfiles();
+        List<DetailRoleProfileSummary> result = detailRoleProfileController.getAllDetailRoleProfiles();
 
         assertEquals(detailRoleProfiles.size(), result.size());
         verify(detailRoleProfileService).getAllDetailRoleProfiles();
@@ -123,11 +127,12 @@ class DetailRoleProfileControllerTest {
     @Test
     void testGetProfilesByRoleId() {
         long roleId = 2L;
-        List<Profile> profiles = Arrays.asList(new Profile(), new Profile());
+        List<ProfileSummary> profiles = Arrays.asList(new ProfileSummary(1L, "ADMINISTRADOR", true),
+                new ProfileSummary(2L, "USUARIO", true));
 
         when(detailRoleProfileService.getProfilesByRoleId(roleId)).thenReturn(profiles);
 
-        ResponseEntity<List<Profile>> response = detailRoleProfileController.getProfilesByRoleId(roleId);
+        ResponseEntity<List<ProfileSummary>> response = detailRoleProfileController.getProfilesByRoleId(roleId);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(profiles, response.getBody());
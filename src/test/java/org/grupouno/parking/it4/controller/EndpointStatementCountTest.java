@@ -0,0 +1,209 @@
+package org.grupouno.parking.it4.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.grupouno.parking.it4.service.ProfileRoleSnapshot;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * JDBC statements Hibernate prepares for each endpoint, counted on a real database. A change in a count means a fetch
+ * plan changed: an association became eager again or a page started loading rows one by one. Audits are turned off
+ * so only the reads and writes of the endpoint itself are counted. H2 has no {@code pg_trgm}; a plain Java function
+ * stands in for {@code word_similarity} under the same name.
+ */
+@SpringBootTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:endpoints;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "audit.policy.default=off",
+        "mail.outbox.enabled=false",
+        "verification.code.store=memory",
+        "security.password.bcrypt.strength=4",
+        "security.rate-limit.enabled=false"})
+@AutoConfigureMockMvc
+@WithMockUser(roles = {"USER", "PROFILE", "DETAILROLEPROFILE"})
+class EndpointStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProfileRoleSnapshot profileRoleSnapshot;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS word_similarity FOR \"" + Trigram.class.getName() + ".wordSimilarity\"");
+        jdbcTemplate.update("INSERT INTO profile (profile_id, description, status) VALUES (1, 'Admin', true), (2, 'Guard', true)");
+        jdbcTemplate.update("INSERT INTO role (role_id, role, description) VALUES (1, 'USER', 'Users'), (2, 'PROFILE', 'Profiles')");
+        insertUser(1, "ana@example.com", 1);
+        insertUser(2, "luis@example.com", 2);
+        insertUser(3, "eva@example.com", 2);
+        jdbcTemplate.update("INSERT INTO detail_role_profile (profile_id, role_id) VALUES (1, 1), (1, 2), (2, 1)");
+        profileRoleSnapshot.refresh();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM detail_role_profile");
+        jdbcTemplate.update("DELETE FROM \"user\"");
+        jdbcTemplate.update("DELETE FROM role");
+        jdbcTemplate.update("DELETE FROM profile");
+    }
+
+    @Test
+    void listingUsersIsOneSelectAndOneCount() throws Exception {
+        perform(get("/users").param("size", "3"), 2)
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.users[*].idProfile.description").value(contains("Admin", "Guard", "Guard")));
+    }
+
+    @Test
+    void filteringUsersByEmailIsOneSelectAndOneCount() throws Exception {
+        perform(get("/users").param("size", "3").param("email", "example"), 2)
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.users[2].idProfile.description").value("Guard"));
+    }
+
+    @Test
+    void searchingUsersIsOneSelectAndOneCount() throws Exception {
+        perform(get("/users/search").param("q", "example").param("size", "2"), 2)
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.users[*].email").value(contains("ana@example.com", "luis@example.com")));
+    }
+
+    @Test
+    void searchingByNameFindsUsersWithoutSurname() throws Exception {
+        // Nullable in the changelog, only the entity declares it required
+        jdbcTemplate.execute("ALTER TABLE \"user\" ALTER COLUMN surname SET NULL");
+        jdbcTemplate.update("UPDATE \"user\" SET name = 'Rosa', surname = NULL WHERE user_id = 3");
+
+        perform(get("/users/search").param("q", "rosa"), 1)
+                .andExpect(jsonPath("$.users[*].email").value(contains("eva@example.com")));
+    }
+
+    @Test
+    void cursorPageOfUsersIsOneSelect() throws Exception {
+        perform(get("/users/cursor").param("size", "2"), 1)
+                .andExpect(jsonPath("$.users[*].email").value(contains("ana@example.com", "eva@example.com")))
+                .andExpect(jsonPath("$.nextCursor").value(notNullValue()));
+    }
+
+    @Test
+    void findingAUserByIdLoadsTheProfileInTheSameSelect() throws Exception {
+        perform(get("/users/2"), 1)
+                .andExpect(jsonPath("$.message.email").value("luis@example.com"))
+                .andExpect(jsonPath("$.message.idProfile.description").value("Guard"));
+    }
+
+    @Test
+    void findingAUserByEmailIsOneSelect() throws Exception {
+        perform(get("/users/find/eva@example.com"), 1)
+                .andExpect(jsonPath("$.user.idProfile.description").value("Guard"));
+    }
+
+    @Test
+    void loginLoadsTheUserAndProfileInOneSelect() throws Exception {
+        perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"ana@example.com\",\"password\":\"secret\"}"), 1)
+                .andExpect(jsonPath("$.token").value(notNullValue()));
+    }
+
+    @Test
+    void listingProfilesForUsersIsOneSelect() throws Exception {
+        perform(get("/users/profiles"), 1)
+                .andExpect(jsonPath("$.message[*].description").value(contains("Admin", "Guard")));
+    }
+
+    @Test
+    void filteringProfilesByDescriptionIsOneSelectAndOneCount() throws Exception {
+        perform(get("/profiles").param("size", "2").param("description", "a"), 2)
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    void listingDetailRoleProfilesIsOneSelect() throws Exception {
+        perform(get("/detailsRoleProfile"), 1)
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[1].role.role").value("PROFILE"));
+    }
+
+    @Test
+    void profilesOfARoleIsOneSelect() throws Exception {
+        perform(get("/detailsRoleProfile/role/2/profiles"), 1)
+                .andExpect(jsonPath("$[*].description").value(contains("Admin")));
+    }
+
+    @Test
+    void rolesOfAProfileAreServedFromTheSnapshot() throws Exception {
+        perform(get("/detailsRoleProfile/profile/1/roles"), 0)
+                .andExpect(jsonPath("$[*].role").value(contains("USER", "PROFILE")));
+    }
+
+    @Test
+    void clearingTheRolesOfAProfileDoesNotLoadProfilesOrRoles() throws Exception {
+        // one select and a delete per row, the token version bump and the snapshot refresh after commit
+        perform(put("/detailsRoleProfile/profile/1/roles").contentType(MediaType.APPLICATION_JSON).content("[]"), 6);
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM detail_role_profile WHERE profile_id = 1", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM detail_role_profile", Integer.class));
+    }
+
+    private ResultActions perform(MockHttpServletRequestBuilder request, long expectedStatements) throws Exception {
+        statistics.clear();
+        ResultActions result = mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+        assertEquals(expectedStatements, statistics.getPrepareStatementCount(),
+                () -> String.join("\n", statistics.getQueries()));
+        return result;
+    }
+
+    private void insertUser(long id, String email, long profileId) {
+        jdbcTemplate.update("INSERT INTO \"user\" (user_id, name, surname, age, dpi, email, password, status, profile_id, token_version) "
+                        + "VALUES (?, 'User', 'Test', 30, ?, ?, ?, true, ?, 0)",
+                id, "12345678" + id + "0101", email, new BCryptPasswordEncoder(4).encode("secret"), profileId);
+    }
+
+    public static class Trigram {
+
+        public static double wordSimilarity(String term, String text) {
+            return text != null && text.contains(term) ? 1 : 0;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.grupouno.parking.it4.controller;
 
+import org.grupouno.parking.it4.dto.ProfileSummary;
 import jakarta.persistence.EntityNotFoundException;
 import org.grupouno.parking.it4.dto.ProfileDto;
 import org.grupouno.parking.it4.exceptions.UserDeletionException;
@@ -12,6 +13,8 @@ import org.mockito.Mock;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -36,7 +39,7 @@ class ProfileControllerTest {
 
     @Test
     void testListProfilesSuccess() {
-        Page<Profile> profilePage = new PageImpl<>(Collections.singletonList(new Profile()));
+        Page<ProfileSummary> profilePage = new PageImpl<>(Collections.singletonList(new ProfileSummary(1L, "ADMINISTRADOR", true)));
         when(profileService.getAllProfiles(anyInt(), anyInt(), anyString())).thenReturn(profilePage);
 
         ResponseEntity<Map<String, Object>> response = profileController.listProfiles(0, 10, "test");
@@ -55,6 +58,32 @@ class ProfileControllerTest {
         assertEquals("Error fetching profiles", response.getBody().get("Message"));
     }
 
+    @Test
+    void testListProfilesAfterReturnsTheNextCursor() {
+        ProfileSummary last = new ProfileSummary(8L, "USUARIO", true);
+        Slice<ProfileSummary> slice = new SliceImpl<>(List.of(new ProfileSummary(7L, "ADMINISTRADOR", true), last),
+                PageRequest.of(0, 2), true);
+        when(profileService.getProfilesAfter(null, 2)).thenReturn(slice);
+        when(profileService.estimateProfileCount()).thenReturn(40L);
+
+        ResponseEntity<Map<String, Object>> response = profileController.listProfilesAfter(null, 2, true);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(true, response.getBody().get("hasNext"));
+        assertEquals(ProfileService.cursorOf(last), response.getBody().get("nextCursor"));
+        assertEquals(40L, response.getBody().get("approximateTotal"));
+    }
+
+    @Test
+    void testListProfilesAfterInvalidCursor() {
+        when(profileService.getProfilesAfter("bad", 10)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        ResponseEntity<Map<String, Object>> response = profileController.listProfilesAfter("bad", 10, false);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(profileService, never()).estimateProfileCount();
+    }
+
     @Test
     void testSaveProfileWithRolesSuccess() {
         Profile profile = new Profile();
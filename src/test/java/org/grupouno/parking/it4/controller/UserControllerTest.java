@@ -1,7 +1,9 @@
 package org.grupouno.parking.it4.controller;
 
+import org.grupouno.parking.it4.dto.UserSummary;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -13,6 +15,8 @@ import org.grupouno.parking.it4.model.Profile;
 import org.grupouno.parking.it4.model.User;
 import org.grupouno.parking.it4.service.UserService;
 import org.grupouno.parking.it4.service.ProfileService;
+import org.grupouno.parking.it4.service.UserImportService;
+import org.grupouno.parking.it4.dto.UserImportReport;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -27,6 +31,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 
 import java.util.*;
 
@@ -38,6 +44,9 @@ public class UserControllerTest {
     @Mock
     private ProfileService profileService;
 
+    @Mock
+    private UserImportService userImportService;
+
 
 
     @Mock
@@ -58,6 +67,36 @@ public class UserControllerTest {
         SecurityContextHolder.setContext(securityContext);
     }
 
+    @Test
+    public void importUsers_returnsTheReport() throws Exception {
+        UserImportReport report = new UserImportReport();
+        report.rowRead();
+        report.rowRead();
+        report.created(1);
+        report.reject(3, "bad-email", "Email is not valid");
+        when(userImportService.importUsers(any(), eq("text/csv"))).thenReturn(report);
+
+        mockMvc.perform(post("/users/import")
+                        .contentType("text/csv")
+                        .content("name,surname,dpi,email,profileId\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.rejected[0].line").value(3))
+                .andExpect(jsonPath("$.rejected[0].message").value("Email is not valid"));
+    }
+
+    @Test
+    public void importUsers_badHeader_returnsBadRequest() throws Exception {
+        when(userImportService.importUsers(any(), any())).thenThrow(new IllegalArgumentException("CSV header must contain the columns"));
+
+        mockMvc.perform(post("/users/import")
+                        .contentType("text/csv")
+                        .content("name\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("CSV header must contain the columns"));
+    }
+
     @Test
     public void testChangePassword() throws Exception {
         ChangePasswordDto passwordDto = new ChangePasswordDto();
@@ -153,16 +192,53 @@ public class UserControllerTest {
         verify(userService, times(1)).delete(1L);
     }
 
+    @Test
+    public void getUsersAfter_returnsTheNextCursor() throws Exception {
+        UserSummary last = new UserSummary(4L, "Zoe", "Ruiz", 30, "1234567890101", "zoe@example.com", true, null, null, null);
+        when(userService.getUsersAfter(null, 1)).thenReturn(new SliceImpl<>(List.of(last), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get("/users/cursor").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.nextCursor").value(UserService.cursorOf(last)))
+                .andExpect(jsonPath("$.approximateTotal").doesNotExist());
+        verify(userService, never()).estimateUserCount();
+    }
+
+    @Test
+    public void searchUsers_returnsTheMatches() throws Exception {
+        Page<UserSummary> userPage = new PageImpl<>(Collections.singletonList(
+                new UserSummary(1L, "Ana", "López", 30, "1234567890101", "ana@example.com", true, null, null, null)));
+        when(userService.searchUsers("ana", 0, 10)).thenReturn(userPage);
+
+        mockMvc.perform(get("/users/search").param("q", "ana"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1));
+    }
+
+    @Test
+    public void searchUsers_shortTerm_returnsBadRequest() throws Exception {
+        when(userService.searchUsers("a", 0, 10)).thenThrow(new IllegalArgumentException("Search text must have between 3 and 100 characters"));
+
+        mockMvc.perform(get("/users/search").param("q", "a"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Search text must have between 3 and 100 characters"));
+    }
+
     @Test
     public void testGetAllUsers_Success() throws Exception {
-        Page<User> userPage = new PageImpl<>(Collections.singletonList(new User()));
+        Page<UserSummary> userPage = new PageImpl<>(Collections.singletonList(
+                new UserSummary(1L, "Ana", "López", 30, "1234567890101", "ana@example.com", true, 2L, "USUARIO", true)));
         when(userService.getAllUsers(0, 10, null)).thenReturn(userPage);
 
         mockMvc.perform(get("/users")
                         .param("page", "0")
                         .param("size", "10"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.message").value("Users retrieved successfully"));
+                .andExpect(jsonPath("$.message").value("Users retrieved successfully"))
+                .andExpect(jsonPath("$.users[0].email").value("ana@example.com"))
+                .andExpect(jsonPath("$.users[0].idProfile.description").value("USUARIO"))
+                .andExpect(jsonPath("$.users[0].password").doesNotExist());
 
         verify(userService, times(1)).getAllUsers(0, 10, null);
     }
@@ -315,14 +391,13 @@ public class UserControllerTest {
     @Test
     void findByEmail_success() {
         String email = "test@example.com";
-        User user = new User(); // Asegúrate de tener un constructor adecuado o usar un builder
-        user.setEmail(email); // Configura los atributos que necesitas
+        UserSummary user = new UserSummary(1L, "Ana", "López", 30, "1234567890101", email, true, null, null, null);
 
         Map<String, Object> expectedResponse = new HashMap<>();
         expectedResponse.put("MESSAGE", "User found");
         expectedResponse.put("user", user);
 
-        when(userService.findByEmail(email)).thenReturn(Optional.of(user));
+        when(userService.findSummaryByEmail(email)).thenReturn(Optional.of(user));
 
         ResponseEntity<Map<String, Object>> response = userController.findByEmail(email);
 
@@ -334,7 +409,7 @@ public class UserControllerTest {
     void findByEmail_userNotFound() {
         String email = "test@example.com";
 
-        when(userService.findByEmail(email)).thenReturn(Optional.empty());
+        when(userService.findSummaryByEmail(email)).thenReturn(Optional.empty());
 
         Map<String, Object> expectedResponse = new HashMap<>();
         expectedResponse.put("MESSAGE", "User found");
@@ -361,7 +436,7 @@ public class UserControllerTest {
     @Test
     void findByEmail_internalServerError() {
         String email = "test@example.com";
-        when(userService.findByEmail(email)).thenThrow(new RuntimeException("Database error"));
+        when(userService.findSummaryByEmail(email)).thenThrow(new RuntimeException("Database error"));
 
         Map<String, Object> expectedResponse = new HashMap<>();
         expectedResponse.put("MESSAGE", "ERROR");
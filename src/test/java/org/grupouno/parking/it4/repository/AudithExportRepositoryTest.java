@@ -0,0 +1,83 @@
+package org.grupouno.parking.it4.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.grupouno.parking.it4.model.Audith;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.grupouno.parking.it4.repository.AudithSpecifications.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:audith-export;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AudithExportRepositoryTest {
+
+    @Autowired
+    private AudithRepository audithRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        audithRepository.save(audit("User", LocalDateTime.of(2024, 9, 1, 10, 0)));
+        audithRepository.save(audit("Profile", LocalDateTime.of(2024, 9, 2, 10, 0)));
+        audithRepository.save(audit("User", LocalDateTime.of(2024, 10, 1, 10, 0)));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void absentFiltersAddNoPredicate() {
+        List<String> entities = export(Specification.where(entityIs(null)).and(startedFrom(null)).and(startedBefore(null)))
+                .stream().map(Audith::getEntity).toList();
+
+        assertEquals(List.of("User", "Profile", "User"), entities);
+        assertFalse(String.join("\n", statistics.getQueries()).contains(" where "));
+    }
+
+    @Test
+    void presentFiltersAreApplied() {
+        List<Audith> audits = export(Specification.where(entityIs(" user "))
+                .and(startedFrom(LocalDateTime.of(2024, 9, 1, 0, 0)))
+                .and(startedBefore(LocalDateTime.of(2024, 10, 1, 0, 0))));
+
+        assertEquals(1, audits.size());
+        assertEquals(LocalDateTime.of(2024, 9, 1, 10, 0), audits.get(0).getStartDate());
+        assertFalse(String.join("\n", statistics.getQueries()).contains("is null"));
+    }
+
+    private List<Audith> export(Specification<Audith> specification) {
+        try (Stream<Audith> audits = audithRepository.streamForExport(specification)) {
+            return audits.toList();
+        }
+    }
+
+    private static Audith audit(String entity, LocalDateTime startDate) {
+        Audith audit = new Audith();
+        audit.setEntity(entity);
+        audit.setStartDate(startDate);
+        audit.setOperation("GET");
+        return audit;
+    }
+}
@@ -0,0 +1,113 @@
+package org.grupouno.parking.it4.repository;
+
+import jakarta.persistence.EntityManager;
+import org.grupouno.parking.it4.model.Audith;
+import org.grupouno.parking.it4.model.DetailRoleProfile;
+import org.grupouno.parking.it4.model.MailOutbox;
+import org.grupouno.parking.it4.model.Profile;
+import org.grupouno.parking.it4.model.Rol;
+import org.grupouno.parking.it4.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+/**
+ * Builds every repository the way the application context does, so a query that Spring Data or Hibernate rejects
+ * fails here instead of at startup. Nothing is executed, no database is needed.
+ */
+class RepositoryQueriesTest {
+
+    private static StandardServiceRegistry registry;
+    private static SessionFactory sessionFactory;
+    private static EntityManager entityManager;
+
+    @BeforeAll
+    static void setUp() {
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .applySetting("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .applySetting("hibernate.connection.provider_class", new NoConnectionProvider())
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Profile.class)
+                .addAnnotatedClass(Rol.class)
+                .addAnnotatedClass(DetailRoleProfile.class)
+                .addAnnotatedClass(Audith.class)
+                .addAnnotatedClass(MailOutbox.class)
+                .buildMetadata()
+                .buildSessionFactory();
+        entityManager = sessionFactory.createEntityManager();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        entityManager.close();
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Test
+    void userRepositoryQueriesAreValid() {
+        assertCreated(UserRepository.class);
+    }
+
+    @Test
+    void profileRepositoryQueriesAreValid() {
+        assertCreated(ProfileRepository.class);
+    }
+
+    @Test
+    void otherRepositoryQueriesAreValid() {
+        assertCreated(RoleRepository.class);
+        assertCreated(DetailRoleProfileRepository.class);
+        assertDoesNotThrow(() -> new JpaRepositoryFactory(entityManager).getRepository(AudithRepository.class,
+                RepositoryFragments.just(new AudithExportRepositoryImpl(entityManager))), "AudithRepository");
+        assertCreated(MailOutboxRepository.class);
+    }
+
+    private static void assertCreated(Class<?> repository) {
+        assertDoesNotThrow(() -> new JpaRepositoryFactory(entityManager).getRepository(repository),
+                repository.getSimpleName());
+    }
+
+    private static class NoConnectionProvider implements ConnectionProvider {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            throw new SQLException("No database in this test");
+        }
+
+        @Override
+        public void closeConnection(Connection connection) {
+            // never handed out
+        }
+
+        @Override
+        public boolean supportsAggressiveRelease() {
+            return false;
+        }
+
+        @Override
+        public boolean isUnwrappableAs(Class<?> unwrapType) {
+            return false;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> unwrapType) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.grupouno.parking.it4.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthRateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AuthRateLimitFilter filter(int ipCapacity, int emailCapacity, int globalCapacity) {
+        return new AuthRateLimitFilter(new ObjectMapper(), meterRegistry, true, 100,
+                ipCapacity, 1, emailCapacity, 1, globalCapacity, 1);
+    }
+
+    private static MockHttpServletRequest login(String ip, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"secret\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static MockHttpServletResponse run(AuthRateLimitFilter filter, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    void rejectsAnIpOverItsCapacityWith429AndRetryAfter() throws Exception {
+        AuthRateLimitFilter filter = filter(2, 10, 10);
+
+        assertEquals(200, run(filter, login("10.0.0.1", "a@example.com")).getStatus());
+        assertEquals(200, run(filter, login("10.0.0.1", "b@example.com")).getStatus());
+        MockHttpServletResponse rejected = run(filter, login("10.0.0.1", "c@example.com"));
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("60", rejected.getHeader("Retry-After"));
+        assertEquals(200, run(filter, login("10.0.0.2", "c@example.com")).getStatus());
+        assertEquals(1.0, meterRegistry.get("security.ratelimit.rejected").tag("scope", "ip").counter().count());
+        assertEquals(3.0, meterRegistry.get("security.ratelimit.allowed").counter().count());
+    }
+
+    @Test
+    void limitsAnEmailAcrossIpsIgnoringCase() throws Exception {
+        AuthRateLimitFilter filter = filter(10, 1, 10);
+
+        assertEquals(200, run(filter, login("10.0.0.1", "user@example.com")).getStatus());
+        assertEquals(429, run(filter, login("10.0.0.2", "USER@example.com")).getStatus());
+        assertEquals(1.0, meterRegistry.get("security.ratelimit.rejected").tag("scope", "email").counter().count());
+    }
+
+    @Test
+    void forgotPasswordIsLimitedByThePathEmail() throws Exception {
+        AuthRateLimitFilter filter = filter(10, 1, 10);
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/auth/forgot-password/user@example.com");
+        MockHttpServletRequest second = new MockHttpServletRequest("POST", "/auth/forgot-password/user@example.com");
+
+        assertEquals(200, run(filter, first).getStatus());
+        assertEquals(429, run(filter, second).getStatus());
+    }
+
+    @Test
+    void globalCeilingAppliesToEveryClient() throws Exception {
+        AuthRateLimitFilter filter = filter(10, 10, 2);
+
+        run(filter, login("10.0.0.1", "a@example.com"));
+        run(filter, login("10.0.0.2", "b@example.com"));
+
+        assertEquals(429, run(filter, login("10.0.0.3", "c@example.com")).getStatus());
+        assertEquals(1.0, meterRegistry.get("security.ratelimit.rejected").tag("scope", "global").counter().count());
+    }
+
+    @Test
+    void bodyIsStillReadableDownstream() throws Exception {
+        AuthRateLimitFilter filter = filter(10, 10, 10);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(login("10.0.0.1", "a@example.com"), new MockHttpServletResponse(), chain);
+
+        String body = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals("{\"email\":\"a@example.com\",\"password\":\"secret\"}", body);
+    }
+
+    @Test
+    void otherEndpointsAreNotLimited() throws Exception {
+        AuthRateLimitFilter filter = filter(1, 1, 1);
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/signup");
+            assertEquals(200, run(filter, request).getStatus());
+        }
+        assertEquals(0, filter.bucketCount());
+    }
+
+    @Test
+    void idleBucketsAreEvicted() throws Exception {
+        AuthRateLimitFilter filter = filter(10, 10, 10);
+        run(filter, login("10.0.0.1", "a@example.com"));
+        assertEquals(2, filter.bucketCount());
+
+        filter.evictIdleBuckets(System.nanoTime() + 120_000_000_000L);
+
+        assertEquals(0, filter.bucketCount());
+        assertEquals(3.0, meterRegistry.get("security.ratelimit.evicted").counter().count());
+    }
+}
@@ -0,0 +1,149 @@
+package org.grupouno.parking.it4.security;
+
+import org.grupouno.parking.it4.dto.LoginUserDto;
+import org.grupouno.parking.it4.dto.RegisterUserDto;
+import org.grupouno.parking.it4.exceptions.DuplicateUserException;
+import org.grupouno.parking.it4.model.Profile;
+import org.grupouno.parking.it4.model.User;
+import org.grupouno.parking.it4.repository.ProfileRepository;
+import org.grupouno.parking.it4.repository.UserRepository;
+import org.grupouno.parking.it4.service.MailOutboxService;
+import org.grupouno.parking.it4.service.RoleService;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AuthenticationServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private AuthenticationManager authenticationManager;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private RoleService roleService;
+    @Mock
+    private ProfileRepository profileRepository;
+    @Mock
+    private MailOutboxService mailOutboxService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private AuthenticationService authenticationService;
+
+    private User user;
+    private LoginUserDto input;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        user = new User();
+        user.setUserId(7L);
+        user.setEmail("user@example.com");
+        user.setPassword("$2a$10$oldhash");
+        input = new LoginUserDto();
+        input.setEmail("user@example.com");
+        input.setPassword("secret");
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(new UsernamePasswordAuthenticationToken(user, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticateRehashesWhenTheCostChanged() {
+        when(passwordEncoder.upgradeEncoding("$2a$10$oldhash")).thenReturn(true);
+        when(passwordEncoder.encode("secret")).thenReturn("$2a$12$newhash");
+        when(userRepository.replacePasswordHash(7L, "$2a$10$oldhash", "$2a$12$newhash")).thenReturn(1);
+
+        User result = authenticationService.authenticate(input);
+
+        assertEquals("$2a$12$newhash", result.getPassword());
+        verify(userRepository).replacePasswordHash(7L, "$2a$10$oldhash", "$2a$12$newhash");
+    }
+
+    @Test
+    void authenticateKeepsTheHashWhenTheCostIsCurrent() {
+        when(passwordEncoder.upgradeEncoding("$2a$10$oldhash")).thenReturn(false);
+
+        authenticationService.authenticate(input);
+
+        verify(passwordEncoder, never()).encode(any());
+        verify(userRepository, never()).replacePasswordHash(anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    void authenticateSucceedsWhenTheRehashFails() {
+        when(passwordEncoder.upgradeEncoding("$2a$10$oldhash")).thenReturn(true);
+        when(passwordEncoder.encode("secret")).thenThrow(new IllegalStateException("pool closed"));
+
+        User result = authenticationService.authenticate(input);
+
+        assertSame(user, result);
+        assertEquals("$2a$10$oldhash", result.getPassword());
+    }
+
+    @Test
+    void signupTranslatesTheUniqueIndexViolation() {
+        givenSignupDependencies();
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate key",
+                new ConstraintViolationException("duplicate key", null, "ux_user_dpi")));
+
+        DuplicateUserException e = assertThrows(DuplicateUserException.class,
+                () -> authenticationService.signup(register("ana@example.com", "1234567890101")));
+
+        assertEquals("You have already a account with this DPI or Email", e.getMessage());
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(userRepository, never()).findByDPI(anyString());
+        verifyNoInteractions(mailOutboxService);
+    }
+
+    @Test
+    void signupKeepsOtherIntegrityViolations() {
+        givenSignupDependencies();
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("not null",
+                new ConstraintViolationException("not null", null, "user_name_not_null"));
+        when(userRepository.save(any(User.class))).thenThrow(violation);
+
+        RegisterUserDto input = register("ana@example.com", "1234567890101");
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class, () -> authenticationService.signup(input)));
+    }
+
+    private void givenSignupDependencies() {
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed");
+        when(profileRepository.findById(2L)).thenReturn(Optional.of(new Profile()));
+    }
+
+    private static RegisterUserDto register(String email, String dpi) {
+        RegisterUserDto input = new RegisterUserDto();
+        input.setName("Ana");
+        input.setSurname("López");
+        input.setAge(30);
+        input.setDpi(dpi);
+        input.setEmail(email);
+        return input;
+    }
+}
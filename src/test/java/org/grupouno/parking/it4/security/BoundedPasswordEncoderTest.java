@@ -0,0 +1,122 @@
+package org.grupouno.parking.it4.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.grupouno.parking.it4.exceptions.PasswordHashingRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.destroy();
+        }
+    }
+
+    @Test
+    void encodeAndMatchesDelegateAndRecordMetrics() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1, meterRegistry);
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+        assertEquals(1, meterRegistry.get("security.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("security.password.hash").tag("operation", "matches").timer().count());
+        assertEquals(3, meterRegistry.get("security.password.queue.wait").timer().count());
+    }
+
+    @Test
+    void encodeAllHashesInParallelInInputOrderWithoutFillingTheQueue() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return "hash-" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        encoder = new BoundedPasswordEncoder(slow, 3, 1, meterRegistry);
+        List<String> passwords = IntStream.range(0, 12).mapToObj(Integer::toString).toList();
+
+        List<String> hashes = encoder.encodeAll(passwords);
+
+        assertEquals(passwords.stream().map(password -> "hash-" + password).toList(), hashes);
+        assertTrue(maxRunning.get() > 1, "hashes should run in parallel");
+        assertTrue(maxRunning.get() <= 3);
+        assertEquals(0.0, meterRegistry.get("security.password.rejected").counter().count());
+    }
+
+    @Test
+    void fullQueueRejectsInsteadOfWaiting() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+        encoder = new BoundedPasswordEncoder(blocking, 1, 1, meterRegistry);
+
+        callers.submit(() -> encoder.encode("running"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> encoder.encode("queued"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("security.password.queue.depth").gauge().value() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.encode("rejected"));
+        assertEquals(1.0, meterRegistry.get("security.password.rejected").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    void delegateExceptionsArePropagated() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 1, meterRegistry);
+
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode(null));
+    }
+}
@@ -0,0 +1,64 @@
+package org.grupouno.parking.it4.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalibratedBCryptPasswordEncoderTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Cost 10 takes 64 ms and each extra round doubles it
+    private final IntToLongFunction doubling = strength -> (64L << (strength - 10)) * MS;
+
+    @Test
+    void calibrateChoosesTheCostClosestToTheTarget() {
+        assertEquals(12, CalibratedBCryptPasswordEncoder.calibrate(250 * MS, 10, 14, doubling).strength());
+        assertEquals(256 * MS, CalibratedBCryptPasswordEncoder.calibrate(250 * MS, 10, 14, doubling).hashNanos());
+        assertEquals(11, CalibratedBCryptPasswordEncoder.calibrate(150 * MS, 10, 14, doubling).strength());
+    }
+
+    @Test
+    void calibrateStaysWithinBounds() {
+        assertEquals(10, CalibratedBCryptPasswordEncoder.calibrate(5 * MS, 10, 14, doubling).strength());
+        assertEquals(14, CalibratedBCryptPasswordEncoder.calibrate(60_000 * MS, 10, 14, doubling).strength());
+        assertThrows(IllegalArgumentException.class,
+                () -> CalibratedBCryptPasswordEncoder.calibrate(250 * MS, 3, 14, doubling));
+        assertThrows(IllegalArgumentException.class,
+                () -> CalibratedBCryptPasswordEncoder.calibrate(250 * MS, 12, 10, doubling));
+    }
+
+    @Test
+    void costOfReadsTheCostFromTheHash() {
+        assertEquals(10, CalibratedBCryptPasswordEncoder.costOf(new BCryptPasswordEncoder(10).encode("secret")));
+        assertEquals(4, CalibratedBCryptPasswordEncoder.costOf("$2a$04$abcdefghijklmnopqrstuv"));
+        assertEquals(-1, CalibratedBCryptPasswordEncoder.costOf("plain"));
+        assertEquals(-1, CalibratedBCryptPasswordEncoder.costOf(null));
+    }
+
+    @Test
+    void upgradeEncodingWhenTheCostDiffersEitherWay() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5, MS, new SimpleMeterRegistry());
+
+        assertFalse(encoder.upgradeEncoding(encoder.encode("secret")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret")));
+        assertTrue(encoder.matches("secret", new BCryptPasswordEncoder(6).encode("secret")));
+    }
+
+    @Test
+    void createWithFixedStrengthExposesCostAndHashTime() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        CalibratedBCryptPasswordEncoder encoder = CalibratedBCryptPasswordEncoder.create(4, 250, 10, 14, meterRegistry);
+
+        assertEquals(4, encoder.getStrength());
+        assertEquals(4.0, meterRegistry.get("security.password.bcrypt.cost").gauge().value());
+        assertTrue(meterRegistry.get("security.password.bcrypt.hash.time").gauge().value() > 0);
+    }
+}
@@ -0,0 +1,78 @@
+package org.grupouno.parking.it4.security;
+
+import io.jsonwebtoken.Claims;
+import org.grupouno.parking.it4.model.Profile;
+import org.grupouno.parking.it4.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private JwtService jwtService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService("3cfa76ef14937c1c0ea519f8fc057a80fcd04a7420f8e8bcd0a7567c272e007b", 3600000L);
+
+        Profile profile = new Profile();
+        profile.setProfileId(2L);
+        user = new User();
+        user.setUserId(7L);
+        user.setEmail("test@example.com");
+        user.setIdProfile(profile);
+        user.setTokenVersion(3L);
+        user.setAuthorities(List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_AUDITH")));
+    }
+
+    @Test
+    void generateToken_containsUserClaims() {
+        String token = jwtService.generateToken(user);
+
+        Claims claims = jwtService.extractAllClaims(token);
+
+        assertEquals("test@example.com", claims.getSubject());
+        assertEquals(7L, claims.get(JwtService.USER_ID_CLAIM, Long.class));
+        assertEquals(2L, claims.get(JwtService.PROFILE_ID_CLAIM, Long.class));
+        assertEquals(3L, claims.get(JwtService.TOKEN_VERSION_CLAIM, Long.class));
+        assertEquals(List.of("ROLE_USER", "ROLE_AUDITH"), claims.get(JwtService.ROLES_CLAIM, List.class));
+    }
+
+    @Test
+    void toPrincipal_buildsUserFromClaims() {
+        Claims claims = jwtService.extractAllClaims(jwtService.generateToken(user));
+
+        User principal = jwtService.toPrincipal(claims);
+
+        assertEquals(7L, principal.getUserId());
+        assertEquals("test@example.com", principal.getUsername());
+        assertEquals(2L, principal.getIdProfile().getProfileId());
+        assertEquals(3L, principal.getTokenVersion());
+        assertEquals(List.of("ROLE_USER", "ROLE_AUDITH"),
+                principal.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertTrue(jwtService.isTokenValid(jwtService.generateToken(user), principal));
+    }
+
+    @Test
+    void isTokenValid_otherUser_returnsFalse() {
+        Claims claims = jwtService.extractAllClaims(jwtService.generateToken(user));
+        User other = new User();
+        other.setEmail("other@example.com");
+
+        assertFalse(jwtService.isTokenValid(claims, other));
+    }
+
+    @Test
+    void extractAllClaims_tokenSignedWithOtherKey_throwsException() {
+        JwtService otherService = new JwtService("0cfa76ef14937c1c0ea519f8fc057a80fcd04a7420f8e8bcd0a7567c272e007b", 3600000L);
+        String token = otherService.generateToken(user);
+
+        assertThrows(io.jsonwebtoken.security.SignatureException.class, () -> jwtService.extractAllClaims(token));
+    }
+}
@@ -0,0 +1,107 @@
+package org.grupouno.parking.it4.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.grupouno.parking.it4.model.Profile;
+import org.grupouno.parking.it4.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PrincipalCache principalCache;
+    private AtomicInteger loads;
+    private Function<String, UserDetails> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new PrincipalCache(meterRegistry, true, 2, 60);
+        loads = new AtomicInteger();
+        loader = email -> {
+            loads.incrementAndGet();
+            return user(email.length(), email, 1L);
+        };
+    }
+
+    private User user(long id, String email, long profileId) {
+        Profile profile = new Profile();
+        profile.setProfileId(profileId);
+        User user = new User();
+        user.setUserId(id);
+        user.setEmail(email);
+        user.setIdProfile(profile);
+        return user;
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    @Test
+    void getOrLoad_secondCall_servedFromCache() {
+        UserDetails first = principalCache.getOrLoad("a@test.com", loader);
+        UserDetails second = principalCache.getOrLoad("a@test.com", loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, counter("security.principal.cache.hits"));
+        assertEquals(1.0, counter("security.principal.cache.misses"));
+    }
+
+    @Test
+    void getOrLoad_full_evictsEntry() {
+        principalCache.getOrLoad("a@test.com", loader);
+        principalCache.getOrLoad("bb@test.com", loader);
+        principalCache.getOrLoad("ccc@test.com", loader);
+
+        assertEquals(2, principalCache.size());
+        assertEquals(1.0, counter("security.principal.cache.evictions"));
+    }
+
+    @Test
+    void invalidateUser_removesEntry() {
+        principalCache.getOrLoad("a@test.com", loader);
+
+        principalCache.invalidateUser("a@test.com".length());
+        principalCache.getOrLoad("a@test.com", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateProfile_removesOnlyMatchingProfile() {
+        principalCache.getOrLoad("a@test.com", email -> user(1, email, 1L));
+        principalCache.getOrLoad("b@test.com", email -> user(2, email, 2L));
+
+        principalCache.invalidateProfile(1L);
+
+        assertEquals(1, principalCache.size());
+    }
+
+    @Test
+    void getOrLoad_invalidatedDuringLoad_notCached() {
+        principalCache.getOrLoad("a@test.com", email -> {
+            principalCache.invalidateAll();
+            return user(1, email, 1L);
+        });
+
+        assertEquals(0, principalCache.size());
+    }
+
+    @Test
+    void getOrLoad_disabled_alwaysLoads() {
+        PrincipalCache disabled = new PrincipalCache(meterRegistry, false, 10, 60);
+
+        disabled.getOrLoad("a@test.com", loader);
+        disabled.getOrLoad("a@test.com", loader);
+
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,136 @@
+package org.grupouno.parking.it4.security;
+
+import org.grupouno.parking.it4.dto.RegisterUserDto;
+import org.grupouno.parking.it4.exceptions.DuplicateUserException;
+import org.grupouno.parking.it4.model.User;
+import org.grupouno.parking.it4.repository.ProfileRepository;
+import org.grupouno.parking.it4.repository.UserRepository;
+import org.grupouno.parking.it4.service.MailOutboxService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs signup against a real database, so racing signups meet real unique indexes and real constraint errors.
+ * H2 has no expression indexes; a generated column stands in for {@code lower(email)} under the same index name.
+ */
+@DataJpaTest(properties = {
+        "spring.liquibase.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:signup;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SignupUniqueIndexTest {
+
+    private static final String DPI = "1234567890101";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final MailOutboxService mailOutboxService = mock(MailOutboxService.class);
+    private AuthenticationService authenticationService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("ALTER TABLE \"user\" ADD COLUMN IF NOT EXISTS email_lower varchar(255) GENERATED ALWAYS AS (lower(email))");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_user_email_lower ON \"user\" (email_lower)");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS ux_user_dpi ON \"user\" (dpi)");
+        jdbcTemplate.update("INSERT INTO profile (profile_id, description, status) VALUES (2, 'User', true)");
+        authenticationService = new AuthenticationService(userRepository, null, new BCryptPasswordEncoder(4), null,
+                profileRepository, mailOutboxService, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM \"user\"");
+        jdbcTemplate.update("DELETE FROM profile");
+    }
+
+    @Test
+    void concurrentSignupsWithTheSameDataCreateOneUser() throws InterruptedException {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<User>> signups = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String email = i % 2 == 0 ? "ana@example.com" : "ANA@example.com";
+            signups.add(executor.submit(() -> {
+                start.await();
+                return authenticationService.signup(register(email, DPI));
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        int duplicated = 0;
+        for (Future<User> signup : signups) {
+            try {
+                assertNotNull(signup.get());
+                created++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(DuplicateUserException.class, e.getCause());
+                duplicated++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, created);
+        assertEquals(threads - 1, duplicated);
+        assertEquals(1, userRepository.count());
+        verify(mailOutboxService, times(1)).enqueuePasswordAndUser(anyString(), anyString());
+    }
+
+    @Test
+    void emailInAnotherCaseOrTheSameDpiIsRejected() {
+        authenticationService.signup(register("ana@example.com", DPI));
+
+        assertThrows(DuplicateUserException.class,
+                () -> authenticationService.signup(register("Ana@Example.com", "2234567800101")));
+        assertThrows(DuplicateUserException.class,
+                () -> authenticationService.signup(register("other@example.com", DPI)));
+        assertEquals(1, userRepository.count());
+    }
+
+    private static RegisterUserDto register(String email, String dpi) {
+        RegisterUserDto input = new RegisterUserDto();
+        input.setName("Ana");
+        input.setSurname("López");
+        input.setAge(30);
+        input.setDpi(dpi);
+        input.setEmail(email);
+        return input;
+    }
+}
@@ -0,0 +1,47 @@
+package org.grupouno.parking.it4.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsABurstUpToCapacityThenReportsTheWait() {
+        TokenBucket bucket = new TokenBucket(3, 100, 1_000);
+
+        assertEquals(0, bucket.tryAcquire(1_000));
+        assertEquals(0, bucket.tryAcquire(1_000));
+        assertEquals(0, bucket.tryAcquire(1_000));
+        assertEquals(100, bucket.tryAcquire(1_000));
+        assertEquals(40, bucket.tryAcquire(1_060));
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(1, 100, 0);
+
+        assertEquals(0, bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(50) > 0);
+        assertEquals(0, bucket.tryAcquire(100));
+        assertTrue(bucket.tryAcquire(150) > 0);
+    }
+
+    @Test
+    void isIdleOnceFullAgain() {
+        TokenBucket bucket = new TokenBucket(2, 100, 0);
+        assertTrue(bucket.isIdle(0));
+
+        bucket.tryAcquire(0);
+        bucket.tryAcquire(0);
+
+        assertFalse(bucket.isIdle(150));
+        assertTrue(bucket.isIdle(200));
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0, 0));
+    }
+}
@@ -0,0 +1,138 @@
+package org.grupouno.parking.it4.security;
+
+import org.grupouno.parking.it4.model.User;
+import org.grupouno.parking.it4.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenVersionRegistryTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private UserRepository.TokenVersionView view(long userId, long version) {
+        return new UserRepository.TokenVersionView() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Long getTokenVersion() {
+                return version;
+            }
+        };
+    }
+
+    @Test
+    void isCurrent_unknownUser_acceptsAnyVersion() {
+        assertTrue(tokenVersionRegistry.isCurrent(1L, 0L));
+    }
+
+    @Test
+    void load_rejectsOlderTokens() {
+        when(userRepository.findTokenVersions()).thenReturn(List.of(view(1L, 2L)));
+
+        tokenVersionRegistry.load();
+
+        assertFalse(tokenVersionRegistry.isCurrent(1L, 1L));
+        assertTrue(tokenVersionRegistry.isCurrent(1L, 2L));
+    }
+
+    @Test
+    void userChanged_recordsNewVersion() {
+        User user = new User();
+        user.setUserId(5L);
+        user.setTokenVersion(1L);
+
+        tokenVersionRegistry.userChanged(user);
+
+        assertFalse(tokenVersionRegistry.isCurrent(5L, 0L));
+        assertEquals(1L, tokenVersionRegistry.currentVersion(5L));
+    }
+
+    @Test
+    void userDeleted_rejectsEveryToken() {
+        tokenVersionRegistry.userDeleted(5L);
+
+        assertFalse(tokenVersionRegistry.isCurrent(5L, 100L));
+    }
+
+    @Test
+    void profileChanged_incrementsAndReloadsProfileUsers() {
+        when(userRepository.findTokenVersionsByProfileId(2L)).thenReturn(List.of(view(3L, 1L), view(4L, 6L)));
+
+        tokenVersionRegistry.profileChanged(2L);
+
+        verify(userRepository).incrementTokenVersionByProfileId(2L);
+        assertFalse(tokenVersionRegistry.isCurrent(3L, 0L));
+        assertFalse(tokenVersionRegistry.isCurrent(4L, 5L));
+    }
+
+    @Test
+    void roleChanged_incrementsOnlyUsersWhoseProfileHoldsTheRole() {
+        when(userRepository.findTokenVersionsByRoleId(7L)).thenReturn(List.of(view(3L, 2L)));
+
+        tokenVersionRegistry.roleChanged(7L);
+
+        verify(userRepository).incrementTokenVersionByRoleId(7L);
+        verify(userRepository, never()).findTokenVersions();
+        assertFalse(tokenVersionRegistry.isCurrent(3L, 1L));
+        assertTrue(tokenVersionRegistry.isCurrent(4L, 0L));
+    }
+
+    @Test
+    void versionsArePublishedOnlyAfterCommit() {
+        when(userRepository.findTokenVersionsByProfileId(2L)).thenReturn(List.of(view(3L, 1L)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tokenVersionRegistry.profileChanged(2L);
+            tokenVersionRegistry.userDeleted(5L);
+
+            assertTrue(tokenVersionRegistry.isCurrent(3L, 0L));
+            assertTrue(tokenVersionRegistry.isCurrent(5L, 0L));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertFalse(tokenVersionRegistry.isCurrent(3L, 0L));
+            assertFalse(tokenVersionRegistry.isCurrent(5L, 100L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rolledBackChangesAreNotPublished() {
+        User user = new User();
+        user.setUserId(5L);
+        user.setTokenVersion(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tokenVersionRegistry.userChanged(user);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(tokenVersionRegistry.isCurrent(5L, 0L));
+    }
+}
@@ -0,0 +1,67 @@
+package org.grupouno.parking.it4.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuditPolicyTest {
+
+    private AuditPolicy policy(String defaultMode, String rules) {
+        return new AuditPolicy(new SimpleMeterRegistry(), defaultMode, rules);
+    }
+
+    @Test
+    void defaultAppliesWhenNoRuleMatches() {
+        AuditPolicy policy = policy("always", "");
+
+        assertTrue(policy.shouldRecord("User", "Update", "Success"));
+    }
+
+    @Test
+    void offSkipsEverything() {
+        AuditPolicy policy = policy("always", "VerificationCode:CLEAN_UP=off");
+
+        assertFalse(policy.shouldRecord("VerificationCode", "CLEAN_UP", "Success"));
+        assertFalse(policy.shouldRecord("verificationcode", "clean_up", "Failure"));
+        assertTrue(policy.shouldRecord("VerificationCode", "CREATE", "Success"));
+    }
+
+    @Test
+    void failureOnlyRecordsAnythingButSuccess() {
+        AuditPolicy policy = policy("always", "User:LOAD_USER=failure-only");
+
+        assertFalse(policy.shouldRecord("User", "LOAD_USER", "Success"));
+        assertTrue(policy.shouldRecord("User", "LOAD_USER", "Failure"));
+        assertTrue(policy.shouldRecord("User", "LOAD_USER", "Not Found"));
+    }
+
+    @Test
+    void sampleRecordsOneInNSuccessesAndEveryFailure() {
+        AuditPolicy policy = policy("always", "*:Read=sample:10");
+
+        long recorded = IntStream.range(0, 100)
+                .filter(i -> policy.shouldRecord("Profile", "Read", "Success"))
+                .count();
+
+        assertEquals(10, recorded);
+        assertTrue(policy.shouldRecord("Profile", "Read", "Not Found"));
+    }
+
+    @Test
+    void entityRuleWinsOverOperationWildcard() {
+        AuditPolicy policy = policy("always", "*:Read=off, User:*=always");
+
+        assertTrue(policy.shouldRecord("User", "Read", "Success"));
+        assertFalse(policy.shouldRecord("Profile", "Read", "Success"));
+    }
+
+    @Test
+    void invalidRulesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> policy("always", "User=off"));
+        assertThrows(IllegalArgumentException.class, () -> policy("always", "User:Read=sample:0"));
+        assertThrows(IllegalArgumentException.class, () -> policy("sometimes", ""));
+    }
+}
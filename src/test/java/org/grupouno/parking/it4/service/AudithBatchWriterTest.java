@@ -0,0 +1,138 @@
+package org.grupouno.parking.it4.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.grupouno.parking.it4.model.Audith;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AudithBatchWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private AudithBatchWriter writer(int capacity, int batchSize) {
+        return new AudithBatchWriter(jdbcTemplate, new ObjectMapper(), meterRegistry, true, capacity, batchSize, 50, "drop", 10);
+    }
+
+    private Audith audit(String entity) {
+        Audith audit = new Audith();
+        audit.setEntity(entity);
+        audit.setStartDate(LocalDateTime.now());
+        audit.setOperation("Read");
+        audit.setRequest(Map.of("id", 1));
+        return audit;
+    }
+
+    private AudithBatchWriter.PendingAudit pending(Audith audit) {
+        return new AudithBatchWriter.PendingAudit(audit, null, null);
+    }
+
+    @Test
+    void enqueue_queueFull_dropsAndCounts() {
+        AudithBatchWriter writer = writer(2, 10);
+
+        assertTrue(writer.enqueue(audit("A")));
+        assertTrue(writer.enqueue(audit("B")));
+        assertFalse(writer.enqueue(audit("C")));
+
+        assertEquals(2, writer.getQueueDepth());
+        assertEquals(1, writer.getDroppedCount());
+        assertEquals(2.0, meterRegistry.get("audit.writer.queue.depth").gauge().value());
+    }
+
+    @Test
+    void stop_flushesPendingRecordsInBatches() {
+        AudithBatchWriter writer = writer(10, 2);
+        for (int i = 0; i < 5; i++) {
+            writer.enqueue(audit("User"));
+        }
+
+        writer.stop();
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(5.0, meterRegistry.get("audit.writer.written").counter().count());
+        assertEquals(3, meterRegistry.get("audit.writer.flush").timer().count());
+    }
+
+    @Test
+    void start_backgroundWorkerFlushesQueue() throws InterruptedException {
+        AudithBatchWriter writer = writer(10, 10);
+        writer.start();
+        writer.enqueue(audit("User"));
+        writer.enqueue(audit("Role"));
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (meterRegistry.get("audit.writer.written").counter().count() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        writer.stop();
+
+        assertEquals(2.0, meterRegistry.get("audit.writer.written").counter().count());
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    @Test
+    void flush_databaseError_countsFailedRecords() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        AudithBatchWriter writer = writer(10, 10);
+
+        writer.flush(List.of(pending(audit("User")), pending(audit("User"))));
+
+        assertEquals(2.0, meterRegistry.get("audit.writer.failed").counter().count());
+    }
+
+    @Test
+    void constructor_invalidSizes_throwsException() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new AudithBatchWriter(jdbcTemplate, new ObjectMapper(), meterRegistry, true, 0, 10, 50, "drop", 10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_serializesSuppliedPayloadsOnce() throws Exception {
+        AudithBatchWriter writer = writer(10, 10);
+        Audith audit = audit("Role");
+        audit.setRequest(null);
+        Audith payload = new Audith();
+        payload.setEntity("Role");
+        payload.setDescription("admin");
+
+        writer.flush(List.of(new AudithBatchWriter.PendingAudit(audit, payload, new Object())));
+
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter = ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture(), eq(1), setter.capture());
+        PreparedStatement statement = mock(PreparedStatement.class);
+        setter.getValue().setValues(statement, rows.getValue().iterator().next());
+        verify(statement).setString(6, "{\"auditId\":0,\"entity\":\"Role\",\"description\":\"admin\"}");
+        verify(statement).setString(7, null);
+        assertEquals(1.0, meterRegistry.get("audit.writer.written").counter().count());
+    }
+}
@@ -0,0 +1,97 @@
+package org.grupouno.parking.it4.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.grupouno.parking.it4.dto.AudithFilterDto;
+import org.grupouno.parking.it4.model.Audith;
+import org.grupouno.parking.it4.repository.AudithRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AudithExportServiceTest {
+
+    @Mock
+    private AudithRepository audithRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AudithExportService audithExportService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        audithExportService = new AudithExportService(audithRepository, entityManager, transactionManager, new ObjectMapper());
+    }
+
+    private Audith audit(long id, String description) {
+        Audith audit = new Audith();
+        audit.setAuditId(id);
+        audit.setEntity("User");
+        audit.setStartDate(LocalDateTime.of(2024, 9, 1, 10, 30));
+        audit.setDescription(description);
+        audit.setOperation("PATCH");
+        audit.setResult("Success");
+        audit.setRequest(Map.of("email", "a@b.com"));
+        return audit;
+    }
+
+    @Test
+    void exportNdjsonWritesOneLinePerAudit() throws Exception {
+        Audith first = audit(1L, "first");
+        Audith second = audit(2L, "second");
+        when(audithRepository.streamForExport(any())).thenReturn(Stream.of(first, second));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = audithExportService.export(new AudithFilterDto(" User ", null, null, null, null),
+                AudithExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, written);
+        assertEquals(2, lines.length);
+        Map<?, ?> row = new ObjectMapper().readValue(lines[1], Map.class);
+        assertEquals(2, row.get("auditId"));
+        assertEquals("2024-09-01T10:30", row.get("startDate"));
+        assertEquals(Map.of("email", "a@b.com"), row.get("request"));
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void exportCsvQuotesSpecialCharacters() {
+        when(audithRepository.streamForExport(any()))
+                .thenReturn(Stream.of(audit(7L, "said \"hi\", then left")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        audithExportService.export(new AudithFilterDto(), AudithExportService.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("audit_id,entity,start_date,description,operation,result,request,response", lines[0]);
+        assertEquals("7,User,2024-09-01T10:30,\"said \"\"hi\"\", then left\",PATCH,Success,\"{\"\"email\"\":\"\"a@b.com\"\"}\",", lines[1]);
+    }
+
+    @Test
+    void formatFromRejectsUnknownValues() {
+        assertEquals(AudithExportService.Format.CSV, AudithExportService.Format.from("Csv"));
+        assertThrows(IllegalArgumentException.class, () -> AudithExportService.Format.from("xml"));
+    }
+}
@@ -0,0 +1,165 @@
+package org.grupouno.parking.it4.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AudithPartitionMaintenanceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path archiveDir;
+
+    private AudithPartitionMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        maintenance = new AudithPartitionMaintenance(jdbcTemplate, transactionManager, new SimpleMeterRegistry(),
+                true, 2, 12, archiveDir.toString());
+    }
+
+    @Test
+    void createsOnlyMissingFuturePartitions() {
+        maintenance.createPartitions(YearMonth.of(2024, 11), List.of("audith_default", "audith_p202411"));
+
+        verify(jdbcTemplate).execute("CREATE TABLE audith_p202412 PARTITION OF audith FOR VALUES FROM ('2024-12-01') TO ('2025-01-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE audith_p202501 PARTITION OF audith FOR VALUES FROM ('2025-01-01') TO ('2025-02-01')");
+        verify(jdbcTemplate, times(2)).execute(anyString());
+    }
+
+    @Test
+    void expiredPartitionsKeepRetentionWindowAndDefault() {
+        List<String> expired = maintenance.expiredPartitions(
+                List.of("audith_p202311", "audith_default", "audith_p202310", "audith_p202410", "other_p202001"),
+                YearMonth.of(2024, 11));
+
+        assertEquals(List.of("audith_p202310"), expired);
+    }
+
+    @Test
+    void archiveWritesGzipCsvThenDetachesAndDrops() throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong("audit_id")).thenReturn(42L);
+        when(resultSet.getString("entity")).thenReturn("User");
+        when(resultSet.getString("description")).thenReturn("a, b");
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        maintenance.archive("audith_p202310");
+
+        Path file = archiveDir.resolve("audith_p202310.csv.gz");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            String[] lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n");
+            assertEquals("audit_id,entity,start_date,description,operation,result,request,response", lines[0]);
+            assertEquals("42,User,,\"a, b\",,,,", lines[1]);
+        }
+        verify(jdbcTemplate).execute("ALTER TABLE audith DETACH PARTITION audith_p202310");
+        verify(jdbcTemplate).execute("DROP TABLE audith_p202310");
+    }
+
+    @Test
+    void maintainSkipsWhenAnotherInstanceHoldsTheLock() throws Exception {
+        Connection connection = lockConnection(false);
+
+        maintenance.maintain(YearMonth.of(2024, 11));
+
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(connection, times(1)).prepareStatement(anyString());
+    }
+
+    @Test
+    void maintainReleasesTheLockAfterRunning() throws Exception {
+        Connection connection = lockConnection(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("audith_p202411", "audith_p202412", "audith_p202501"));
+
+        maintenance.maintain(YearMonth.of(2024, 11));
+
+        verify(connection).prepareStatement("SELECT pg_try_advisory_lock(?)");
+        verify(connection).prepareStatement("SELECT pg_advisory_unlock(?)");
+    }
+
+    @Test
+    void maintainKeepsExpiredPartitionsWithoutArchiveDir() throws Exception {
+        maintenance = new AudithPartitionMaintenance(jdbcTemplate, transactionManager, new SimpleMeterRegistry(),
+                true, 0, 12, "");
+        lockConnection(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("audith_p202310", "audith_p202411"));
+
+        maintenance.maintain(YearMonth.of(2024, 11));
+
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE"));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+        assertThrows(IllegalStateException.class, () -> maintenance.archive("audith_p202310"));
+    }
+
+    @Test
+    void startupCreatesPartitionsButDoesNotArchiveWhenArchivingIsDisabled() throws Exception {
+        maintenance = new AudithPartitionMaintenance(jdbcTemplate, transactionManager, new SimpleMeterRegistry(),
+                false, 1, 12, archiveDir.toString());
+        lockConnection(true);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("audith_default", "audith_p202310"));
+
+        maintenance.onStartup();
+
+        verify(jdbcTemplate, atLeastOnce()).execute(startsWith("CREATE TABLE audith_p"));
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE"));
+        verify(jdbcTemplate, never()).execute(startsWith("DROP TABLE"));
+        assertFalse(Files.exists(archiveDir.resolve("audith_p202310.csv.gz")));
+    }
+
+    @Test
+    void archiveRejectsOtherTables() {
+        assertThrows(IllegalArgumentException.class, () -> maintenance.archive("user; DROP TABLE audith"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private Connection lockConnection(boolean acquired) throws Exception {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getBoolean(1)).thenReturn(acquired);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        return connection;
+    }
+}
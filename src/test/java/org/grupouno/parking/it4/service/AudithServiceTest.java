@@ -1,6 +1,8 @@
 package org.grupouno.parking.it4.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.grupouno.parking.it4.dto.AudithDTO;
+import org.grupouno.parking.it4.dto.AudithFilterDto;
 import org.grupouno.parking.it4.model.Audith;
 import org.grupouno.parking.it4.repository.AudithRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,10 +10,14 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,6 +27,15 @@ class AudithServiceTest {
     @Mock
     private AudithRepository audithRepository;
 
+    @Mock
+    private AudithBatchWriter audithBatchWriter;
+
+    @Mock
+    private AuditPolicy auditPolicy;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private AudithService audithService;
     private Audith audit;
@@ -44,14 +59,96 @@ class AudithServiceTest {
     }
 
     @Test
-    void getAllAuditsTest() {
+    void createAuditAsyncTest() {
+        when(audithBatchWriter.isEnabled()).thenReturn(true);
+
+        Audith result = audithService.createAudit(
+                "TestEntity", "TestDescription", "TestOperation",
+                new HashMap<>(), new HashMap<>(), "Success");
+
+        assertEquals("TestEntity", result.getEntity());
+        assertNotNull(result.getStartDate());
+        verify(audithBatchWriter, times(1)).enqueue(result);
+        verify(audithRepository, never()).save(any(Audith.class));
+    }
+
+    @Test
+    void recordAuditBuildsPayloadWhenPolicyAllowsTest() {
+        when(auditPolicy.shouldRecord("User", "Read", "Success")).thenReturn(true);
+
+        audithService.recordAudit("User", "Fetching user", "Read",
+                () -> Map.of("id", 1L), () -> Map.of("user", "test"), "Success");
+
+        verify(audithRepository, times(1)).save(argThat(audit ->
+                Map.of("id", 1L).equals(audit.getRequest()) && Map.of("user", "test").equals(audit.getResponse())));
+    }
+
+    @Test
+    void recordAuditSkipsPayloadWhenPolicyDeniesTest() {
+        when(auditPolicy.shouldRecord("User", "Read", "Success")).thenReturn(false);
+
+        audithService.recordAudit("User", "Fetching user", "Read",
+                () -> fail("request payload must not be built"),
+                () -> fail("response payload must not be built"), "Success");
+
+        verify(audithRepository, never()).save(any(Audith.class));
+        verify(audithBatchWriter, never()).enqueue(any(Audith.class));
+    }
+
+    @Test
+    void recordAuditConvertsObjectPayloadToMapTest() {
+        when(auditPolicy.shouldRecord(anyString(), anyString(), anyString())).thenReturn(true);
+        Audith payload = new Audith();
+        payload.setEntity("Role");
+
+        audithService.recordAudit("Role", "Updated role", "UPDATE", () -> payload, null, "Success");
+
+        verify(audithRepository).save(argThat(audit ->
+                "Role".equals(audit.getRequest().get("entity")) && audit.getResponse() == null));
+    }
+
+    @Test
+    void recordAuditBuildsPayloadBeforeHandingItToWriterTest() {
+        when(auditPolicy.shouldRecord(anyString(), anyString(), anyString())).thenReturn(true);
+        when(audithBatchWriter.isEnabled()).thenReturn(true);
+        Map<String, Object> request = Map.of("userId", 1L);
+
+        audithService.recordAudit("User", "Updating user", "Update", () -> request, null, "Success");
+
+        verify(audithBatchWriter).enqueue(any(Audith.class), same(request), isNull());
+        verify(audithRepository, never()).save(any(Audith.class));
+    }
+
+    @Test
+    void searchAuditsHasNextTest() {
+        List<Audith> auditList = Arrays.asList(new Audith(), new Audith(), new Audith());
+        doReturn(auditList).when(audithRepository).findBy(any(Specification.class), any());
+
+        Slice<Audith> result = audithService.searchAudits(new AudithFilterDto(), null, 2);
+
+        assertEquals(2, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+        verify(audithRepository, never()).findAll();
+    }
+
+    @Test
+    void searchAuditsLastPageTest() {
         List<Audith> auditList = Arrays.asList(new Audith(), new Audith());
-        when(audithRepository.findAll()).thenReturn(auditList);
+        doReturn(auditList).when(audithRepository).findBy(any(Specification.class), any());
+
+        Slice<Audith> result = audithService.searchAudits(new AudithFilterDto(), 10L, 5);
+
+        assertEquals(2, result.getNumberOfElements());
+        assertFalse(result.hasNext());
+    }
+
+    @Test
+    void searchAuditsCapsPageSizeTest() {
+        doReturn(List.of()).when(audithRepository).findBy(any(Specification.class), any());
 
-        List<Audith> result = audithService.getAllAudits();
+        Slice<Audith> result = audithService.searchAudits(new AudithFilterDto(), null, 100_000);
 
-        assertEquals(2, result.size());
-        verify(audithRepository, times(1)).findAll();
+        assertEquals(AudithService.MAX_PAGE_SIZE, result.getSize());
     }
 
     @Test
@@ -73,12 +170,13 @@ class AudithServiceTest {
         audit2.setEntity("Entity1");
 
         List<Audith> auditList = Arrays.asList(audit1, audit2);
-        when(audithRepository.findAll()).thenReturn(auditList);
+        doReturn(auditList).when(audithRepository).findBy(any(Specification.class), any());
 
-        List<Audith> result = audithService.getAuditsByEntity("Entity1");
+        Slice<Audith> result = audithService.getAuditsByEntity("Entity1", null, 50);
 
-        assertEquals(2, result.size());
-        verify(audithRepository, times(1)).findAll();
+        assertEquals(2, result.getNumberOfElements());
+        verify(audithRepository, times(1)).findBy(any(Specification.class), any());
+        verify(audithRepository, never()).findAll();
     }
 
 
@@ -1,5 +1,7 @@
 package org.grupouno.parking.it4.service;
 
+import org.grupouno.parking.it4.dto.ProfileSummary;
+import org.grupouno.parking.it4.dto.DetailRoleProfileSummary;
 import org.grupouno.parking.it4.exceptions.CustomDataAccessException;
 import org.grupouno.parking.it4.exceptions.CustomIllegalArgumentException;
 import org.grupouno.parking.it4.model.DetailRoleProfile;
@@ -7,6 +9,8 @@ import org.grupouno.parking.it4.model.DetailDTO;
 import org.grupouno.parking.it4.model.Profile;
 import org.grupouno.parking.it4.model.Rol;
 import org.grupouno.parking.it4.repository.DetailRoleProfileRepository;
+import org.grupouno.parking.it4.security.PrincipalCache;
+import org.grupouno.parking.it4.security.TokenVersionRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -26,6 +30,15 @@ class DetailRoleProfileServiceTest {
     @Mock
     private DetailRoleProfileRepository repository;
 
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Mock
+    private ProfileRoleSnapshot profileRoleSnapshot;
+
     @Mock
     private AudithService audithService;
 
@@ -100,14 +113,14 @@ class DetailRoleProfileServiceTest {
 
     @Test
     void testGetAllDetailRoleProfiles() {
-        when(repository.findAll()).thenReturn(List.of(detailRoleProfile));
+        DetailRoleProfileSummary summary = new DetailRoleProfileSummary(1L, "ADMINISTRADOR", true, 1L, "USER", "Users");
+        when(repository.findAllSummaries()).thenReturn(List.of(summary));
 
-        List<DetailRoleProfile> result = service.getAllDetailRoleProfiles();
+        List<DetailRoleProfileSummary> result = service.getAllDetailRoleProfiles();
 
-        assertNotNull(result);
-        assertFalse(result.isEmpty());
-        assertEquals(1, result.size());
-        verify(repository, times(1)).findAll();
+        assertEquals(List.of(summary), result);
+        assertEquals(1L, result.get(0).id().getIdRole());
+        verify(repository, never()).findAll();
     }
 
     @Test
@@ -121,31 +134,30 @@ class DetailRoleProfileServiceTest {
         service.deleteDetailRoleProfile(profile, role);
 
         verify(repository, times(1)).deleteById(id);
-        verify(audithService, times(1)).createAudit(anyString(), anyString(), anyString(), anyMap(), anyMap(), anyString());
+        verify(audithService, times(1)).recordAudit(anyString(), anyString(), anyString(), any(), any(), anyString());
     }
 
     @Test
     void testGetRolesByProfileId() {
-        when(repository.findByProfile_ProfileId(1L)).thenReturn(List.of(detailRoleProfile));
+        when(profileRoleSnapshot.getRoles(1L)).thenReturn(List.of(role));
 
         List<Rol> result = service.getRolesByProfileId(1L);
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(role, result.get(0));
-        verify(repository, times(1)).findByProfile_ProfileId(1L);
+        verify(repository, never()).findByProfile_ProfileId(1L);
     }
 
     @Test
     void testGetProfilesByRoleId() {
-        when(repository.findByRole_Id(1L)).thenReturn(List.of(detailRoleProfile));
+        ProfileSummary summary = new ProfileSummary(1L, "ADMINISTRADOR", true);
+        when(repository.findProfileSummariesByRoleId(1L)).thenReturn(List.of(summary));
 
-        List<Profile> result = service.getProfilesByRoleId(1L);
+        List<ProfileSummary> result = service.getProfilesByRoleId(1L);
 
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(profile, result.get(0));
-        verify(repository, times(1)).findByRole_Id(1L);
+        assertEquals(List.of(summary), result);
+        verify(repository, never()).findByRole_Id(1L);
     }
 
     @Test
@@ -155,5 +167,6 @@ class DetailRoleProfileServiceTest {
         service.deleteRolesFromProfile(1L);
 
         verify(repository, times(1)).delete(detailRoleProfile);
+        verify(principalCache, times(1)).invalidateProfile(1L);
     }
 }
@@ -0,0 +1,68 @@
+package org.grupouno.parking.it4.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryVerificationCodeStoreTest {
+
+    private final InMemoryVerificationCodeStore store = new InMemoryVerificationCodeStore();
+
+    @AfterEach
+    void tearDown() {
+        store.stop();
+    }
+
+    @Test
+    void expiryThreadRemovesCodesAtTheirDeadline() throws InterruptedException {
+        store.start();
+        store.save("a@example.com", "111111", Instant.now().plusMillis(50));
+        store.save("b@example.com", "222222", Instant.now().plus(Duration.ofMinutes(30)));
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (store.size() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, store.size());
+        assertEquals(VerificationCodeStore.Result.NOT_FOUND, store.check("a@example.com", "111111", Instant.now()));
+        assertEquals(1, store.removeExpired(Instant.now()));
+        assertEquals(0, store.removeExpired(Instant.now()));
+    }
+
+    @Test
+    void reissuedCodeOutlivesTheDeadlineOfTheOneItReplaced() {
+        store.save("a@example.com", "111111", Instant.now().minusSeconds(1));
+        store.save("a@example.com", "222222", Instant.now().plus(Duration.ofMinutes(30)));
+
+        assertEquals(0, store.removeExpired(Instant.now()));
+        assertEquals(VerificationCodeStore.Result.VALID, store.check("a@example.com", "222222", Instant.now()));
+        assertEquals(VerificationCodeStore.Result.INCORRECT, store.check("a@example.com", "111111", Instant.now()));
+    }
+
+    @Test
+    void earliestDeadlineIsRemovedFirstWhateverTheSaveOrder() {
+        store.save("late@example.com", "111111", Instant.now().plus(Duration.ofMinutes(30)));
+        store.save("b@example.com", "222222", Instant.now().minusSeconds(1));
+        store.save("a@example.com", "333333", Instant.now().minusSeconds(2));
+
+        assertEquals(2, store.removeExpired(Instant.now()));
+        assertEquals(1, store.size());
+        assertEquals(VerificationCodeStore.Result.VALID, store.check("late@example.com", "111111", Instant.now()));
+    }
+
+    @Test
+    void sameCodeHashesDifferentlyPerEmail() {
+        store.save("a@example.com", "111111", Instant.now().plus(Duration.ofMinutes(30)));
+
+        assertEquals(VerificationCodeStore.Result.VALID, store.check("a@example.com", "111111", Instant.now()));
+        assertFalse(Arrays.equals(VerificationCodeStore.hash("a@example.com", "111111"),
+                VerificationCodeStore.hash("b@example.com", "111111")));
+        assertEquals(1, store.countLive(Instant.now()));
+    }
+}
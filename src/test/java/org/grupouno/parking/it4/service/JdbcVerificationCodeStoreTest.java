@@ -0,0 +1,98 @@
+package org.grupouno.parking.it4.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JdbcVerificationCodeStoreTest {
+
+    private static final String EMAIL = "test@example.com";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final Instant now = Instant.now();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void saveUpsertsTheHashNotTheCode() {
+        store(0).save(EMAIL, "123456", now);
+
+        ArgumentCaptor<byte[]> hash = ArgumentCaptor.forClass(byte[].class);
+        verify(jdbcTemplate).update(contains("ON CONFLICT (email) DO UPDATE"), eq(EMAIL), hash.capture(), eq(Timestamp.from(now)));
+        assertArrayEquals(VerificationCodeStore.hash(EMAIL, "123456"), hash.getValue());
+        assertFalse(new String(hash.getValue()).contains("123456"));
+    }
+
+    @Test
+    void checkReadsTheSharedTable() throws Exception {
+        givenStoredCode("123456", now.plus(Duration.ofMinutes(5)));
+        JdbcVerificationCodeStore store = store(0);
+
+        assertEquals(VerificationCodeStore.Result.VALID, store.check(EMAIL, "123456", now));
+        assertEquals(VerificationCodeStore.Result.INCORRECT, store.check(EMAIL, "000000", now));
+        assertEquals(VerificationCodeStore.Result.EXPIRED, store.check(EMAIL, "123456", now.plus(Duration.ofMinutes(6))));
+        verify(jdbcTemplate, times(3)).query(anyString(), any(RowMapper.class), eq(EMAIL));
+    }
+
+    @Test
+    void checkWithoutRowIsNotFound() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(EMAIL))).thenReturn(List.of());
+
+        assertEquals(VerificationCodeStore.Result.NOT_FOUND, store(0).check(EMAIL, "123456", now));
+    }
+
+    @Test
+    void nearCacheAnswersMatchingCodesAndFallsBackOnMismatch() throws Exception {
+        JdbcVerificationCodeStore store = store(60_000);
+        store.save(EMAIL, "123456", now.plus(Duration.ofMinutes(5)));
+
+        assertEquals(VerificationCodeStore.Result.VALID, store.check(EMAIL, "123456", now));
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any());
+
+        // Reissued by another replica, the cached hash no longer matches
+        givenStoredCode("654321", now.plus(Duration.ofMinutes(5)));
+        assertEquals(VerificationCodeStore.Result.VALID, store.check(EMAIL, "654321", now));
+        verify(jdbcTemplate).query(anyString(), any(RowMapper.class), eq(EMAIL));
+    }
+
+    @Test
+    void removeExpiredDeletesByExpiry() {
+        when(jdbcTemplate.update(anyString(), any(Timestamp.class))).thenReturn(3);
+
+        assertEquals(3, store(0).removeExpired(now));
+        verify(jdbcTemplate).update("DELETE FROM verification_code WHERE expires_at < ?", Timestamp.from(now));
+    }
+
+    private JdbcVerificationCodeStore store(long nearCacheTtlMs) {
+        return new JdbcVerificationCodeStore(jdbcTemplate, new SimpleMeterRegistry(), nearCacheTtlMs, 100);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenStoredCode(String code, Instant expiresAt) throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getBytes("code_hash")).thenReturn(VerificationCodeStore.hash(EMAIL, code));
+        when(resultSet.getTimestamp("expires_at")).thenReturn(Timestamp.from(expiresAt));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(EMAIL))).thenAnswer(invocation ->
+                List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(resultSet, 0)));
+    }
+}
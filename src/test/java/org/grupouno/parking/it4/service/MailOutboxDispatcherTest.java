@@ -0,0 +1,175 @@
+package org.grupouno.parking.it4.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.grupouno.parking.it4.model.MailOutbox;
+import org.grupouno.parking.it4.repository.MailOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MailOutboxDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final MailPayloadCipher CIPHER = new MailPayloadCipher("MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=", "");
+
+    @Mock
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FakeSmtpServer smtpServer;
+    private MailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        smtpServer = new FakeSmtpServer();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.getPort());
+        dispatcher = new MailOutboxDispatcher(mailOutboxRepository, new MailService(mailSender, new MailTemplateRegistry()), new ObjectMapper(), CIPHER,
+                transactionManager, meterRegistry, false, 2, 10, 1000, MAX_ATTEMPTS, 1000, 60000, 300000, 600000);
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        dispatcher.stop();
+        smtpServer.close();
+    }
+
+    private static MailOutbox mail(long id, int attempts) {
+        MailOutbox mail = new MailOutbox();
+        mail.setMailId(id);
+        mail.setMailType(MailOutbox.Type.VERIFICATION_CODE);
+        mail.setRecipient("user" + id + "@example.com");
+        mail.setPayload(CIPHER.encrypt("{\"code\":\"12345" + id + "\"}"));
+        mail.setStatus(MailOutbox.Status.PENDING);
+        mail.setAttempts(attempts);
+        mail.setNextAttemptAt(LocalDateTime.now());
+        mail.setCreatedAt(LocalDateTime.now());
+        return mail;
+    }
+
+    @Test
+    void dispatchOnceSendsLeasedMailsAndDeletesThem() throws Exception {
+        when(mailOutboxRepository.lockDue(any(), eq(10))).thenReturn(List.of(mail(1, 0), mail(2, 0)));
+
+        assertEquals(2, dispatcher.dispatchOnce());
+
+        verify(mailOutboxRepository).lease(eq(List.of(1L, 2L)), any());
+        verify(mailOutboxRepository).deleteById(1L);
+        verify(mailOutboxRepository).deleteById(2L);
+        assertEquals(2, smtpServer.getMessages().size());
+        assertTrue(smtpServer.getContents().stream().anyMatch(content -> content.contains("123451")));
+        assertEquals(2.0, meterRegistry.get("mail.outbox.sent").counter().count());
+    }
+
+    @Test
+    void nothingDueDoesNotLease() throws Exception {
+        when(mailOutboxRepository.lockDue(any(), anyInt())).thenReturn(List.of());
+
+        assertEquals(0, dispatcher.dispatchOnce());
+
+        verify(mailOutboxRepository, never()).lease(any(), any());
+    }
+
+    @Test
+    void failedDeliveryIsRescheduledWithBackoff() throws Exception {
+        smtpServer.failNext(1);
+        when(mailOutboxRepository.lockDue(any(), anyInt())).thenReturn(List.of(mail(1, 0)));
+        LocalDateTime before = LocalDateTime.now();
+
+        dispatcher.dispatchOnce();
+
+        verify(mailOutboxRepository).reschedule(eq(1L), eq(1), argThat(next -> next.isAfter(before.plusNanos(999_000_000))),
+                argThat(error -> error.contains("451")));
+        verify(mailOutboxRepository, never()).deleteById(anyLong());
+        assertEquals(1.0, meterRegistry.get("mail.outbox.retried").counter().count());
+    }
+
+    @Test
+    void mailThatCannotBeBuiltIsRescheduledNotCountedAsSent() throws Exception {
+        MailOutbox mail = mail(1, 0);
+        mail.setRecipient("not@@an address");
+        when(mailOutboxRepository.lockDue(any(), anyInt())).thenReturn(List.of(mail));
+
+        dispatcher.dispatchOnce();
+
+        verify(mailOutboxRepository).reschedule(eq(1L), eq(1), any(), argThat(error -> error.contains("could not be built")));
+        verify(mailOutboxRepository, never()).deleteById(anyLong());
+        assertEquals(0.0, meterRegistry.get("mail.outbox.sent").counter().count());
+        assertTrue(smtpServer.getMessages().isEmpty());
+    }
+
+    @Test
+    void mailQueuedBeforeEncryptionIsStillSent() throws Exception {
+        MailOutbox mail = mail(1, 0);
+        mail.setPayload("{\"code\":\"654321\"}");
+        when(mailOutboxRepository.lockDue(any(), anyInt())).thenReturn(List.of(mail));
+
+        dispatcher.dispatchOnce();
+
+        verify(mailOutboxRepository).deleteById(1L);
+        assertTrue(smtpServer.getContents().stream().anyMatch(content -> content.contains("654321")));
+    }
+
+    @Test
+    void mailOlderThanTheMaximumAgeIsDroppedUnsent() throws Exception {
+        MailOutbox mail = mail(1, 2);
+        mail.setCreatedAt(LocalDateTime.now().minusMinutes(11));
+        when(mailOutboxRepository.lockDue(any(), anyInt())).thenReturn(List.of(mail));
+
+        dispatcher.dispatchOnce();
+
+        verify(mailOutboxRepository).markDead(eq(1L), eq(2), argThat(error -> error.contains("Expired")));
+        assertTrue(smtpServer.getMessages().isEmpty());
+        assertEquals(1.0, meterRegistry.get("mail.outbox.dead").counter().count());
+    }
+
+    @Test
+    void retryPastTheMaximumAgeMarksTheMailDead() throws Exception {
+        smtpServer.failNext(1);
+        MailOutbox mail = mail(1, 0);
+        mail.setCreatedAt(LocalDateTime.now().minusSeconds(599));
+        when(mailOutboxRepository.lockDue(any(), anyInt())).thenReturn(List.of(mail));
+
+        dispatcher.dispatchOnce();
+
+        verify(mailOutboxRepository).markDead(eq(1L), eq(1), anyString());
+        verify(mailOutboxRepository, never()).reschedule(anyLong(), anyInt(), any(), any());
+    }
+
+    @Test
+    void lastFailedAttemptMarksTheMailDead() throws Exception {
+        smtpServer.failNext(1);
+        when(mailOutboxRepository.lockDue(any(), anyInt())).thenReturn(List.of(mail(1, MAX_ATTEMPTS - 1)));
+
+        dispatcher.dispatchOnce();
+
+        verify(mailOutboxRepository).markDead(eq(1L), eq(MAX_ATTEMPTS), anyString());
+        verify(mailOutboxRepository, never()).reschedule(anyLong(), anyInt(), any(), any());
+        assertEquals(1.0, meterRegistry.get("mail.outbox.dead").counter().count());
+    }
+
+    @Test
+    void backoffDoublesUpToTheMaximum() {
+        assertTrue(dispatcher.backoff(1) >= 1000 && dispatcher.backoff(1) <= 1200);
+        assertTrue(dispatcher.backoff(3) >= 4000 && dispatcher.backoff(3) <= 4800);
+        assertTrue(dispatcher.backoff(20) >= 60000 && dispatcher.backoff(20) <= 72000);
+    }
+}
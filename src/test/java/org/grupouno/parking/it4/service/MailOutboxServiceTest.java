@@ -0,0 +1,101 @@
+package org.grupouno.parking.it4.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.grupouno.parking.it4.model.MailOutbox;
+import org.grupouno.parking.it4.repository.MailOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class MailOutboxServiceTest {
+
+    @Mock
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Mock
+    private MailOutboxDispatcher mailOutboxDispatcher;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final MailPayloadCipher mailPayloadCipher = new MailPayloadCipher("", "test-secret");
+    private MailOutboxService mailOutboxService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mailOutboxService = new MailOutboxService(mailOutboxRepository, mailOutboxDispatcher, new ObjectMapper(), mailPayloadCipher, jdbcTemplate);
+        when(mailOutboxRepository.save(any(MailOutbox.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void enqueuePasswordAndUserStoresAPendingMail() {
+        mailOutboxService.enqueuePasswordAndUser("user@example.com", "Secret1!");
+
+        ArgumentCaptor<MailOutbox> captor = ArgumentCaptor.forClass(MailOutbox.class);
+        verify(mailOutboxRepository).save(captor.capture());
+        MailOutbox mail = captor.getValue();
+        assertEquals(MailOutbox.Type.PASSWORD_AND_USER, mail.getMailType());
+        assertEquals(MailOutbox.Status.PENDING, mail.getStatus());
+        assertEquals("user@example.com", mail.getRecipient());
+        assertFalse(mail.getPayload().contains("Secret1!"));
+        assertEquals("{\"password\":\"Secret1!\"}", mailPayloadCipher.decrypt(mail.getPayload()));
+        assertEquals(0, mail.getAttempts());
+        assertNotNull(mail.getNextAttemptAt());
+        verify(mailOutboxDispatcher).wakeUp();
+    }
+
+    @Test
+    void enqueueInsideATransactionWakesTheDispatcherAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        mailOutboxService.enqueueVerificationCode("user@example.com", "123456");
+
+        verify(mailOutboxDispatcher, never()).wakeUp();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(mailOutboxDispatcher).wakeUp();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enqueuePasswordAndUsersInsertsOneBatch() {
+        Map<String, String> passwords = new LinkedHashMap<>();
+        passwords.put("a@example.com", "Secret1!");
+        passwords.put("b@example.com", "Secret2!");
+
+        mailOutboxService.enqueuePasswordAndUsers(passwords);
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO mail_outbox"), captor.capture());
+        List<Object[]> rows = captor.getValue();
+        assertEquals(2, rows.size());
+        assertEquals("PASSWORD_AND_USER", rows.get(0)[0]);
+        assertEquals("b@example.com", rows.get(1)[1]);
+        assertEquals("{\"password\":\"Secret2!\"}", mailPayloadCipher.decrypt((String) rows.get(1)[2]));
+        assertEquals("PENDING", rows.get(1)[3]);
+        verify(mailOutboxRepository, never()).save(any());
+        verify(mailOutboxDispatcher).wakeUp();
+    }
+}
@@ -0,0 +1,52 @@
+package org.grupouno.parking.it4.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailPayloadCipherTest {
+
+    private static final String KEY = "MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+    private static final String SECRET = "3cfa76ef14937c1c0ea519f8fc057a80";
+
+    @Test
+    void encryptedPayloadDoesNotContainTheSecretAndRoundTrips() {
+        MailPayloadCipher cipher = new MailPayloadCipher(KEY, SECRET);
+
+        String stored = cipher.encrypt("{\"password\":\"Secret1!\"}");
+
+        assertFalse(stored.contains("Secret1!"));
+        assertNotEquals(stored, cipher.encrypt("{\"password\":\"Secret1!\"}"));
+        assertEquals("{\"password\":\"Secret1!\"}", new MailPayloadCipher(KEY, SECRET).decrypt(stored));
+    }
+
+    @Test
+    void anotherKeyCannotDecrypt() {
+        String stored = new MailPayloadCipher(KEY, SECRET).encrypt("{\"code\":\"123456\"}");
+
+        assertThrows(IllegalStateException.class, () -> new MailPayloadCipher("", SECRET).decrypt(stored));
+    }
+
+    @Test
+    void plaintextPayloadIsReturnedAsItIs() {
+        assertEquals("{\"code\":\"123456\"}", new MailPayloadCipher(KEY, SECRET).decrypt("{\"code\":\"123456\"}"));
+    }
+
+    @Test
+    void keyOfInvalidLengthIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MailPayloadCipher("c2hvcnQ=", SECRET));
+    }
+
+    @Test
+    void instancesSharingTheSecretDeriveTheSameKey() {
+        String stored = new MailPayloadCipher("", SECRET).encrypt("{\"code\":\"123456\"}");
+
+        assertEquals("{\"code\":\"123456\"}", new MailPayloadCipher("", SECRET).decrypt(stored));
+        assertThrows(IllegalStateException.class, () -> new MailPayloadCipher("", SECRET + "0").decrypt(stored));
+    }
+
+    @Test
+    void refusesToStartWithoutKeyOrSecret() {
+        assertThrows(IllegalStateException.class, () -> new MailPayloadCipher("", ""));
+    }
+}
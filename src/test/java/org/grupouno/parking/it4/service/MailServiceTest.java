@@ -7,11 +7,13 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -20,6 +22,9 @@ class MailServiceTest {
     @Mock
     private JavaMailSender mailSender;
 
+    @Spy
+    private MailTemplateRegistry mailTemplateRegistry = new MailTemplateRegistry();
+
     @InjectMocks
     private MailService mailService;
 
@@ -266,4 +271,18 @@ class MailServiceTest {
         verify(mailSender, times(1)).send(mimeMessage);
         assertEquals(expectedContent, helper.getMimeMessage().getContent().toString());
     }
+
+    @Test
+    void sendPasswordAndUser_rendersTheClasspathTemplateAsSinglePartHtml() throws Exception {
+        MimeMessage mimeMessage = new MimeMessage(jakarta.mail.Session.getInstance(new java.util.Properties()));
+        when(mailSender.createMimeMessage()).thenReturn(mimeMessage);
+
+        mailService.sendPasswordAndUser("test@example.com", "a&b<c");
+
+        verify(mailSender).send(mimeMessage);
+        assertEquals("Tus Credenciales de Cuenta - ParkingIT4", mimeMessage.getSubject());
+        String content = (String) mimeMessage.getContent();
+        assertTrue(content.contains("<p><strong>Correo:</strong> test@example.com</p>"));
+        assertTrue(content.contains("<p><strong>Contraseña:</strong> a&amp;b&lt;c</p>"));
+    }
 }
@@ -0,0 +1,56 @@
+package org.grupouno.parking.it4.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MailTemplateTest {
+
+    @Test
+    void parseReadsTheSubjectAndRendersPlaceholders() {
+        MailTemplate template = MailTemplate.parse("welcome", "subject: Hello\n\n<p>{{name}} has code {{ code }}</p>\n");
+
+        assertEquals("welcome", template.getName());
+        assertEquals("Hello", template.getSubject());
+        assertEquals("<p>Ana has code 123</p>\n", template.render(Map.of("name", "Ana", "code", "123")));
+    }
+
+    @Test
+    void renderEscapesHtmlInValues() {
+        MailTemplate template = MailTemplate.parse("t", "subject: s\n\n<b>{{v}}</b>");
+
+        assertEquals("<b>&lt;i&gt; &amp; &quot;x&quot; &#39;y&#39;</b>", template.render(Map.of("v", "<i> & \"x\" 'y'")));
+    }
+
+    @Test
+    void renderWithoutPlaceholdersReturnsTheBody() {
+        MailTemplate template = MailTemplate.parse("t", "subject: s\r\n\r\nplain");
+
+        assertEquals("plain", template.render(Map.of()));
+    }
+
+    @Test
+    void renderRequiresEveryValue() {
+        MailTemplate template = MailTemplate.parse("t", "subject: s\n\n{{a}}{{b}}");
+
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of("a", "1")));
+    }
+
+    @Test
+    void parseRejectsMalformedTemplates() {
+        assertThrows(IllegalArgumentException.class, () -> MailTemplate.parse("t", "<p>no subject</p>"));
+        assertThrows(IllegalArgumentException.class, () -> MailTemplate.parse("t", "subject: s\n\n{{open"));
+        assertThrows(IllegalArgumentException.class, () -> MailTemplate.parse("t", "subject: s\n\n{{ }}"));
+    }
+
+    @Test
+    void registryLoadsTheClasspathTemplates() {
+        MailTemplateRegistry registry = new MailTemplateRegistry();
+
+        assertEquals("Recuperación de Contraseña - ParkingIT4", registry.get("verification-code").getSubject());
+        assertTrue(registry.get("verification-code").render(Map.of("code", "654321")).contains("654321"));
+        assertThrows(IllegalArgumentException.class, () -> registry.get("missing"));
+    }
+}
@@ -0,0 +1,145 @@
+package org.grupouno.parking.it4.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledJavaMailSenderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FakeSmtpServer smtpServer;
+    private PooledJavaMailSender sender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtpServer = new FakeSmtpServer();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (sender != null) {
+            sender.destroy();
+        }
+        smtpServer.close();
+    }
+
+    private PooledJavaMailSender sender(int maxConnections, int maxMessagesPerConnection) {
+        PooledJavaMailSender pooled = new PooledJavaMailSender(maxConnections, maxMessagesPerConnection, 60000, 5000, meterRegistry);
+        pooled.setHost("localhost");
+        pooled.setPort(smtpServer.getPort());
+        return pooled;
+    }
+
+    private MimeMessage message(int index) throws Exception {
+        MimeMessage message = sender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false);
+        helper.setFrom("noreply@example.com");
+        helper.setTo("user" + index + "@example.com");
+        helper.setSubject("Message " + index);
+        helper.setText("Body " + index);
+        return message;
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    @Test
+    void consecutiveSendsReuseOneConnection() throws Exception {
+        sender = sender(2, 100);
+
+        for (int i = 0; i < 10; i++) {
+            sender.send(message(i));
+        }
+
+        assertEquals(10, smtpServer.getMessages().size());
+        assertEquals(1, smtpServer.getConnections());
+        assertEquals(1.0, counter("mail.smtp.connections.opened"));
+        assertEquals(10.0, counter("mail.smtp.messages.sent"));
+        assertEquals(1, sender.getIdleConnections());
+    }
+
+    @Test
+    void batchSendUsesOneConnection() throws Exception {
+        sender = sender(2, 100);
+
+        sender.send(message(1), message(2), message(3));
+
+        assertEquals(3, smtpServer.getMessages().size());
+        assertEquals(1, smtpServer.getConnections());
+    }
+
+    @Test
+    void connectionIsReplacedAfterItsMessageLimit() throws Exception {
+        sender = sender(1, 3);
+
+        for (int i = 0; i < 10; i++) {
+            sender.send(message(i));
+        }
+
+        assertEquals(10, smtpServer.getMessages().size());
+        assertEquals(4, smtpServer.getConnections());
+        assertEquals(3.0, counter("mail.smtp.connections.closed"));
+    }
+
+    @Test
+    void concurrentSendersNeverOpenMoreThanTheMaximum() throws Exception {
+        sender = sender(2, 100);
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> sends = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                MimeMessage message = message(i);
+                sends.add(callers.submit(() -> sender.send(message)));
+            }
+            for (Future<?> send : sends) {
+                send.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(30, smtpServer.getMessages().size());
+        assertTrue(smtpServer.getConnections() <= 2);
+    }
+
+    @Test
+    void failedMessageClosesItsConnectionAndTheNextOneReconnects() throws Exception {
+        sender = sender(1, 100);
+        sender.send(message(1));
+        smtpServer.failNext(1);
+
+        assertThrows(MailSendException.class, () -> sender.send(message(2)));
+        sender.send(message(3));
+
+        assertEquals(2, smtpServer.getMessages().size());
+        assertEquals(2, smtpServer.getConnections());
+        assertEquals(1.0, counter("mail.smtp.messages.failed"));
+    }
+
+    @Test
+    void idleConnectionsAreEvicted() throws Exception {
+        sender = sender(2, 100);
+        sender.send(message(1));
+
+        assertEquals(0, sender.evictIdleConnections(System.nanoTime()));
+        assertEquals(1, sender.evictIdleConnections(System.nanoTime() + TimeUnit.MINUTES.toNanos(2)));
+        assertEquals(0, sender.getIdleConnections());
+
+        sender.send(message(2));
+        assertEquals(2, smtpServer.getConnections());
+    }
+}
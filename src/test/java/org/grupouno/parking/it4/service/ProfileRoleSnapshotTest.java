@@ -0,0 +1,84 @@
+package org.grupouno.parking.it4.service;
+
+import org.grupouno.parking.it4.model.DetailDTO;
+import org.grupouno.parking.it4.model.DetailRoleProfile;
+import org.grupouno.parking.it4.model.Profile;
+import org.grupouno.parking.it4.model.Rol;
+import org.grupouno.parking.it4.repository.DetailRoleProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProfileRoleSnapshotTest {
+
+    @Mock
+    private DetailRoleProfileRepository detailRoleProfileRepository;
+
+    @InjectMocks
+    private ProfileRoleSnapshot profileRoleSnapshot;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private DetailRoleProfile detail(long profileId, long roleId, String roleName) {
+        Profile profile = new Profile();
+        profile.setProfileId(profileId);
+        Rol role = new Rol();
+        role.setId(roleId);
+        role.setRole(roleName);
+        DetailRoleProfile detail = new DetailRoleProfile();
+        detail.setId(new DetailDTO(profileId, roleId));
+        detail.setProfile(profile);
+        detail.setRole(role);
+        return detail;
+    }
+
+    @Test
+    void refresh_groupsRolesByProfile() {
+        when(detailRoleProfileRepository.findAllWithRoles()).thenReturn(List.of(
+                detail(1L, 1L, "ROLE_PROFILE"), detail(1L, 2L, "ROLE_USER"), detail(2L, 2L, "ROLE_USER")));
+
+        profileRoleSnapshot.refresh();
+
+        assertEquals(List.of("ROLE_PROFILE", "ROLE_USER"), profileRoleSnapshot.getRoleNames(1L));
+        assertEquals(List.of("ROLE_USER"),
+                profileRoleSnapshot.getAuthorities(2L).stream().map(GrantedAuthority::getAuthority).toList());
+        assertEquals(2L, profileRoleSnapshot.getRoles(1L).get(1).getId());
+        assertTrue(profileRoleSnapshot.getRoles(3L).isEmpty());
+    }
+
+    @Test
+    void refresh_replacesPreviousSnapshot() {
+        when(detailRoleProfileRepository.findAllWithRoles())
+                .thenReturn(List.of(detail(1L, 1L, "ROLE_PROFILE")))
+                .thenReturn(List.of());
+
+        profileRoleSnapshot.refresh();
+        List<Rol> before = profileRoleSnapshot.getRoles(1L);
+        profileRoleSnapshot.refreshAfterCommit();
+
+        assertEquals(1, before.size());
+        assertTrue(profileRoleSnapshot.getRoles(1L).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> before.add(new Rol()));
+    }
+
+    @Test
+    void load_databaseError_keepsEmptySnapshot() {
+        when(detailRoleProfileRepository.findAllWithRoles()).thenThrow(new DataAccessResourceFailureException("down"));
+
+        profileRoleSnapshot.load();
+
+        assertTrue(profileRoleSnapshot.getAuthorities(1L).isEmpty());
+    }
+}
@@ -1,5 +1,6 @@
 package org.grupouno.parking.it4.service;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Pageable;
+import org.grupouno.parking.it4.dto.ProfileSummary;
 import jakarta.persistence.EntityNotFoundException;
 import org.grupouno.parking.it4.dto.ProfileDto;
 import org.grupouno.parking.it4.exceptions.RoleExistingException;
@@ -10,14 +11,19 @@ import org.grupouno.parking.it4.model.Rol;
 import org.grupouno.parking.it4.repository.DetailRoleProfileRepository;
 import org.grupouno.parking.it4.repository.ProfileRepository;
 import org.grupouno.parking.it4.repository.RoleRepository;
+import org.grupouno.parking.it4.security.PrincipalCache;
+import org.grupouno.parking.it4.security.TokenVersionRegistry;
+import org.grupouno.parking.it4.utils.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.Optional;
@@ -31,6 +37,15 @@ class ProfileServiceTest {
     @Mock
     private ProfileRepository profileRepository;
 
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Mock
+    private ProfileRoleSnapshot profileRoleSnapshot;
+
     @Mock
     private DetailRoleProfileRepository detailRoleProfileRepository;
 
@@ -40,9 +55,6 @@ class ProfileServiceTest {
     @Mock
     private AudithService audithService;
 
-    @Mock
-    private ObjectMapper objectMapper;
-
     @InjectMocks
     private ProfileService profileService;
 
@@ -55,14 +67,15 @@ class ProfileServiceTest {
     void testGetRolesByProfileId() {
         // Arrange
         Long profileId = 1L;
-        when(detailRoleProfileRepository.findRolesByProfileId(profileId)).thenReturn(List.of(new Rol()));
+        when(profileRoleSnapshot.getRoles(profileId)).thenReturn(List.of(new Rol()));
 
         // Act
         List<Rol> result = profileService.getRolesByProfileId(profileId);
 
         // Assert
         assertNotNull(result);
-        verify(detailRoleProfileRepository, times(1)).findRolesByProfileId(profileId);
+        assertEquals(1, result.size());
+        verify(detailRoleProfileRepository, never()).findRolesByProfileId(profileId);
     }
 
     @Test
@@ -71,15 +84,15 @@ class ProfileServiceTest {
         int page = 0;
         int size = 10;
         String description = "test";
-        Page<Profile> mockPage = mock(Page.class);
-        when(profileRepository.findByDescriptionContainingIgnoreCase(description, PageRequest.of(page, size))).thenReturn(mockPage);
+        Page<ProfileSummary> mockPage = mock(Page.class);
+        when(profileRepository.findSummariesByDescriptionContaining(description, PageRequest.of(page, size))).thenReturn(mockPage);
 
         // Act
-        Page<Profile> result = profileService.getAllProfiles(page, size, description);
+        Page<ProfileSummary> result = profileService.getAllProfiles(page, size, description);
 
         // Assert
         assertNotNull(result);
-        verify(profileRepository, times(1)).findByDescriptionContainingIgnoreCase(description, PageRequest.of(page, size));
+        verify(profileRepository, times(1)).findSummariesByDescriptionContaining(description, PageRequest.of(page, size));
     }
 
     @Test
@@ -87,30 +100,31 @@ class ProfileServiceTest {
         // Arrange
         int page = 0;
         int size = 10;
-        Page<Profile> mockPage = mock(Page.class);
-        when(profileRepository.findAll(PageRequest.of(page, size))).thenReturn(mockPage);
+        Page<ProfileSummary> mockPage = mock(Page.class);
+        when(profileRepository.findSummaries(PageRequest.of(page, size))).thenReturn(mockPage);
 
         // Act
-        Page<Profile> result = profileService.getAllProfiles(page, size, null);
+        Page<ProfileSummary> result = profileService.getAllProfiles(page, size, null);
 
         // Assert
         assertNotNull(result);
-        verify(profileRepository, times(1)).findAll(PageRequest.of(page, size));
+        verify(profileRepository, times(1)).findSummaries(PageRequest.of(page, size));
+        verify(profileRepository, never()).findAll(any(Pageable.class));
     }
 
     @Test
     void testGetAllProfilesForUser() {
         // Arrange
-        List<Profile> mockProfiles = List.of(new Profile());
-        when(profileRepository.findAll()).thenReturn(mockProfiles);
+        List<ProfileSummary> mockProfiles = List.of(new ProfileSummary(1L, "ADMINISTRADOR", true));
+        when(profileRepository.findAllSummaries()).thenReturn(mockProfiles);
 
         // Act
-        List<Profile> result = profileService.getAllProfilesForUser();
+        List<ProfileSummary> result = profileService.getAllProfilesForUser();
 
         // Assert
         assertNotNull(result);
         assertEquals(mockProfiles.size(), result.size());
-        verify(profileRepository, times(1)).findAll();
+        verify(profileRepository, times(1)).findAllSummaries();
     }
 
     @Test
@@ -350,6 +364,20 @@ class ProfileServiceTest {
         verify(profileRepository, times(1)).deleteById(profileId);
     }
 
+    @Test
+    void deleteProfileAndDetailInvalidatesTokensBeforeUnlinkingUsers() {
+        Profile profile = new Profile();
+        when(profileRepository.existsById(1L)).thenReturn(true);
+        when(profileRepository.findById(1L)).thenReturn(Optional.of(profile));
+
+        profileService.deleteProfileAndDetail(1L);
+
+        InOrder inOrder = inOrder(tokenVersionRegistry, detailRoleProfileRepository, profileRepository);
+        inOrder.verify(tokenVersionRegistry).profileChanged(1L);
+        inOrder.verify(detailRoleProfileRepository).deleteByProfile(profile);
+        inOrder.verify(profileRepository).deleteById(1L);
+    }
+
     @Test
     void testDeleteProfileAndDetailProfileNotFound() {
         // Arrange
@@ -363,5 +391,16 @@ class ProfileServiceTest {
         assertEquals("Profile not found", thrown.getMessage());
     }
 
+    @Test
+    void getProfilesAfterReturnsOnePageWithoutCounting() {
+        List<ProfileSummary> profiles = List.of(new ProfileSummary(6L, "A", true), new ProfileSummary(7L, "B", true));
+        when(profileRepository.findSummariesAfter(5L, PageRequest.of(0, 3))).thenReturn(profiles);
+
+        Slice<ProfileSummary> result = profileService.getProfilesAfter(KeysetCursor.encode(5L), 2);
 
+        assertEquals(profiles, result.getContent());
+        assertFalse(result.hasNext());
+        verify(profileRepository, never()).count();
+        assertThrows(IllegalArgumentException.class, () -> profileService.getProfilesAfter(KeysetCursor.encode("x"), 2));
+    }
 }
@@ -1,15 +1,19 @@
 package org.grupouno.parking.it4.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
 import org.grupouno.parking.it4.dto.RoleDto;
+import org.grupouno.parking.it4.dto.RoleSummary;
 import org.grupouno.parking.it4.exceptions.SerializingRolException;
 import org.grupouno.parking.it4.exceptions.UserDeletionException;
 import org.grupouno.parking.it4.model.Rol;
 import org.grupouno.parking.it4.repository.RoleRepository;
+import org.grupouno.parking.it4.security.PrincipalCache;
+import org.grupouno.parking.it4.security.TokenVersionRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -17,14 +21,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class RoleServiceTest {
@@ -33,10 +41,16 @@ class RoleServiceTest {
     private RoleRepository repository;
 
     @Mock
-    private AudithService audithService;
+    private PrincipalCache principalCache;
+
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+
+    @Mock
+    private ProfileRoleSnapshot profileRoleSnapshot;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private AudithService audithService;
 
     @InjectMocks
     private RoleService roleService;
@@ -53,8 +67,7 @@ class RoleServiceTest {
     void testFindRolesByProfileId() {
         // Arrange
         Long profileId = 1L;
-        List<Rol> roles = List.of(new Rol(), new Rol());
-        when(repository.findRolesByProfileId(profileId)).thenReturn(roles);
+        when(profileRoleSnapshot.getRoleNames(profileId)).thenReturn(List.of("ROLE_USER", "ROLE_AUDITH"));
 
         // Act
         List<String> result = roleService.findRolesByProfileId(profileId);
@@ -62,15 +75,16 @@ class RoleServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(repository, times(1)).findRolesByProfileId(profileId);
+        verify(profileRoleSnapshot, times(1)).getRoleNames(profileId);
+        verify(repository, never()).findRolesByProfileId(profileId);
     }
 
     @Test
     void testGetRolesByProfileId() {
         // Arrange
         Long profileId = 1L;
-        List<Rol> roles = List.of(new Rol(), new Rol());
-        when(repository.findRolesByProfileId(profileId)).thenReturn(roles);
+        when(profileRoleSnapshot.getAuthorities(profileId)).thenReturn(List.of(
+                new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_AUDITH")));
 
         // Act
         List<GrantedAuthority> result = roleService.getRolesByProfileId(profileId);
@@ -78,7 +92,8 @@ class RoleServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(repository, times(1)).findRolesByProfileId(profileId);
+        verify(profileRoleSnapshot, times(1)).getAuthorities(profileId);
+        verify(repository, never()).findRolesByProfileId(profileId);
     }
 
     @Test
@@ -126,6 +141,27 @@ class RoleServiceTest {
         // Assert
         assertEquals("ADMIN", existingRole.getRole());
         verify(repository, times(1)).save(existingRole);
+        verify(tokenVersionRegistry).roleChanged(VALID_ROLE_ID);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUpdateRolAuditsSummariesNotTheEntity() {
+        RoleDto roleDto = new RoleDto("ADMIN", "Admin role");
+        Rol existingRole = new Rol();
+        existingRole.setId(VALID_ROLE_ID);
+        existingRole.setRole("USER");
+        when(repository.existsById(VALID_ROLE_ID)).thenReturn(true);
+        when(repository.findById(VALID_ROLE_ID)).thenReturn(Optional.of(existingRole));
+        when(repository.save(any(Rol.class))).thenReturn(existingRole);
+        ArgumentCaptor<Supplier<?>> request = ArgumentCaptor.forClass(Supplier.class);
+        ArgumentCaptor<Supplier<?>> response = ArgumentCaptor.forClass(Supplier.class);
+
+        roleService.updateRol(roleDto, VALID_ROLE_ID);
+
+        verify(audithService).recordAudit(eq("Role"), anyString(), eq("UPDATE"), request.capture(), response.capture(), anyString());
+        assertEquals(new RoleSummary(VALID_ROLE_ID, "ADMIN", "Admin role"), request.getValue().get());
+        assertEquals(new RoleSummary(VALID_ROLE_ID, "USER", null), response.getValue().get());
     }
 
     @Test
@@ -151,7 +187,9 @@ class RoleServiceTest {
         roleService.delete(VALID_ROLE_ID);
 
         // Assert
-        verify(repository, times(1)).deleteById(VALID_ROLE_ID);
+        InOrder inOrder = inOrder(tokenVersionRegistry, repository);
+        inOrder.verify(tokenVersionRegistry).roleChanged(VALID_ROLE_ID);
+        inOrder.verify(repository, times(1)).deleteById(VALID_ROLE_ID);
     }
 
     @Test
@@ -191,7 +229,7 @@ class RoleServiceTest {
         // Assert
         assertTrue(result.isPresent());
         assertEquals("ROLE_USER", result.get().getRole());
-        verify(audithService, times(1)).createAudit(anyString(), anyString(), anyString(), any(), any(), any());
+        verify(audithService, times(1)).recordAudit(anyString(), anyString(), anyString(), any(), any(), any());
     }
 
     @Test
@@ -204,7 +242,7 @@ class RoleServiceTest {
 
         // Assert
         assertFalse(result.isPresent());
-        verify(audithService, times(1)).createAudit(anyString(), anyString(), anyString(), any(), any(), any());
+        verify(audithService, times(1)).recordAudit(anyString(), anyString(), anyString(), any(), any(), any());
     }
 
     @Test
@@ -219,7 +257,7 @@ class RoleServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(audithService, times(1)).createAudit(anyString(), anyString(), anyString(), any(), any(), any());
+        verify(audithService, times(1)).recordAudit(anyString(), anyString(), anyString(), any(), any(), any());
     }
 
 
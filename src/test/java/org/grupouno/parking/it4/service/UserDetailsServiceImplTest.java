@@ -1,8 +1,6 @@
 package org.grupouno.parking.it4.service;
 import org.grupouno.parking.it4.model.Profile;
-import org.grupouno.parking.it4.model.Rol;
 import org.grupouno.parking.it4.model.User;
-import org.grupouno.parking.it4.repository.RoleRepository;
 import org.grupouno.parking.it4.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +10,7 @@ import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
@@ -29,7 +28,7 @@ class UserDetailsServiceImplTest {
     private UserRepository userRepository;
 
     @Mock
-    private RoleRepository roleRepository;
+    private ProfileRoleSnapshot profileRoleSnapshot;
 
     @Mock
     private AudithService audithService;
@@ -46,14 +45,16 @@ class UserDetailsServiceImplTest {
         MockitoAnnotations.openMocks(this);
         user = new User();
         user.setEmail(USER_EMAIL);
-        user.setIdProfile(new Profile());  // Asegúrate de tener la clase Profile
+        Profile profile = new Profile();
+        profile.setProfileId(PROFILE_ID);
+        user.setIdProfile(profile);
     }
 
     @Test
     void testLoadUserByUsernameSuccess() {
         // Arrange
         when(userRepository.findByEmail(USER_EMAIL)).thenReturn(Optional.of(user));
-        when(roleRepository.findRolesByProfileId(PROFILE_ID)).thenReturn(List.of(new Rol()));
+        when(profileRoleSnapshot.getAuthorities(PROFILE_ID)).thenReturn(List.of(new SimpleGrantedAuthority("ROLE_USER")));
 
         // Act
         UserDetails result = userDetailsService.loadUserByUsername(USER_EMAIL);
@@ -65,7 +66,7 @@ class UserDetailsServiceImplTest {
         assertEquals(1, authorities.size());
         assertTrue(authorities.stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
 
-        verify(audithService, times(1)).createAudit(anyString(), anyString(), anyString(), any(), any(), any());
+        verify(audithService, times(1)).recordAudit(anyString(), anyString(), anyString(), any(), any(), any());
     }
 
     @Test
@@ -79,13 +80,14 @@ class UserDetailsServiceImplTest {
         });
         assertEquals("No se encontró el email: " + USER_EMAIL, thrown.getMessage());
 
-        verify(audithService, times(1)).createAudit(anyString(), anyString(), anyString(), any(), any(), any());
+        verify(audithService, times(1)).recordAudit(anyString(), anyString(), anyString(), any(), any(), any());
     }
 
     @Test
     void testGetAuthorities() {
         // Arrange
-        when(roleRepository.findRolesByProfileId(PROFILE_ID)).thenReturn(List.of(new Rol(), new Rol()));
+        when(profileRoleSnapshot.getAuthorities(PROFILE_ID)).thenReturn(List.of(
+                new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")));
 
         // Act
         Collection<GrantedAuthority> authorities = userDetailsService.getAuthorities(PROFILE_ID);
@@ -0,0 +1,215 @@
+package org.grupouno.parking.it4.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.grupouno.parking.it4.dto.UserImportReport;
+import org.grupouno.parking.it4.repository.ProfileRepository;
+import org.grupouno.parking.it4.utils.Validations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private ProfileRepository profileRepository;
+
+    @Mock
+    private MailOutboxService mailOutboxService;
+
+    @Mock
+    private AudithService audithService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed");
+        when(profileRepository.existsById(1L)).thenReturn(true);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            int[] counts = new int[invocation.<List<?>>getArgument(1).size()];
+            Arrays.fill(counts, 1);
+            return counts;
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void csvRowsAreValidatedDeduplicatedAndInsertedInOneBatch() throws IOException {
+        givenExisting("taken@example.com", "3333333300101");
+        String csv = """
+                email,name,surname,age,dpi,profileId
+                ana@example.com,"Ana, María",López,30,1234567890101,1
+                bad-email,Luis,Pérez,20,1111111100101,1
+                luis@example.com,Luis,Pérez,20,1111111110101,1
+                ana@example.com,Ana,Otra,31,2222222200101,1
+                taken@example.com,Eva,Ruiz,40,1212121220101,1
+                juan@example.com,Juan,Díaz,25,8765432120101,7
+                rosa@example.com,Rosa,Gil,,1111111100101,1
+                """;
+
+        UserImportReport report = service(500).importUsers(body(csv), "text/csv; charset=UTF-8");
+
+        assertEquals(7, report.getTotal());
+        assertEquals(2, report.getCreated());
+        // Field checks are reported as rows are read, duplicates when their chunk is imported
+        assertEquals(List.of(3, 4, 7, 5, 6), report.getRejected().stream().map(UserImportReport.Rejection::line).toList());
+        assertEquals("Email is not valid", report.getRejected().get(0).message());
+        assertEquals("DPI IS NOT VALID", report.getRejected().get(1).message());
+        assertEquals("Profile not found", report.getRejected().get(2).message());
+        assertEquals("Email or DPI repeated in the file", report.getRejected().get(3).message());
+        assertEquals("You have already a account with this DPI or Email", report.getRejected().get(4).message());
+
+        ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO \"user\""), inserts.capture());
+        assertEquals(2, inserts.getValue().size());
+        assertArrayEquals(new Object[]{"Ana, María", "López", 30L, "1234567890101", "ana@example.com", "hashed", 1L},
+                inserts.getValue().get(0));
+        assertEquals(0L, inserts.getValue().get(1)[2]);
+
+        ArgumentCaptor<Map<String, String>> mails = ArgumentCaptor.forClass(Map.class);
+        verify(mailOutboxService).enqueuePasswordAndUsers(mails.capture());
+        assertEquals(List.of("ana@example.com", "rosa@example.com"), List.copyOf(mails.getValue().keySet()));
+        verify(profileRepository, times(1)).existsById(1L);
+    }
+
+    @Test
+    void ndjsonIsImportedInChunks() throws IOException {
+        givenExisting();
+        String ndjson = """
+                {"name":"Ana","surname":"López","dpi":"1234567890101","email":"ana@example.com","profileId":1}
+                {"name":"Luis","surname":"Pérez","dpi":"1111111100101","email":"luis@example.com","profileId":1}
+
+                {not json
+                {"name":"Eva","surname":"Ruiz","dpi":"2222222200101","email":"eva@example.com","profileId":1}
+                """;
+
+        UserImportReport report = service(2).importUsers(body(ndjson), UserImportService.NDJSON);
+
+        assertEquals(4, report.getTotal());
+        assertEquals(3, report.getCreated());
+        assertEquals(1, report.getRejected().size());
+        assertEquals(4, report.getRejected().get(0).line());
+        assertEquals("Malformed JSON", report.getRejected().get(0).message());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        verify(mailOutboxService, times(2)).enqueuePasswordAndUsers(anyMap());
+    }
+
+    @Test
+    void rowsThatConflictOnInsertAreNotMailed() throws IOException {
+        givenExisting();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 0});
+        String csv = """
+                name,surname,dpi,email,profileId
+                Ana,López,1234567890101,ana@example.com,1
+                Luis,Pérez,1111111100101,luis@example.com,1
+                """;
+
+        UserImportReport report = service(500).importUsers(body(csv), UserImportService.CSV);
+
+        assertEquals(1, report.getCreated());
+        assertEquals("luis@example.com", report.getRejected().get(0).email());
+        verify(mailOutboxService).enqueuePasswordAndUsers(argThat(mails -> mails.keySet().equals(Set.of("ana@example.com"))));
+    }
+
+    @Test
+    void emailsAreComparedIgnoringCase() throws IOException {
+        givenExisting("taken@example.com", "3333333300101");
+        String csv = """
+                name,surname,dpi,email,profileId
+                Ana,López,1234567890101,Ana@Example.com,1
+                Ana,López,1111111100101,ana@example.com,1
+                Eva,Ruiz,2222222200101,TAKEN@example.com,1
+                """;
+
+        UserImportReport report = service(500).importUsers(body(csv), UserImportService.CSV);
+
+        assertEquals(1, report.getCreated());
+        assertEquals(List.of(3, 4), report.getRejected().stream().map(UserImportReport.Rejection::line).toList());
+        assertEquals("You have already a account with this DPI or Email", report.getRejected().get(1).message());
+    }
+
+    @Test
+    void rejectedRowDoesNotReserveItsOtherKey() throws IOException {
+        givenExisting();
+        String csv = """
+                name,surname,dpi,email,profileId
+                Ana,López,1234567890101,ana@example.com,1
+                Ana,López,1111111100101,ana@example.com,1
+                Luis,Pérez,1111111100101,luis@example.com,1
+                """;
+
+        UserImportReport report = service(500).importUsers(body(csv), UserImportService.CSV);
+
+        assertEquals(2, report.getCreated());
+        assertEquals(List.of(3), report.getRejected().stream().map(UserImportReport.Rejection::line).toList());
+    }
+
+    @Test
+    void csvWithoutRequiredColumnsIsRefused() {
+        UserImportService service = service(500);
+
+        assertThrows(IllegalArgumentException.class, () -> service.importUsers(body("name,email\nAna,a@example.com\n"), UserImportService.CSV));
+        assertThrows(IllegalArgumentException.class, () -> service.importUsers(body("{}"), "application/json"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void parseCsvLineHandlesQuotes() {
+        assertEquals(List.of("a", "b, c", "say \"hi\"", ""), UserImportService.parseCsvLine("a,\"b, c\",\"say \"\"hi\"\"\","));
+        assertThrows(IllegalArgumentException.class, () -> UserImportService.parseCsvLine("a,\"b"));
+    }
+
+    private UserImportService service(int chunkSize) {
+        return new UserImportService(jdbcTemplate, transactionManager, passwordEncoder, profileRepository,
+                mailOutboxService, new Validations(), new ObjectMapper(), audithService, new SimpleMeterRegistry(),
+                chunkSize, 1000);
+    }
+
+    private void givenExisting(String... emailAndDpi) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (int i = 0; i < emailAndDpi.length; i += 2) {
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getString("email")).thenReturn(emailAndDpi[i]);
+                when(resultSet.getString("dpi")).thenReturn(emailAndDpi[i + 1]);
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
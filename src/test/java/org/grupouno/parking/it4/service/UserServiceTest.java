@@ -1,9 +1,9 @@
 package org.grupouno.parking.it4.service;
 
+import org.grupouno.parking.it4.dto.UserSummary;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityNotFoundException;
 import org.grupouno.parking.it4.dto.UserDto;
 import org.grupouno.parking.it4.exceptions.DpiException;
@@ -13,7 +13,10 @@ import org.grupouno.parking.it4.model.Profile;
 import org.grupouno.parking.it4.model.User;
 import org.grupouno.parking.it4.repository.ProfileRepository;
 import org.grupouno.parking.it4.repository.UserRepository;
+import org.grupouno.parking.it4.utils.KeysetCursor;
 import org.grupouno.parking.it4.utils.Validations;
+import org.grupouno.parking.it4.security.PrincipalCache;
+import org.grupouno.parking.it4.security.TokenVersionRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -22,9 +25,13 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 class UserServiceTest {
@@ -32,6 +39,12 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private TokenVersionRegistry tokenVersionRegistry;
+
     @Mock
     private AudithService audithService;
 
@@ -45,13 +58,13 @@ class UserServiceTest {
     private ProfileRepository profileRepository;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private Validations validations;
 
     @Mock
-    private Validations validations;
+    private MailOutboxService mailOutboxService;
 
     @Mock
-    private MailService mailService;
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private UserService userService;
@@ -75,7 +88,7 @@ class UserServiceTest {
         // Assert
         assertTrue(result.isPresent());
         assertEquals(email, result.get().getEmail());
-        verify(audithService).createAudit(anyString(), anyString(), anyString(), anyMap(), anyMap(), anyString());
+        verify(audithService).recordAudit(anyString(), anyString(), anyString(), any(), any(), anyString());
     }
 
     @Test
@@ -86,7 +99,7 @@ class UserServiceTest {
 
         // Act & Assert
         assertThrows(UserNotFoundException.class, () -> userService.findById(userId));
-        verify(audithService, never()).createAudit(anyString(), anyString(), anyString(), anyMap(), anyMap(), anyString());
+        verify(audithService, never()).recordAudit(anyString(), anyString(), anyString(), any(), any(), anyString());
     }
 
     @Test
@@ -109,15 +122,15 @@ class UserServiceTest {
         int page = 0;
         int size = 5;
         PageRequest pageRequest = PageRequest.of(page, size);
-        Page<User> userPage = new PageImpl<>(Collections.singletonList(new User()), pageRequest, 1);
-        when(userRepository.findAll(pageRequest)).thenReturn(userPage);
+        Page<UserSummary> userPage = new PageImpl<>(Collections.singletonList(summary(1L, "ana@example.com")), pageRequest, 1);
+        when(userRepository.findSummaries(pageRequest)).thenReturn(userPage);
 
         // Act
-        Page<User> result = userService.getAllUsers(page, size, null);
+        Page<UserSummary> result = userService.getAllUsers(page, size, null);
 
         // Assert
         assertEquals(1, result.getTotalElements());
-        verify(audithService).createAudit(anyString(), anyString(), anyString(), anyMap(), anyMap(), anyString());
+        verify(audithService).recordAudit(anyString(), anyString(), anyString(), any(), any(), anyString());
     }
 
     @Test
@@ -166,6 +179,55 @@ class UserServiceTest {
         assertThrows(IllegalArgumentException.class, () -> userService.updatePassword(userId, oldPassword, newPassword, confirmPassword));
     }
 
+    @Test
+    void getUsersAfter_ShouldReturnOnePageAndTellIfThereIsMore() {
+        UserSummary first = summary(3L, "ana@example.com");
+        when(userRepository.findSummariesAfter("aaa@example.com", 9L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(first, summary(4L, "bea@example.com"), summary(5L, "eva@example.com")));
+
+        Slice<UserSummary> result = userService.getUsersAfter(KeysetCursor.encode("aaa@example.com", 9L), 2);
+
+        assertEquals(2, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+        assertArrayEquals(new String[]{"ana@example.com", "3"}, KeysetCursor.decode(UserService.cursorOf(first), 2));
+        verify(userRepository, never()).findAll(any(Pageable.class));
+        verify(userRepository, never()).count();
+    }
+
+    @Test
+    void getUsersAfter_ShouldCapThePageSizeAndRejectForeignCursors() {
+        when(userRepository.findSummariesAfter("", 0L, PageRequest.of(0, UserService.MAX_PAGE_SIZE + 1))).thenReturn(List.of());
+
+        assertEquals(UserService.MAX_PAGE_SIZE, userService.getUsersAfter(null, 100_000).getSize());
+        assertThrows(IllegalArgumentException.class, () -> userService.getUsersAfter("bm90LWEtY3Vyc29y", 10));
+    }
+
+    @Test
+    void estimateUserCount_ShouldNotBeNegativeBeforeTheFirstAnalyze() {
+        when(userRepository.estimateCount()).thenReturn(-1L);
+
+        assertEquals(0, userService.estimateUserCount());
+    }
+
+    @Test
+    void searchUsers_ShouldEscapeTheTermAndKeepTheRelevanceOrder() {
+        Page<UserSummary> userPage = new PageImpl<>(Collections.singletonList(summary(1L, "ana@example.com")));
+        when(userRepository.search("50%_off\\", "%50\\%\\_off\\\\%", "50\\%\\_off\\\\%", PageRequest.of(1, 20)))
+                .thenReturn(userPage);
+
+        Page<UserSummary> result = userService.searchUsers("  50%_OFF\\ ", 1, 20);
+
+        assertSame(userPage, result);
+    }
+
+    @Test
+    void searchUsers_ShouldRejectTermsTheIndexCannotServe() {
+        assertThrows(IllegalArgumentException.class, () -> userService.searchUsers(" ab ", 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> userService.searchUsers(null, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> userService.searchUsers("a".repeat(101), 0, 10));
+        verifyNoInteractions(userRepository);
+    }
+
     @Test
     void signup_ShouldThrowException_WhenEmailIsInvalid() {
         // Arrange
@@ -194,4 +256,8 @@ class UserServiceTest {
         // Assert
         verify(userRepository).save(any(User.class));
     }
+
+    private static UserSummary summary(long userId, String email) {
+        return new UserSummary(userId, "Ana", "López", 30, "1234567890101", email, true, 2L, "USUARIO", true);
+    }
 }
@@ -1,18 +1,19 @@
 package org.grupouno.parking.it4.service;
 
-import org.grupouno.parking.it4.dto.VerificationCodeDto;
 import org.grupouno.parking.it4.exceptions.InvalidVerificationCodeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.slf4j.Logger;
 import org.springframework.scheduling.annotation.Scheduled;
 
-import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
+import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,15 +26,18 @@ class VerificationCodeServiceTest {
     @Mock
     private Logger logger;
 
+    @Spy
+    private InMemoryVerificationCodeStore verificationCodeStore = new InMemoryVerificationCodeStore();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private VerificationCodeService verificationCodeService;
 
-    private Map<String, VerificationCodeDto> verificationCodes;
-
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        verificationCodes = new ConcurrentHashMap<>();
     }
 
     @Test
@@ -41,23 +45,21 @@ class VerificationCodeServiceTest {
         String email = "test@example.com";
         String code = "123456";
         verificationCodeService.saveVerificationCode(email, code);
-        assertTrue(verificationCodeService.verificationCodes.containsKey(email));
-        VerificationCodeDto savedCode = verificationCodeService.verificationCodes.get(email);
-        assertEquals(code, savedCode.getCode());
-        assertTrue(savedCode.getExpiry().isAfter(LocalDateTime.now()));
+        assertEquals(VerificationCodeStore.Result.VALID, verificationCodeStore.check(email, code, Instant.now()));
+        assertEquals(VerificationCodeStore.Result.EXPIRED,
+                verificationCodeStore.check(email, code, Instant.now().plus(Duration.ofMinutes(31))));
 
-        verify(audithService, times(1)).createAudit(eq("VerificationCode"), contains("Saved verification code"), eq("CREATE"), anyMap(), isNull(), eq("Success"));
+        verify(audithService, times(1)).recordAudit(eq("VerificationCode"), contains("Saved verification code"), eq("CREATE"), any(), isNull(), eq("Success"));
     }
 
     @Test
     void isVerificationCodeValid_success() throws InvalidVerificationCodeException {
         String email = "test@example.com";
         String code = "123456";
-        VerificationCodeDto verificationCode = new VerificationCodeDto(code, LocalDateTime.now().plusMinutes(30));
-        verificationCodeService.verificationCodes.put(email, verificationCode);
+        verificationCodeStore.save(email, code, Instant.now().plus(Duration.ofMinutes(30)));
         boolean result = verificationCodeService.isVerificationCodeValid(email, code);
         assertTrue(result);
-        verify(audithService, times(1)).createAudit(eq("VerificationCode"), contains("Successfully validated code"), eq("VALIDATE"), anyMap(), isNull(), eq("Success"));
+        verify(audithService, times(1)).recordAudit(eq("VerificationCode"), contains("Successfully validated code"), eq("VALIDATE"), any(), isNull(), eq("Success"));
     }
 
     @Test
@@ -67,42 +69,62 @@ class VerificationCodeServiceTest {
         InvalidVerificationCodeException exception = assertThrows(InvalidVerificationCodeException.class, () ->
                 verificationCodeService.isVerificationCodeValid(email, code));
         assertEquals("Email not Found.", exception.getMessage());
-        verify(audithService, never()).createAudit(anyString(), anyString(), anyString(), anyMap(), anyMap(), anyString());
+        verify(audithService, never()).recordAudit(anyString(), anyString(), anyString(), any(), any(), anyString());
     }
 
     @Test
     void isVerificationCodeValid_incorrectCode_throwsException() {
         String email = "test@example.com";
         String code = "123456";
-        VerificationCodeDto verificationCode = new VerificationCodeDto("654321", LocalDateTime.now().plusMinutes(30));
-        verificationCodeService.verificationCodes.put(email, verificationCode);
+        verificationCodeStore.save(email, "654321", Instant.now().plus(Duration.ofMinutes(30)));
         InvalidVerificationCodeException exception = assertThrows(InvalidVerificationCodeException.class, () ->
                 verificationCodeService.isVerificationCodeValid(email, code));
         assertEquals("The code is incorrect.", exception.getMessage());
-        verify(audithService, never()).createAudit(anyString(), anyString(), anyString(), anyMap(), anyMap(), anyString());
+        verify(audithService, never()).recordAudit(anyString(), anyString(), anyString(), any(), any(), anyString());
     }
 
     @Test
     void isVerificationCodeValid_expiredCode_throwsException() {
         String email = "test@example.com";
         String code = "123456";
-        VerificationCodeDto verificationCode = new VerificationCodeDto(code, LocalDateTime.now().minusMinutes(1));
-        verificationCodeService.verificationCodes.put(email, verificationCode);
+        verificationCodeStore.save(email, code, Instant.now().minus(Duration.ofMinutes(1)));
         InvalidVerificationCodeException exception = assertThrows(InvalidVerificationCodeException.class, () ->
                 verificationCodeService.isVerificationCodeValid(email, code));
         assertEquals("The code has expired.", exception.getMessage());
-        verify(audithService, never()).createAudit(anyString(), anyString(), anyString(), anyMap(), anyMap(), anyString());
+        verify(audithService, never()).recordAudit(anyString(), anyString(), anyString(), any(), any(), anyString());
     }
 
     @Test
     @Scheduled(fixedRate = 60000)
     void cleanExpiredCodes_success() {
         String email = "test@example.com";
-        VerificationCodeDto verificationCode = new VerificationCodeDto("123456", LocalDateTime.now().minusMinutes(1));
-        verificationCodeService.verificationCodes.put(email, verificationCode);
+        verificationCodeStore.save(email, "123456", Instant.now().minus(Duration.ofMinutes(1)));
+        verificationCodeService.cleanExpiredCodes();
+        assertEquals(0, verificationCodeStore.size());
+        assertEquals(1.0, meterRegistry.counter("verification.code.expired").count());
+        verify(audithService, times(1)).recordAudit(eq("VerificationCode"), contains("Cleaned up expired verification codes."), eq("CLEAN_UP"), isNull(), isNull(), eq("Success"));
+    }
+
+    @Test
+    void cleanExpiredCodes_nothingExpired_skipsAudit() {
+        verificationCodeStore.save("test@example.com", "123456", Instant.now().plus(Duration.ofMinutes(30)));
         verificationCodeService.cleanExpiredCodes();
-        assertFalse(verificationCodeService.verificationCodes.containsKey(email));
-        verify(audithService, times(1)).createAudit(eq("VerificationCode"), contains("Cleaned up expired verification codes."), eq("CLEAN_UP"), isNull(), isNull(), eq("Success"));
+        assertEquals(1, verificationCodeStore.size());
+        assertEquals(1.0, meterRegistry.get("verification.code.live").gauge().value());
+        verify(audithService, never()).recordAudit(anyString(), anyString(), anyString(), any(), any(), anyString());
+    }
+
+    @Test
+    void liveGauge_readsTheCountOfTheLastCleanup() {
+        verificationCodeStore.save("test@example.com", "123456", Instant.now().plus(Duration.ofMinutes(30)));
+        assertEquals(0.0, meterRegistry.get("verification.code.live").gauge().value());
+
+        verificationCodeService.cleanExpiredCodes();
+        meterRegistry.get("verification.code.live").gauge().value();
+        meterRegistry.get("verification.code.live").gauge().value();
+
+        assertEquals(1.0, meterRegistry.get("verification.code.live").gauge().value());
+        verify(verificationCodeStore, times(1)).countLive(any());
     }
 
     @Test
@@ -110,7 +132,7 @@ class VerificationCodeServiceTest {
         String entity = "VerificationCode";
         String description = "Test error";
         String operation = "CREATE";
-        doThrow(new RuntimeException("Audit Service Failure")).when(audithService).createAudit(anyString(), anyString(), anyString(), anyMap(), anyMap(), anyString());
+        doThrow(new RuntimeException("Audit Service Failure")).when(audithService).recordAudit(anyString(), anyString(), anyString(), any(), any(), anyString());
         verificationCodeService.saveVerificationCode("test@example.com", "123456");
         verify(logger, times(1)).error(contains("Error saving audit record"), anyString(), any(Throwable.class));
     }
@@ -0,0 +1,26 @@
+package org.grupouno.parking.it4.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void decodeReturnsTheEncodedValues() {
+        String cursor = KeysetCursor.encode("first.last+tag@example.com", 42L);
+
+        assertFalse(cursor.contains("@"));
+        assertArrayEquals(new String[]{"first.last+tag@example.com", "42"}, KeysetCursor.decode(cursor, 2));
+        assertArrayEquals(new String[]{"7"}, KeysetCursor.decode(KeysetCursor.encode(7L), 1));
+    }
+
+    @Test
+    void decodeRejectsForeignCursors() {
+        String cursor = KeysetCursor.encode("user@example.com", 42L);
+
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(cursor, 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not base64!", 2));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decodeLong("user@example.com"));
+    }
+}
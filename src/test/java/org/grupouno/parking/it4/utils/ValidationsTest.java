@@ -0,0 +1,68 @@
+package org.grupouno.parking.it4.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationsTest {
+
+    private static final Pattern PASSWORD_REGEX =
+            Pattern.compile("^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[@$!%*?&])[A-Za-z\\d@$!%*?&]{8,}$");
+
+    private final Validations validations = new Validations();
+
+    @Test
+    void isValidPassword_matchesTheRegexItReplaces() {
+        String[] passwords = {"aB3$kd9Q", "aB3$kd9", "ab3$kd9q", "AB3$KD9Q", "aBc$kdeQ", "aB3xkd9Q", "aB3$kd9Q#",
+                "aB3$ kd9Q", "aB3$kd9Qñ", "", "Zz9!Zz9!Zz9!Zz9!"};
+        for (String password : passwords) {
+            assertEquals(PASSWORD_REGEX.matcher(password).matches(), validations.isValidPassword(password), password);
+        }
+        assertFalse(validations.isValidPassword(null));
+    }
+
+    @Test
+    void generatedPasswordsAreValid() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(validations.isValidPassword(validations.generatePassword()));
+        }
+    }
+
+    @Test
+    void isValidDpi_checksDigitsCheckDigitAndMunicipality() {
+        // 1*2 + 2*3 + ... + 8*9 = 240, 240 % 11 = 9
+        assertTrue(Validations.isValidDpi("1234567890101"));
+        assertTrue(Validations.isValidDpi("1234567892217"));
+        assertFalse(Validations.isValidDpi("1234567880101"));
+        assertFalse(Validations.isValidDpi("1234567890118"));
+        assertFalse(Validations.isValidDpi("1234567892301"));
+        assertFalse(Validations.isValidDpi("1234567890001"));
+        assertFalse(Validations.isValidDpi("1234567890100"));
+        assertFalse(Validations.isValidDpi("12345678a0101"));
+        assertFalse(Validations.isValidDpi("123456789010"));
+        assertFalse(Validations.isValidDpi(null));
+    }
+
+    @Test
+    void isValidEmail_acceptsCommonAddresses() {
+        assertTrue(Validations.isValidEmail("user@example.com"));
+        assertTrue(Validations.isValidEmail("first.last+tag@mail.example.com.gt"));
+        assertTrue(Validations.isValidEmail("a_b-c@sub-domain.example"));
+    }
+
+    @Test
+    void isValidEmail_rejectsMalformedAddresses() {
+        String[] emails = {"invalidEmail", "@example.com", "user@", "user@example", "user@@example.com",
+                "us@er@example.com", ".user@example.com", "user.@example.com", "us..er@example.com",
+                "user@.example.com", "user@example..com", "user@example.com.", "user@-example.com",
+                "user@example-.com", "user name@example.com", "user@exa_mple.com", "usér@example.com"};
+        for (String email : emails) {
+            assertFalse(Validations.isValidEmail(email), email);
+        }
+        assertFalse(Validations.isValidEmail(null));
+        assertFalse(Validations.isValidEmail("a".repeat(65) + "@example.com"));
+        assertFalse(Validations.isValidEmail("user@" + "a".repeat(64) + ".com"));
+    }
+}